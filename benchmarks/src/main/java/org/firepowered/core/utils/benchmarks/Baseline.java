@@ -0,0 +1,207 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.firepowered.core.utils.json.JsonReader;
+
+/**
+ * Compares the JSON results of two JMH runs, such as those of the last release
+ * and of the release being prepared.
+ *
+ * @since 1.3
+ */
+final class Baseline {
+
+    /** The secondary metric added by the GC profiler. */
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    /** Allocation changes smaller than this are noise, such as alignment. */
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+
+    /**
+     * A score with its error and unit.
+     */
+    static final class Metric {
+
+        private double score = Double.NaN;
+        private double error = Double.NaN;
+        private String unit;
+
+        /**
+         * Gets the score error, which is not known with a single iteration.
+         */
+        double error() {
+            return Double.isNaN(error) ? 0 : error;
+        }
+    }
+
+    /**
+     * The result of one benchmark with one set of parameters.
+     */
+    static final class Score {
+
+        private String mode;
+        private final Metric primary = new Metric();
+        private final Metric allocation = new Metric();
+
+        /**
+         * Returns whether a smaller score is better, which is the case for every
+         * mode except throughput.
+         */
+        boolean lowerIsBetter() {
+            return !"thrpt".equals(mode);
+        }
+    }
+
+    private Baseline() {
+    }
+
+    /**
+     * Reads a result file written with {@code -rf json}.
+     *
+     * @param file The file
+     * @return The score of each benchmark, by its name followed by its parameters
+     * @throws IOException If the file could not be read or is not a JMH result
+     */
+    static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        try (InputStream in = Files.newInputStream(file); JsonReader reader = new JsonReader(in)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                StringBuilder name = new StringBuilder();
+                Score score = new Score();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                    case "benchmark":
+                        name.insert(0, reader.nextString());
+                        break;
+                    case "mode":
+                        score.mode = reader.nextString();
+                        break;
+                    case "params":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            name.append(name.indexOf("(") < 0 ? " (" : ", ").append(reader.nextName()).append('=')
+                                    .append(reader.nextString());
+                        }
+                        reader.endObject();
+                        name.append(')');
+                        break;
+                    case "primaryMetric":
+                        readMetric(reader, score.primary);
+                        break;
+                    case "secondaryMetrics":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (reader.nextName().equals(ALLOCATION)) {
+                                readMetric(reader, score.allocation);
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                    }
+                }
+                reader.endObject();
+                scores.put(name.toString(), score);
+            }
+            reader.endArray();
+        }
+        return scores;
+    }
+
+    /**
+     * Prints how each benchmark in both runs changed, and which of them got
+     * worse by more than {@code threshold}. A benchmark only counts as slower if
+     * the difference is also larger than the score errors of both runs.
+     *
+     * @param baseline  The scores of the earlier run
+     * @param current   The scores of the later run
+     * @param threshold The change allowed, for example 0.1 for 10%
+     * @param out       Where to print the comparison
+     * @return {@code true} if no benchmark got worse
+     */
+    static boolean compare(Map<String, Score> baseline, Map<String, Score> current, double threshold,
+            PrintStream out) {
+        boolean ok = true;
+        out.printf("%-72s %14s %14s %9s %12s%n", "Benchmark", "Baseline", "Current", "Change", "Alloc B/op");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score then = baseline.get(entry.getKey());
+            if (then == null) {
+                out.printf("%-72s %14s %14.3f %9s %12s%n", entry.getKey(), "-", now.primary.score, "new",
+                        allocation(now));
+                continue;
+            }
+            double change = (now.primary.score - then.primary.score) / then.primary.score;
+            double worse = now.lowerIsBetter() ? change : -change;
+            double noise = now.primary.error() + then.primary.error();
+            boolean slower = worse > threshold && Math.abs(now.primary.score - then.primary.score) > noise;
+            double grown = now.allocation.score - then.allocation.score;
+            boolean allocates = grown > Math.max(ALLOCATION_SLACK_BYTES, then.allocation.score * threshold);
+            String flag = slower ? (allocates ? "  SLOWER, ALLOCATES MORE" : "  SLOWER")
+                    : allocates ? "  ALLOCATES MORE" : "";
+            out.printf("%-72s %14.3f %14.3f %+8.1f%% %12s %s%s%n", entry.getKey(), then.primary.score,
+                    now.primary.score, change * 100, allocation(now), now.primary.unit, flag);
+            ok &= !slower && !allocates;
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                out.printf("%-72s %14s%n", name, "missing");
+            }
+        }
+        return ok;
+    }
+
+    private static void readMetric(JsonReader reader, Metric metric) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+            case "score":
+                metric.score = reader.nextDouble();
+                break;
+            case "scoreError":
+                metric.error = reader.nextDouble();
+                break;
+            case "scoreUnit":
+                metric.unit = reader.nextString();
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+    }
+
+    private static String allocation(Score score) {
+        return Double.isNaN(score.allocation.score) ? "-" : String.format("%.1f", score.allocation.score);
+    }
+}
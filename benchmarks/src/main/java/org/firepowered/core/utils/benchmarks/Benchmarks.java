@@ -0,0 +1,116 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks. This takes the usual JMH options, but also adds the GC
+ * profiler unless other profilers are given, and always writes the results as
+ * JSON, to {@value #DEFAULT_RESULT} unless given with {@code -rff}. It also
+ * takes:
+ * <dl>
+ * <dt>{@code --baseline <file>}
+ * <dd>Compares the results with those of an earlier run, and exits with status
+ * 1 if any benchmark got slower or allocates more
+ * <dt>{@code --threshold <percent>}
+ * <dd>How much worse a benchmark may get, {@value #DEFAULT_THRESHOLD}% unless
+ * given
+ * <dt>{@code --compare <file>}
+ * <dd>Compares the results in the file with the baseline instead of running
+ * the benchmarks
+ * </dl>
+ *
+ * @since 1.3
+ */
+public final class Benchmarks {
+
+    /** Where the results are written unless given with {@code -rff}. */
+    public static final String DEFAULT_RESULT = "jmh-result.json";
+
+    /** The percentage by which a benchmark may get worse. */
+    public static final double DEFAULT_THRESHOLD = 10;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args The options
+     * @throws Exception If the options are invalid or the benchmarks failed
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>();
+        Path baseline = null;
+        Path compare = null;
+        double threshold = DEFAULT_THRESHOLD;
+        for (int i = 0; i < args.length; i++) {
+            boolean hasValue = i + 1 < args.length;
+            if (args[i].equals("--baseline") && hasValue) {
+                baseline = Paths.get(args[++i]);
+            } else if (args[i].equals("--compare") && hasValue) {
+                compare = Paths.get(args[++i]);
+            } else if (args[i].equals("--threshold") && hasValue) {
+                threshold = Double.parseDouble(args[++i]);
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+
+        Path result = compare;
+        if (result == null) {
+            CommandLineOptions options = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+            if (options.shouldHelp()) {
+                options.showHelp();
+                System.out.println();
+                System.out.println("--baseline <file>      Compare with the JSON results of an earlier run");
+                System.out.println("--threshold <percent>  How much worse a benchmark may get, default "
+                        + DEFAULT_THRESHOLD);
+                System.out.println("--compare <file>       Compare these results with the baseline, without running");
+                return;
+            }
+            result = Paths.get(options.getResult().orElse(DEFAULT_RESULT));
+            ChainedOptionsBuilder builder = new OptionsBuilder().parent(options).resultFormat(ResultFormatType.JSON)
+                    .result(result.toString());
+            if (options.getProfilers().isEmpty()) {
+                builder.addProfiler(GCProfiler.class);
+            }
+            Runner runner = new Runner(builder.build());
+            if (options.shouldList()) {
+                runner.list();
+                return;
+            }
+            runner.run();
+        }
+
+        if (baseline != null
+                && !Baseline.compare(Baseline.read(baseline), Baseline.read(result), threshold / 100, System.out)) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the inputs of the benchmarks. The same seed always gives the same
+ * inputs, so results can be compared between runs.
+ *
+ * @since 1.3
+ */
+final class Corpus {
+
+    /** The number of inputs each benchmark cycles through. */
+    static final int SIZE = 1024;
+
+    /** The SteamID64 of account 0 in the public universe. */
+    private static final long BASE_ID64 = 76561197960265728L;
+
+    /** The account of the first player with a vanity name. */
+    private static final int FIRST_ACCOUNT = 1000;
+
+    private static final long SEED = 0x5EED_F1AEL;
+
+    /** About the number of accounts so far, all of which start with 7656119. */
+    private static final int ACCOUNTS = 1_500_000_000;
+
+    /**
+     * The formats of the {@code mixed} corpus, each picked with equal chance. This
+     * follows what admins and players paste into commands: mostly SteamID64s and
+     * profile links, then the SteamID32s of server logs, then Steam3IDs.
+     */
+    private static final String[] MIXED = { "steamid64", "steamid64", "steamid64", "steamid64", "steamid64",
+            "steamid64", "steamid64", "steamid64", "steamid32", "steamid32", "steamid32", "steamid32", "steamid32",
+            "steam3id", "steam3id", "profile", "profile", "profile", "profile", "padded" };
+
+    private Corpus() {
+    }
+
+    /**
+     * Gets SteamIDs written in the given format, none of which need a vanity url
+     * to be resolved.
+     *
+     * @param format {@code mixed}, or one of {@code steamid64}, {@code steamid32},
+     *               {@code steam3id}, {@code profile}, or {@code padded} (a
+     *               SteamID64 with whitespace around it)
+     * @return {@link #SIZE} SteamIDs
+     */
+    static String[] steamIds(String format) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        String[] ids = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            long account = 1 + random.nextInt(ACCOUNTS);
+            ids[i] = format(account, format.equals("mixed") ? MIXED[random.nextInt(MIXED.length)] : format, random);
+        }
+        return ids;
+    }
+
+    /**
+     * Gets vanity names, as chosen by players.
+     *
+     * @return {@link #SIZE} distinct names
+     * @see #vanityName(int)
+     */
+    static String[] vanityNames() {
+        String[] names = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            names[i] = vanityName(i);
+        }
+        return names;
+    }
+
+    /**
+     * Gets the vanity name of account {@code i}.
+     *
+     * @param i The index of the account
+     * @return The name, which differs for every account
+     */
+    static String vanityName(int i) {
+        SplittableRandom random = new SplittableRandom(SEED + i);
+        StringBuilder name = new StringBuilder();
+        int length = 3 + random.nextInt(14);
+        for (int j = 0; j < length; j++) {
+            name.append((char) ('a' + random.nextInt(26)));
+        }
+        return name.append('_').append(i).toString();
+    }
+
+    /**
+     * Gets the SteamID64 of account {@code i}, matching the accounts used for
+     * {@link #vanityName(int)}.
+     *
+     * @param i The index of the account
+     * @return The SteamID64
+     */
+    static String steamId64(int i) {
+        return Long.toString(BASE_ID64 + FIRST_ACCOUNT + i);
+    }
+
+    /**
+     * Gets the Steam3ID of account {@code i}, as given by game servers.
+     *
+     * @param i The index of the account
+     * @return The Steam3ID
+     */
+    static String steam3Id(int i) {
+        return "[U:1:" + (FIRST_ACCOUNT + i) + "]";
+    }
+
+    /**
+     * Gets query parameters like those sent to the Web API, some of which need to
+     * be percent-encoded.
+     *
+     * @param count The number of parameters
+     * @return The parameters
+     */
+    static Map<String, String> params(int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+            case 0:
+                StringBuilder ids = new StringBuilder();
+                for (int j = 0; j < 10; j++) {
+                    if (j > 0) {
+                        ids.append(',');
+                    }
+                    ids.append(BASE_ID64 + 1 + random.nextInt(ACCOUNTS));
+                }
+                params.put("steamids" + i, ids.toString());
+                break;
+            case 1:
+                params.put("appid" + i, Integer.toString(random.nextInt(2_000_000)));
+                break;
+            case 2:
+                params.put("vanityurl" + i, "Gabe Newell & [friends] #" + i);
+                break;
+            default:
+                params.put("name" + i, "caf\u00e9 \u2603 " + i);
+                break;
+            }
+        }
+        return params;
+    }
+
+    private static String format(long account, String format, SplittableRandom random) {
+        long id64 = BASE_ID64 + account;
+        switch (format) {
+        case "steamid64":
+            return Long.toString(id64);
+        case "steamid32":
+            return "STEAM_" + random.nextInt(2) + ":" + (account & 1) + ":" + (account >>> 1);
+        case "steam3id":
+            return "[U:1:" + account + "]";
+        case "profile":
+            return "https://steamcommunity.com/profiles/" + id64 + (random.nextBoolean() ? "/" : "");
+        case "padded":
+            return "  " + id64 + "\n";
+        default:
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.firepowered.core.utils.json.JsonReader;
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.steam.Builder;
+import org.firepowered.core.utils.steam.LocalSteamServer;
+import org.firepowered.core.utils.steam.SteamApiWrapper;
+import org.firepowered.core.utils.steam.SteamID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks requests against a {@link LocalSteamServer}, so the results show
+ * the cost of the library and the loopback connection rather than of the
+ * internet. Run with {@code -t} to see how the connection pool copes with
+ * several threads.
+ *
+ * @since 1.3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Thread)
+public class HttpBenchmark {
+
+    /** A news response of a realistic size. */
+    private static final String NEWS_PATH = "/ISteamNews/GetNewsForApp/v0002";
+
+    /**
+     * The stand-in server, shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        private LocalSteamServer steam;
+        private String[] vanityNames;
+
+        /**
+         * Starts the server and sends every request to it.
+         *
+         * @throws IOException If the server could not be started
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            steam = new LocalSteamServer();
+            vanityNames = Corpus.vanityNames();
+            for (int i = 0; i < vanityNames.length; i++) {
+                steam.addProfile(of(Corpus.steamId64(i)), vanityNames[i], "Player " + i);
+            }
+            StringBuilder news = new StringBuilder("{\"appnews\":{\"appid\":440,\"newsitems\":[");
+            for (int i = 0; i < 10; i++) {
+                news.append(i == 0 ? "" : ",").append("{\"gid\":\"").append(i)
+                        .append("\",\"title\":\"Team Fortress 2 Update Released\",\"contents\":\"")
+                        .append("An update to Team Fortress 2 has been released. ".repeat(4)).append("\"}");
+            }
+            steam.addResponse(NEWS_PATH, news.append("]}}").toString());
+            GenericHttpGet.setTransport(steam.getTransport());
+        }
+
+        /**
+         * Stops the server.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            GenericHttpGet.setTransport(null);
+            steam.close();
+        }
+
+        private static SteamID of(String id) {
+            try {
+                return SteamID.of(id);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private Builder summaries;
+    private int next;
+
+    /**
+     * Creates the builder of this thread.
+     */
+    @Setup
+    public void setUp() {
+        summaries = SteamApiWrapper.newBuilder().apiInterface(SteamApiWrapper.INTERFACE_STEAMUSER)
+                .method("GetPlayerSummaries").version("v0002").key("0123456789ABCDEF0123456789ABCDEF");
+    }
+
+    /**
+     * Gets a response body as a string.
+     *
+     * @param server The server
+     * @return The body
+     * @throws IOException If the request failed
+     */
+    @Benchmark
+    public String getString(Server server) throws IOException {
+        return GenericHttpGet.getString("http://api.steampowered.com" + NEWS_PATH + "/?appid=440");
+    }
+
+    /**
+     * Gets a persona name from the Web API, reading it from the response as it
+     * arrives.
+     *
+     * @param server The server
+     * @return The persona name
+     * @throws IOException If the call failed
+     */
+    @Benchmark
+    public String call(Server server) throws IOException {
+        return summaries.param("steamids", Corpus.steamId64(next()))
+                .call(body -> JsonReader.read(body, "response.players[0].personaname", JsonReader::nextString));
+    }
+
+    /**
+     * Parses a custom profile link, which resolves the vanity url from the
+     * community site.
+     *
+     * @param server The server
+     * @return The SteamID
+     * @throws Exception If the vanity url was not resolved
+     */
+    @Benchmark
+    public SteamID resolveVanity(Server server) throws Exception {
+        return SteamID.of("https://steamcommunity.com/id/" + server.vanityNames[next()]);
+    }
+
+    private int next() {
+        int i = next;
+        next = (i + 1) & (Corpus.SIZE - 1);
+        return i;
+    }
+}
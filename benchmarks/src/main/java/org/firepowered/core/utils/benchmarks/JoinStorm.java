@@ -0,0 +1,362 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.firepowered.core.utils.metrics.Histogram;
+import org.firepowered.core.utils.metrics.Metrics;
+import org.firepowered.core.utils.net.ConnectionPool;
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.steam.LocalSteamServer;
+import org.firepowered.core.utils.steam.SteamApiWrapper;
+import org.firepowered.core.utils.steam.SteamID;
+
+/**
+ * Simulates game servers changing map at once, after which all their players
+ * reconnect. Each join parses the player's SteamID, which sometimes is a custom
+ * profile link that has to be resolved, and looks up their persona name, the
+ * way admin and stats plugins do. Requests go to a {@link LocalSteamServer}
+ * which adds a fixed latency, so the results show how the library behaves under
+ * the load rather than how fast Steam is that day.
+ * <p>
+ * Run with {@code java -cp benchmarks.jar
+ * org.firepowered.core.utils.benchmarks.JoinStorm} and any of:
+ * <dl>
+ * <dt>{@code --servers <n>}
+ * <dd>The number of game servers, 64 by default
+ * <dt>{@code --players <n>}
+ * <dd>The number of players reconnecting across all servers, 5000 by default
+ * <dt>{@code --vanity <fraction>}
+ * <dd>The fraction of players given by a custom profile link, 0.3 by default
+ * <dt>{@code --arrival burst|uniform|exponential}
+ * <dd>When players reconnect after their server's map change: all at once,
+ * evenly over the window, or mostly at the start of the window with a tail of
+ * stragglers, which is the default
+ * <dt>{@code --window <ms>}
+ * <dd>The time over which players reconnect, 10000 by default
+ * <dt>{@code --stagger <ms>}
+ * <dd>The time over which the servers change map, 0 by default
+ * <dt>{@code --worker-threads <n>}
+ * <dd>The threads each game server looks players up on, 4 by default
+ * <dt>{@code --max-requests <n>}
+ * <dd>The limit of concurrent requests in the connection pool, which applies to
+ * all requests as they go to a single host
+ * <dt>{@code --latency <ms>}
+ * <dd>The time the stand-in takes to answer, 50 by default
+ * <dt>{@code --error-rate <fraction>}
+ * <dd>The fraction of requests the stand-in fails, 0 by default
+ * <dt>{@code --rounds <n>}
+ * <dd>The number of map changes to run one after the other, 1 by default
+ * <dt>{@code --prometheus}
+ * <dd>Prints the library's {@link Metrics} at the end
+ * </dl>
+ *
+ * @since 1.3
+ */
+public final class JoinStorm {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    /** How often heap use is sampled. */
+    private static final Duration HEAP_SAMPLE_INTERVAL = Duration.ofMillis(50);
+
+    /** The mean arrival time of exponential arrivals, as a fraction of the window. */
+    private static final double EXPONENTIAL_MEAN = 0.25;
+
+    private int servers = 64;
+    private int players = 5000;
+    private double vanity = 0.3;
+    private String arrival = "exponential";
+    private Duration window = Duration.ofSeconds(10);
+    private Duration stagger = Duration.ZERO;
+    private int workerThreads = 4;
+    private int maxRequests = ConnectionPool.DEFAULT_MAX_REQUESTS_PER_HOST;
+    private Duration latency = Duration.ofMillis(50);
+    private double errorRate;
+    private int rounds = 1;
+    private boolean prometheus;
+
+    /**
+     * A single player reconnecting.
+     */
+    private static final class Join {
+
+        private final String input;
+        private final int server;
+        private final long delayNanos;
+
+        Join(String input, int server, long delayNanos) {
+            this.input = input;
+            this.server = server;
+            this.delayNanos = delayNanos;
+        }
+    }
+
+    /**
+     * What was measured during a round.
+     */
+    private static final class Round {
+
+        private final Histogram join = new Histogram();
+        private final Histogram parse = new Histogram();
+        private final Histogram persona = new Histogram();
+        private final LongAdder failures = new LongAdder();
+        private final AtomicLong peakHeap = new AtomicLong();
+    }
+
+    private JoinStorm() {
+    }
+
+    /**
+     * Runs the simulation.
+     *
+     * @param args The options
+     * @throws Exception If the options are invalid or the stand-in could not be
+     *                   started
+     */
+    public static void main(String[] args) throws Exception {
+        // Otherwise every response of the stand-in waits for a delayed ACK, see
+        // LocalSteamServer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        JoinStorm storm = new JoinStorm();
+        storm.parse(args);
+        storm.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("--prometheus")) {
+                prometheus = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value of " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+            case "--servers":
+                servers = Integer.parseInt(value);
+                break;
+            case "--players":
+                players = Integer.parseInt(value);
+                break;
+            case "--vanity":
+                vanity = Double.parseDouble(value);
+                break;
+            case "--arrival":
+                if (!List.of("burst", "uniform", "exponential").contains(value)) {
+                    throw new IllegalArgumentException("Unknown arrival pattern " + value);
+                }
+                arrival = value;
+                break;
+            case "--window":
+                window = Duration.ofMillis(Long.parseLong(value));
+                break;
+            case "--stagger":
+                stagger = Duration.ofMillis(Long.parseLong(value));
+                break;
+            case "--worker-threads":
+                workerThreads = Integer.parseInt(value);
+                break;
+            case "--max-requests":
+                maxRequests = Integer.parseInt(value);
+                break;
+            case "--latency":
+                latency = Duration.ofMillis(Long.parseLong(value));
+                break;
+            case "--error-rate":
+                errorRate = Double.parseDouble(value);
+                break;
+            case "--rounds":
+                rounds = Integer.parseInt(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(maxRequests);
+                LocalSteamServer steam = new LocalSteamServer(pool)) {
+            for (int i = 0; i < players; i++) {
+                steam.addProfile(SteamID.of(Corpus.steamId64(i)), Corpus.vanityName(i), "Player " + i);
+            }
+            steam.setLatency(latency);
+            steam.setErrorRate(errorRate);
+            GenericHttpGet.setTransport(steam.getTransport());
+
+            System.out.printf("%d players on %d servers, %.0f%% by profile link, %s arrival over %d ms, "
+                    + "%d ms latency, %d concurrent requests%n", players, servers, vanity * 100, arrival,
+                    window.toMillis(), latency.toMillis(), maxRequests);
+            for (int i = 1; i <= rounds; i++) {
+                runRound(i, steam, pool);
+            }
+        } finally {
+            GenericHttpGet.setTransport(null);
+        }
+        if (prometheus) {
+            System.out.println();
+            System.out.print(Metrics.toPrometheus());
+        }
+    }
+
+    private void runRound(int number, LocalSteamServer steam, ConnectionPool pool) throws InterruptedException {
+        List<Join> joins = schedule(number);
+        Round round = new Round();
+        long requests = steam.getRequests();
+        int connections = steam.getConnections();
+        ConnectionPool.Stats stats = pool.getStats();
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+
+        List<ExecutorService> workers = new ArrayList<>();
+        for (int i = 0; i < servers; i++) {
+            workers.add(Executors.newFixedThreadPool(workerThreads));
+        }
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        scheduler.scheduleAtFixedRate(
+                () -> round.peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max), 0,
+                HEAP_SAMPLE_INTERVAL.toNanos(), TimeUnit.NANOSECONDS);
+
+        CountDownLatch done = new CountDownLatch(joins.size());
+        long start = System.nanoTime();
+        for (Join join : joins) {
+            long arrival = start + join.delayNanos;
+            scheduler.schedule(() -> workers.get(join.server).execute(() -> {
+                try {
+                    join(join, arrival, round);
+                } finally {
+                    done.countDown();
+                }
+            }), join.delayNanos, TimeUnit.NANOSECONDS);
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        scheduler.shutdownNow();
+        workers.forEach(ExecutorService::shutdown);
+
+        ConnectionPool.Stats after = pool.getStats();
+        double seconds = elapsed / (NANOS_PER_MILLI * 1000);
+        long sent = steam.getRequests() - requests;
+        System.out.printf("%nRound %d: %d joins in %.3f s (%.1f joins/s), %d requests (%.1f/s), %d failed%n",
+                number, joins.size(), seconds, joins.size() / seconds, sent, sent / seconds,
+                round.failures.sum());
+        System.out.printf("  %-14s %10s %10s %10s %10s %10s%n", "", "p50", "p90", "p99", "p99.9", "max");
+        print("join", round.join);
+        print("SteamID.of", round.parse);
+        print("persona name", round.persona);
+        double waited = (after.getWaitTime().toNanos() - stats.getWaitTime().toNanos()) / NANOS_PER_MILLI;
+        System.out.printf("  connections: %d opened, %d peak in flight, %.1f ms waiting for one per request%n",
+                steam.getConnections() - connections, after.getPeakActive(), sent == 0 ? 0 : waited / sent);
+        System.out.printf("  heap: %.1f MB peak, %d collections taking %d ms, %d threads peak%n",
+                round.peakHeap.get() / BYTES_PER_MEGABYTE, gcCount() - gcCount, gcTime() - gcTime,
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    /**
+     * Looks a player up, recording how long each step took and how long the
+     * player waited since they reconnected.
+     */
+    private static void join(Join join, long arrival, Round round) {
+        try {
+            long start = System.nanoTime();
+            SteamID id = SteamID.of(join.input);
+            long parsed = System.nanoTime();
+            round.parse.record(parsed - start);
+            String name = SteamApiWrapper.getPersonaName(id);
+            round.persona.record(System.nanoTime() - parsed);
+            if (name == null) {
+                round.failures.increment();
+            }
+        } catch (Exception e) {
+            round.failures.increment();
+        } finally {
+            round.join.record(System.nanoTime() - arrival);
+        }
+    }
+
+    /**
+     * Creates the joins of a round, ordered by server. Every round uses
+     * different arrival times, but the same players.
+     */
+    private List<Join> schedule(int round) {
+        SplittableRandom random = new SplittableRandom(round);
+        List<Join> joins = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            int server = i % servers;
+            long mapChange = stagger.toNanos() * server / servers;
+            String input = random.nextDouble() < vanity ? "https://steamcommunity.com/id/" + Corpus.vanityName(i)
+                    : Corpus.steam3Id(i);
+            joins.add(new Join(input, server, mapChange + arrivalDelay(random)));
+        }
+        return joins;
+    }
+
+    private long arrivalDelay(SplittableRandom random) {
+        long window = this.window.toNanos();
+        switch (arrival) {
+        case "burst":
+            return 0;
+        case "uniform":
+            return (long) (random.nextDouble() * window);
+        default:
+            double delay = -Math.log(1 - random.nextDouble()) * EXPONENTIAL_MEAN * window;
+            return Math.min((long) delay, window);
+        }
+    }
+
+    private static void print(String name, Histogram histogram) {
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        StringBuilder line = new StringBuilder(String.format("  %-14s", name));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(" %7.1f ms", snapshot.getValueAtPercentile(percentile) / NANOS_PER_MILLI));
+        }
+        line.append(String.format(" %7.1f ms", snapshot.getMax() / NANOS_PER_MILLI));
+        System.out.println(line);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.firepowered.core.utils.steam.SteamID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing SteamIDs which do not need a request, and rendering them
+ * in each format.
+ *
+ * @since 1.3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SteamIDBenchmark {
+
+    /** The format of the inputs, see {@link Corpus#steamIds(String)}. */
+    @Param({ "mixed", "steamid64", "steamid32", "steam3id", "profile" })
+    public String format;
+
+    private String[] inputs;
+    private SteamID[] ids;
+    private int next;
+
+    /**
+     * Creates the inputs.
+     *
+     * @throws Exception If an input could not be parsed
+     */
+    @Setup
+    public void setUp() throws Exception {
+        inputs = Corpus.steamIds(format);
+        ids = new SteamID[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            ids[i] = SteamID.of(inputs[i]);
+        }
+    }
+
+    /**
+     * Parses a SteamID.
+     *
+     * @return The SteamID
+     * @throws Exception If it could not be parsed
+     */
+    @Benchmark
+    public SteamID of() throws Exception {
+        return SteamID.of(inputs[next()]);
+    }
+
+    /**
+     * Renders a SteamID64.
+     *
+     * @return The SteamID64
+     */
+    @Benchmark
+    public String getSteamID64() {
+        return ids[next()].getSteamID64();
+    }
+
+    /**
+     * Renders a SteamID32.
+     *
+     * @return The SteamID32
+     */
+    @Benchmark
+    public String getSteamID32() {
+        return ids[next()].getSteamID32();
+    }
+
+    /**
+     * Renders a Steam3ID.
+     *
+     * @return The Steam3ID
+     */
+    @Benchmark
+    public String getSteam3ID() {
+        return ids[next()].getSteam3ID();
+    }
+
+    private int next() {
+        int i = next;
+        next = (i + 1) & (Corpus.SIZE - 1);
+        return i;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.firepowered.core.utils.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks generating random strings. Run with {@code -t} for several threads
+ * to see whether generation scales with cores.
+ *
+ * @since 1.3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class StringUtilsBenchmark {
+
+    /** The number of strings generated by {@link #randomStrings()}. */
+    private static final int BATCH = 64;
+
+    /** The length of each string. */
+    @Param({ "8", "32" })
+    public int length;
+
+    private final char[] buf = new char[32];
+
+    /**
+     * Generates an alphanumeric string.
+     *
+     * @return The string
+     */
+    @Benchmark
+    public String randomString() {
+        return StringUtils.randomString(length, StringUtils.RANDOM_ALPHA | StringUtils.RANDOM_NUM);
+    }
+
+    /**
+     * Fills a reused buffer with alphanumeric characters.
+     *
+     * @return The buffer
+     */
+    @Benchmark
+    public char[] fillRandom() {
+        StringUtils.fillRandom(buf, 0, length, StringUtils.RANDOM_ALPHA | StringUtils.RANDOM_NUM);
+        return buf;
+    }
+
+    /**
+     * Generates a batch of alphanumeric strings.
+     *
+     * @return The strings
+     */
+    @Benchmark
+    public List<String> randomStrings() {
+        return StringUtils.randomStrings(BATCH, length, StringUtils.RANDOM_ALPHA | StringUtils.RANDOM_NUM);
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.steam.Builder;
+import org.firepowered.core.utils.steam.SteamApiWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building Web API URLs and query strings.
+ *
+ * @since 1.3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class UrlBenchmark {
+
+    /** The number of query parameters, see {@link Corpus#params(int)}. */
+    @Param({ "1", "4", "16" })
+    public int params;
+
+    private Map<String, String> parameters;
+    private Builder builder;
+
+    /**
+     * Creates the parameters and a builder with them.
+     */
+    @Setup
+    public void setUp() {
+        parameters = Corpus.params(params);
+        builder = newBuilder();
+    }
+
+    /**
+     * Creates a query string.
+     *
+     * @return The query string
+     */
+    @Benchmark
+    public String createParamString() {
+        return GenericHttpGet.createParamString(parameters);
+    }
+
+    /**
+     * Builds the URL of a builder which was already built once, as done by
+     * callers which keep their builder.
+     *
+     * @return The URL
+     */
+    @Benchmark
+    public String build() {
+        return builder.build();
+    }
+
+    /**
+     * Creates a builder and builds its URL, as done by callers which create a
+     * builder for each call.
+     *
+     * @return The URL
+     */
+    @Benchmark
+    public String newBuilderAndBuild() {
+        return newBuilder().build();
+    }
+
+    private Builder newBuilder() {
+        return SteamApiWrapper.newBuilder().apiInterface(SteamApiWrapper.INTERFACE_STEAMUSER)
+                .method("GetPlayerSummaries").version("2").key("0123456789ABCDEF0123456789ABCDEF").param(parameters);
+    }
+}
@@ -16,11 +16,20 @@
  */
 package org.firepowered.core.utils;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Common {@link String} utility methods. All methods can handle {@code null}s
  * safely, further details in their javadocs.
+ * <p>
+ * Random strings are generated with the {@link ThreadLocalRandom} of the
+ * calling thread, so threads generating strings at once do not contend with
+ * each other. They are not suitable for secrets such as passwords, which
+ * should use {@link java.security.SecureRandom SecureRandom}.
  *
  * @author Kyle Smith
  * @since 1.0
@@ -31,9 +40,15 @@ public final class StringUtils {
     private static final String ALPHA_LOWER = ALPHA_UPPER.toLowerCase();
     private static final String NUMBERS = "0123456789";
     private static final String SPECIALS = "!@#$%^&*_-";
-    private static final Random RNG = new Random();
 
-    private static final String ALPHANUMERIC = ALPHA_UPPER + ALPHA_LOWER + NUMBERS;
+    /** The flags which select characters. */
+    private static final int RANDOM_MODES = 0b111;
+
+    /**
+     * The characters of each combination of {@code RANDOM_*} flags, indexed by
+     * the flags. The entry for no flags is {@code null}.
+     */
+    private static final char[][] CHARSETS = new char[RANDOM_MODES + 1][];
 
     /**
      * Flag indicating to include alphabetical characters (letters) when generating
@@ -52,6 +67,24 @@ public final class StringUtils {
      */
     public static final int RANDOM_SPEC = 1 << 2;
 
+    static {
+        for (int mode = 1; mode <= RANDOM_MODES; mode++) {
+            StringBuilder chars = new StringBuilder();
+            if ((mode & RANDOM_ALPHA) == RANDOM_ALPHA) {
+                chars.append(ALPHA_UPPER).append(ALPHA_LOWER);
+            }
+            if ((mode & RANDOM_NUM) == RANDOM_NUM) {
+                chars.append(NUMBERS);
+            }
+            if ((mode & RANDOM_SPEC) == RANDOM_SPEC) {
+                chars.append(SPECIALS);
+            }
+            CHARSETS[mode] = chars.toString().toCharArray();
+        }
+    }
+
+    private static final char[] ALPHANUMERIC = CHARSETS[RANDOM_ALPHA | RANDOM_NUM];
+
     private StringUtils() {
     }
 
@@ -67,20 +100,38 @@ public final class StringUtils {
         return str == null || str.strip().length() == 0;
     }
 
-    private static String randomStringInternal(int length, String chars) {
+    private static String randomStringInternal(int length, char[] chars) {
         assert length > 0 : "A non-zero length must be provided";
-        if (isEmpty(chars)) {
-            // This is an internal error that should never be reached
-            throw new RuntimeException("Empty charset");
-        }
         char[] res = new char[length];
-        for (int i = 0; i < length; i++) {
-            int idx = RNG.nextInt(chars.length());
-            res[i] = chars.charAt(idx);
-        }
+        fill(res, 0, length, chars);
         return new String(res);
     }
 
+    private static void fill(char[] dst, int off, int len, char[] chars) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = off; i < off + len; i++) {
+            dst[i] = chars[random.nextInt(chars.length)];
+        }
+    }
+
+    /**
+     * Gets the characters to generate for a mode.
+     *
+     * @throws IllegalArgumentException If {@code mode} doesn't include any of the
+     *                                  flags
+     */
+    private static char[] charset(int mode) {
+        if (mode <= 0) {
+            return ALPHANUMERIC;
+        }
+        char[] chars = CHARSETS[mode & RANDOM_MODES];
+        if (chars == null) {
+            throw new IllegalArgumentException(
+                    "Invalid mode bitstring as no character sets were selected for inclusion");
+        }
+        return chars;
+    }
+
     /**
      * Generates a random string of the given length. This version only includes
      * alphanumeric characters ({@code [A-Za-z0-9]}).
@@ -110,26 +161,54 @@ public final class StringUtils {
      * @see StringUtils#RANDOM_SPEC
      */
     public static String randomString(int length, int mode) {
-        if (mode <= 0) {
-            return randomStringAlphaNum(length);
-        }
-        String chars = "";
-        if ((mode & RANDOM_ALPHA) == RANDOM_ALPHA) {
-            chars += ALPHA_UPPER + ALPHA_LOWER;
-        }
-
-        if ((mode & RANDOM_NUM) == RANDOM_NUM) {
-            chars += NUMBERS;
-        }
+        return randomStringInternal(length, charset(mode));
+    }
 
-        if ((mode & RANDOM_SPEC) == RANDOM_SPEC) {
-            chars += SPECIALS;
-        }
+    /**
+     * Fills part of an array with random characters, chosen as by
+     * {@link #randomString(int, int)}. This does not create any objects, so it
+     * suits buffers which are reused.
+     *
+     * @param dst  The array to fill
+     * @param off  The index of the first character to fill
+     * @param len  The number of characters to fill
+     * @param mode Bitstring of {@code RANDOM_*} flags defined in this class, or a
+     *             number less than 1 for alphanumeric characters
+     * @throws IndexOutOfBoundsException If the range is not within {@code dst}
+     * @throws IllegalArgumentException  If {@code mode} doesn't include any of the
+     *                                   flags
+     * @since 1.3
+     */
+    public static void fillRandom(char[] dst, int off, int len, int mode) {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        fill(dst, off, len, charset(mode));
+    }
 
-        if (isEmpty(chars)) {
-            throw new IllegalArgumentException(
-                    "Invalid mode bitstring as no character sets were selected for inclusion");
+    /**
+     * Generates many random strings of the same length, chosen as by
+     * {@link #randomString(int, int)}. The characters of all strings are
+     * generated in one pass, which is faster than generating each string on its
+     * own.
+     *
+     * @param count  The number of strings, must not be negative
+     * @param length Length of each string, must be greater than 0
+     * @param mode   Bitstring of {@code RANDOM_*} flags defined in this class, or a
+     *               number less than 1 for alphanumeric characters
+     * @return An unmodifiable list of the strings
+     * @throws IllegalArgumentException If {@code mode} doesn't include any of the
+     *                                  flags
+     * @since 1.3
+     */
+    public static List<String> randomStrings(int count, int length, int mode) {
+        assert count >= 0 : "A non-negative count must be provided";
+        assert length > 0 : "A non-zero length must be provided";
+        char[] chars = charset(mode);
+        char[] buf = new char[Math.multiplyExact(count, length)];
+        fill(buf, 0, buf.length, chars);
+        String[] res = new String[count];
+        for (int i = 0; i < count; i++) {
+            res[i] = new String(buf, i * length, length);
         }
-        return randomStringInternal(length, chars);
+        return Collections.unmodifiableList(Arrays.asList(res));
     }
 }
@@ -0,0 +1,69 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors used to run blocking I/O tasks, such as HTTP requests.
+ * <p>
+ * This is the Java 11 implementation, which uses daemon platform threads. When
+ * running on Java 21 or newer, the multi-release JAR instead provides an
+ * implementation that starts one virtual thread per task. Callers are expected
+ * to limit the number of tasks in flight themselves (for example with a
+ * {@link java.util.concurrent.Semaphore Semaphore}), as neither implementation
+ * bounds the number of threads.
+ *
+ * @since 1.3
+ */
+public final class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Creates a new executor which runs each submitted task on its own thread.
+     * Idle threads may be reused by the platform thread implementation.
+     *
+     * @param name The prefix for the names of the created threads, must not be
+     *             {@code null}
+     * @return The executor, which must be shut down by the caller
+     */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        assert name != null;
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, name + count.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+        return Executors.newCachedThreadPool(factory);
+    }
+
+    /**
+     * Returns whether tasks submitted to {@link #newPerTaskExecutor(String)} run
+     * on virtual threads.
+     *
+     * @return {@code true} on Java 21 and newer, {@code false} otherwise
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+}
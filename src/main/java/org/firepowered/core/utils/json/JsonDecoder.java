@@ -0,0 +1,58 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.json;
+
+import java.io.IOException;
+
+/**
+ * Decodes a single value from a {@link JsonReader} into a typed object. This
+ * allows small classes to be created straight from a response without building
+ * an intermediate tree, for example:
+ *
+ * <pre>
+ * JsonDecoder&lt;Player&gt; decoder = reader -&gt; {
+ *     Player player = new Player();
+ *     reader.beginObject();
+ *     while (reader.hasNext()) {
+ *         switch (reader.nextName()) {
+ *         case "steamid":
+ *             player.steamid = reader.nextString();
+ *             break;
+ *         default:
+ *             reader.skipValue();
+ *         }
+ *     }
+ *     reader.endObject();
+ *     return player;
+ * };
+ * </pre>
+ *
+ * @param <T> The type of the decoded value
+ * @since 1.3
+ */
+@FunctionalInterface
+public interface JsonDecoder<T> {
+
+    /**
+     * Consumes exactly one value from {@code reader} and decodes it.
+     *
+     * @param reader The reader, positioned before the value
+     * @return The decoded value
+     * @throws IOException If the value could not be read or has the wrong shape
+     */
+    T decode(JsonReader reader) throws IOException;
+}
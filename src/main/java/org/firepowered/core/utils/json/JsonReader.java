@@ -0,0 +1,777 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A streaming (pull) JSON reader. Values are read one token at a time straight
+ * from the underlying stream, so a document never has to be held in memory as
+ * a whole, and parts of it which are not needed are skipped without being
+ * decoded.
+ * <p>
+ * Simple lookups can use {@link #select(InputStream, String...)} or
+ * {@link #read(InputStream, String, JsonDecoder)}, which take paths such as
+ * {@code response.players[0].personaname}. Object members are separated by
+ * {@code .} and array elements are selected with {@code [index]}.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @since 1.3
+ */
+public final class JsonReader implements Closeable {
+
+    /**
+     * The kinds of token which can be returned from {@link JsonReader#peek()}.
+     *
+     * @since 1.3
+     */
+    public enum Token {
+
+        /** The start of an object, <code>{</code> */
+        BEGIN_OBJECT,
+
+        /** The end of an object, <code>}</code> */
+        END_OBJECT,
+
+        /** The start of an array, {@code [} */
+        BEGIN_ARRAY,
+
+        /** The end of an array, {@code ]} */
+        END_ARRAY,
+
+        /** The name of an object member */
+        NAME,
+
+        /** A string value */
+        STRING,
+
+        /** A number value */
+        NUMBER,
+
+        /** A {@code true} or {@code false} value */
+        BOOLEAN,
+
+        /** A {@code null} value */
+        NULL,
+
+        /** The end of the document */
+        END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+
+    private int[] stack = new int[32];
+    private int stackSize = 1;
+
+    /** The last token found by {@link #peek()}, or {@code null} if not peeked. */
+    private Token peeked;
+
+    /** The text of the peeked number or boolean. */
+    private final StringBuilder literal = new StringBuilder();
+
+    /**
+     * Creates a new reader over UTF-8 encoded bytes.
+     *
+     * @param in The stream, must not be {@code null}
+     */
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a new reader.
+     *
+     * @param in The reader, must not be {@code null}
+     */
+    public JsonReader(Reader in) {
+        assert in != null;
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Reads the scalar values at the given paths in a single pass. Reading stops
+     * as soon as all paths were found, so the rest of the stream is not consumed.
+     *
+     * @param in    The UTF-8 encoded JSON document
+     * @param paths The paths to find, for example {@code response.steamid}
+     * @return A map of each path which was found to its value as a string.
+     *         Paths which are missing or point to an object or array do not appear
+     *         in the map. A JSON {@code null} value is mapped to {@code null}.
+     * @throws IOException If the stream could not be read or is not valid JSON
+     */
+    public static Map<String, String> select(InputStream in, String... paths) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Set<String> wanted = new HashSet<>(Arrays.asList(paths));
+        Set<String> prefixes = new HashSet<>();
+        prefixes.add("");
+        for (String path : paths) {
+            for (int i = 0; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (c == '.' || c == '[') {
+                    prefixes.add(path.substring(0, i));
+                }
+            }
+        }
+        Map<String, String> res = new HashMap<>();
+        reader.collect("", wanted, prefixes, res);
+        return res;
+    }
+
+    /**
+     * Decodes the value at the given path. Only the part of the stream up to the
+     * end of that value is consumed.
+     *
+     * @param <T>     The type of the decoded value
+     * @param in      The UTF-8 encoded JSON document
+     * @param path    The path of the value, for example {@code response.players}
+     * @param decoder Decodes the value
+     * @return The decoded value, or {@code null} if the path was not found
+     * @throws IOException If the stream could not be read or is not valid JSON
+     * @see #seek(String)
+     */
+    public static <T> T read(InputStream in, String path, JsonDecoder<T> decoder) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        if (!reader.seek(path)) {
+            return null;
+        }
+        return decoder.decode(reader);
+    }
+
+    /**
+     * Moves this reader to the value at the given path, relative to the next
+     * value. If this returns {@code false}, the position of the reader is
+     * undefined.
+     *
+     * @param path The path, for example {@code response.players[0]}. An empty
+     *             path selects the next value.
+     * @return {@code true} if the value was found, {@code false} otherwise
+     * @throws IOException If the stream could not be read or is not valid JSON
+     */
+    public boolean seek(String path) throws IOException {
+        int i = 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                i++;
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                int index = Integer.parseInt(path.substring(i + 1, end));
+                if (peek() != Token.BEGIN_ARRAY) {
+                    return false;
+                }
+                beginArray();
+                for (int j = 0; j < index && hasNext(); j++) {
+                    skipValue();
+                }
+                if (!hasNext()) {
+                    return false;
+                }
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(i, end);
+                if (peek() != Token.BEGIN_OBJECT) {
+                    return false;
+                }
+                beginObject();
+                boolean found = false;
+                while (!found && hasNext()) {
+                    if (nextName().equals(name)) {
+                        found = true;
+                    } else {
+                        skipValue();
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+                i = end;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the kind of the next token without consuming it.
+     *
+     * @return The next token
+     * @throws IOException If the stream could not be read or is not valid JSON
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int c;
+        switch (stack[stackSize - 1]) {
+        case EMPTY_DOCUMENT:
+            stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+            break;
+        case NONEMPTY_DOCUMENT:
+            if (nextNonWhitespace() != -1) {
+                throw syntaxError("Expected end of document");
+            }
+            return peeked = Token.END_DOCUMENT;
+        case EMPTY_ARRAY:
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = Token.END_ARRAY;
+            } else if (c != -1) {
+                pos--;
+            }
+            break;
+        case NONEMPTY_ARRAY:
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = Token.END_ARRAY;
+            } else if (c != ',') {
+                throw syntaxError("Expected ',' or ']'");
+            }
+            break;
+        case EMPTY_OBJECT:
+        case NONEMPTY_OBJECT:
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return peeked = Token.END_OBJECT;
+            }
+            if (stack[stackSize - 1] == NONEMPTY_OBJECT) {
+                if (c != ',') {
+                    throw syntaxError("Expected ',' or '}'");
+                }
+                c = nextNonWhitespace();
+            }
+            if (c != '"') {
+                throw syntaxError("Expected name");
+            }
+            stack[stackSize - 1] = DANGLING_NAME;
+            return peeked = Token.NAME;
+        case DANGLING_NAME:
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("Expected ':'");
+            }
+            break;
+        default:
+            throw new IllegalStateException("Reader is closed");
+        }
+        return peeked = peekValue();
+    }
+
+    private Token peekValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+        case '{':
+            return Token.BEGIN_OBJECT;
+        case '[':
+            return Token.BEGIN_ARRAY;
+        case '"':
+            return Token.STRING;
+        case 't':
+        case 'f':
+        case 'n':
+            readLiteral(c);
+            String word = literal.toString();
+            if (word.equals("null")) {
+                return Token.NULL;
+            } else if (word.equals("true") || word.equals("false")) {
+                return Token.BOOLEAN;
+            }
+            throw syntaxError("Unexpected value '" + word + "'");
+        case -1:
+            throw syntaxError("Unexpected end of document");
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                readLiteral(c);
+                if (!isNumber(literal)) {
+                    throw syntaxError("Invalid number '" + literal + "'");
+                }
+                return Token.NUMBER;
+            }
+            throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Returns whether the current object or array has another element.
+     *
+     * @return {@code true} if there is another element
+     * @throws IOException If the stream could not be read or is not valid JSON
+     */
+    public boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @throws IOException If the next token is not {@link Token#BEGIN_OBJECT}
+     */
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object.
+     *
+     * @throws IOException If the next token is not {@link Token#END_OBJECT}
+     */
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    /**
+     * Consumes the start of an array.
+     *
+     * @throws IOException If the next token is not {@link Token#BEGIN_ARRAY}
+     */
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array.
+     *
+     * @throws IOException If the next token is not {@link Token#END_ARRAY}
+     */
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    /**
+     * Consumes the name of an object member.
+     *
+     * @return The name
+     * @throws IOException If the next token is not {@link Token#NAME}
+     */
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * Consumes a string value. Numbers are also accepted and returned as written
+     * in the document.
+     *
+     * @return The value
+     * @throws IOException If the next token is not a string or number
+     */
+    public String nextString() throws IOException {
+        Token t = peek();
+        if (t == Token.NUMBER) {
+            peeked = null;
+            return literal.toString();
+        }
+        expect(Token.STRING);
+        return readString();
+    }
+
+    /**
+     * Consumes a boolean value.
+     *
+     * @return The value
+     * @throws IOException If the next token is not {@link Token#BOOLEAN}
+     */
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return literal.charAt(0) == 't';
+    }
+
+    /**
+     * Consumes a {@code null} value.
+     *
+     * @throws IOException If the next token is not {@link Token#NULL}
+     */
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    /**
+     * Consumes a number value as a {@code long}. Strings containing a number are
+     * also accepted, as the Steam Web API sends SteamIDs this way.
+     *
+     * @return The value
+     * @throws IOException If the next token is not a number or the number does not
+     *                     fit in a {@code long}
+     */
+    public long nextLong() throws IOException {
+        String value = nextString();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected a long but was " + value);
+        }
+    }
+
+    /**
+     * Consumes a number value as an {@code int}.
+     *
+     * @return The value
+     * @throws IOException If the next token is not a number or the number does not
+     *                     fit in an {@code int}
+     * @see #nextLong()
+     */
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if ((int) value != value) {
+            throw syntaxError("Expected an int but was " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Consumes a number value as a {@code double}.
+     *
+     * @return The value
+     * @throws IOException If the next token is not a number
+     * @see #nextLong()
+     */
+    public double nextDouble() throws IOException {
+        String value = nextString();
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected a double but was " + value);
+        }
+    }
+
+    /**
+     * Consumes an array, decoding each element.
+     *
+     * @param <T>     The type of the elements
+     * @param decoder Decodes each element
+     * @return The elements
+     * @throws IOException If the next token is not {@link Token#BEGIN_ARRAY} or an
+     *                     element could not be decoded
+     */
+    public <T> List<T> nextList(JsonDecoder<T> decoder) throws IOException {
+        List<T> res = new ArrayList<>();
+        beginArray();
+        while (hasNext()) {
+            res.add(decoder.decode(this));
+        }
+        endArray();
+        return res;
+    }
+
+    /**
+     * Skips the next value, including any nested values. Strings are skipped
+     * without being decoded.
+     *
+     * @throws IOException If the stream could not be read or is not valid JSON
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                depth++;
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                depth++;
+                break;
+            case END_OBJECT:
+                endObject();
+                depth--;
+                break;
+            case END_ARRAY:
+                endArray();
+                depth--;
+                break;
+            case NAME:
+            case STRING:
+                peeked = null;
+                skipString();
+                break;
+            case END_DOCUMENT:
+                throw syntaxError("Unexpected end of document");
+            default:
+                peeked = null;
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = null;
+        stack[0] = -1;
+        stackSize = 1;
+        in.close();
+    }
+
+    private void collect(String path, Set<String> wanted, Set<String> prefixes, Map<String, String> res)
+            throws IOException {
+        Token t = peek();
+        if (wanted.contains(path)) {
+            if (t == Token.NULL) {
+                nextNull();
+                res.put(path, null);
+            } else if (t == Token.BOOLEAN) {
+                res.put(path, Boolean.toString(nextBoolean()));
+            } else if (t == Token.STRING || t == Token.NUMBER) {
+                res.put(path, nextString());
+            } else {
+                skipValue();
+            }
+        } else if (t == Token.BEGIN_OBJECT && prefixes.contains(path)) {
+            beginObject();
+            while (res.size() < wanted.size() && hasNext()) {
+                String name = nextName();
+                collect(path.isEmpty() ? name : path + '.' + name, wanted, prefixes, res);
+            }
+            if (res.size() < wanted.size()) {
+                endObject();
+            }
+        } else if (t == Token.BEGIN_ARRAY && prefixes.contains(path)) {
+            beginArray();
+            for (int i = 0; res.size() < wanted.size() && hasNext(); i++) {
+                collect(path + '[' + i + ']', wanted, prefixes, res);
+            }
+            if (res.size() < wanted.size()) {
+                endArray();
+            }
+        } else {
+            skipValue();
+        }
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token t = peek();
+        if (t != expected) {
+            throw syntaxError("Expected " + expected + " but was " + t);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * Reads a string whose opening quote was already consumed.
+     */
+    private String readString() throws IOException {
+        StringBuilder res = null;
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos++];
+                if (c == '"') {
+                    if (res == null) {
+                        return new String(buf, start, pos - start - 1);
+                    }
+                    return res.append(buf, start, pos - start - 1).toString();
+                } else if (c == '\\') {
+                    if (res == null) {
+                        res = new StringBuilder();
+                    }
+                    res.append(buf, start, pos - start - 1).append(readEscape());
+                    start = pos;
+                }
+            }
+            if (res == null) {
+                res = new StringBuilder();
+            }
+            res.append(buf, start, pos - start);
+            if (!fill()) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            while (pos < limit) {
+                char c = buf[pos++];
+                if (c == '"') {
+                    return;
+                } else if (c == '\\') {
+                    readEscape();
+                }
+            }
+            if (!fill()) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case 'u':
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit < 0) {
+                    throw syntaxError("Invalid unicode escape");
+                }
+                value = (value << 4) | digit;
+            }
+            return (char) value;
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case '"':
+        case '\\':
+        case '/':
+            return (char) c;
+        default:
+            throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    /**
+     * Reads a number or keyword, starting with {@code first}, into
+     * {@link #literal}.
+     */
+    private void readLiteral(int first) throws IOException {
+        literal.setLength(0);
+        literal.append((char) first);
+        while (pos < limit || fill()) {
+            char c = buf[pos];
+            if (c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+                break;
+            }
+            literal.append(c);
+            pos++;
+        }
+    }
+
+    /**
+     * Returns whether a literal is a number in the JSON grammar,
+     * {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?}.
+     */
+    private static boolean isNumber(CharSequence str) {
+        int i = 0;
+        int length = str.length();
+        if (i < length && str.charAt(i) == '-') {
+            i++;
+        }
+        if (i < length && str.charAt(i) == '0') {
+            i++;
+        } else {
+            int start = i;
+            i = skipDigits(str, i);
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < length && str.charAt(i) == '.') {
+            int start = ++i;
+            i = skipDigits(str, i);
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < length && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+                i++;
+            }
+            int start = i;
+            i = skipDigits(str, i);
+            if (i == start) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static int skipDigits(CharSequence str, int start) {
+        int i = start;
+        while (i < str.length() && str.charAt(i) >= '0' && str.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unexpected end of document");
+        }
+        return buf[pos++];
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buf[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) {
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count which only goes up, until it is {@link #reset() reset}. Instances are
+ * thread-safe, and updating them does not block.
+ *
+ * @since 1.3
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * Adds 1 to the count.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param n The amount to add, must not be negative
+     */
+    public void add(long n) {
+        assert n >= 0;
+        value.add(n);
+    }
+
+    /**
+     * Gets the count.
+     *
+     * @return The count
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * Sets the count back to 0.
+     */
+    public void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, usually durations in
+ * nanoseconds. Values are counted in log-linear buckets: each power of two is
+ * split into {@value #SUB_BUCKETS} linear buckets, so every value is known to
+ * within about 6% while the whole {@code long} range fits in under a thousand
+ * counters. Values below {@value #SUB_BUCKETS} are counted exactly.
+ * <p>
+ * Recording a value costs one atomic increment and one {@link LongAdder}
+ * update, and never allocates. Instances are thread-safe.
+ *
+ * @since 1.3
+ */
+public final class Histogram {
+
+    /** The number of linear buckets per power of two. */
+    public static final int SUB_BUCKETS = 16;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /** Enough buckets for the largest {@code long}. */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * An immutable copy of the counts of a histogram.
+     *
+     * @since 1.3
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        private Snapshot(long[] counts, long count, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return The count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of the recorded values.
+         *
+         * @return The sum
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         *
+         * @return The mean, or 0 if there are none
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Gets the value below which the given percentage of the recorded values
+         * fall. The result is the upper bound of the bucket the value was counted
+         * in, so it may be up to about 6% too high.
+         *
+         * @param percentile The percentile, from 0 to 100
+         * @return The value, or 0 if there are no values
+         */
+        public long getValueAtPercentile(double percentile) {
+            assert percentile >= 0 && percentile <= 100;
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return getMax();
+        }
+
+        /**
+         * Gets the largest recorded value, to the precision of its bucket.
+         *
+         * @return The upper bound of the highest bucket with a value, or 0 if there
+         *         are no values
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value The value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+    }
+
+    /**
+     * Takes a snapshot of the recorded values. Values recorded while the snapshot
+     * is taken may or may not be included.
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum());
+    }
+
+    /**
+     * Removes all recorded values. Values recorded while this runs may or may not
+     * be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+    }
+
+    /**
+     * Gets the bucket of a value.
+     *
+     * @param value The value, must not be negative
+     * @return The index of the bucket
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     *
+     * @param index The index of the bucket
+     * @return The largest value
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long lower = (1L << exponent) | (sub << (exponent - SUB_BUCKET_BITS));
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
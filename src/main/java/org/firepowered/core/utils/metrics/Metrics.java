@@ -0,0 +1,328 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The registry of the metrics recorded by this library: how long requests and
+ * API calls take, how many bytes were received, how many responses were served
+ * from the cache, how many SteamIDs were parsed, and the errors of each type.
+ * Each metric has a name and optional labels, for example
+ * {@code fp_steam_api_call_duration_seconds{interface="ISteamUser",method="GetPlayerSummaries"}}.
+ * <p>
+ * Recording is lock-free and takes a few tens of nanoseconds, so it is enabled
+ * by default. It can be turned off with {@link #setEnabled(boolean)}, which
+ * also skips reading the clock. {@link #snapshot()} reads every metric at once,
+ * and {@link #writePrometheus(Appendable)} exports them in the Prometheus text
+ * format, for example from an HTTP endpoint:
+ *
+ * <pre>
+ * server.createContext("/metrics", exchange -&gt; {
+ *     byte[] body = Metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+ *     exchange.getResponseHeaders().set("Content-Type", Metrics.PROMETHEUS_CONTENT_TYPE);
+ *     exchange.sendResponseHeaders(200, body.length);
+ *     exchange.getResponseBody().write(body);
+ *     exchange.close();
+ * });
+ * </pre>
+ * <p>
+ * Histograms hold durations in nanoseconds, and are exported in seconds as a
+ * summary with the 50th, 90th, 99th, and 99.9th percentiles. Callers should keep
+ * the {@link Counter} or {@link Histogram} they record into rather than look it
+ * up each time.
+ *
+ * @since 1.3
+ */
+public final class Metrics {
+
+    /** The content type of {@link #writePrometheus(Appendable)}. */
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static volatile boolean enabled = true;
+
+    /**
+     * The series of a single metric name, by their labels.
+     */
+    private static final class Family {
+
+        private final String type;
+        private final ConcurrentMap<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String type) {
+            this.type = type;
+        }
+    }
+
+    private static final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+    /**
+     * The values of every metric at one point in time.
+     *
+     * @since 1.3
+     */
+    public static final class Snapshot {
+
+        private final Map<String, Long> counters;
+        private final Map<String, Histogram.Snapshot> histograms;
+
+        private Snapshot(Map<String, Long> counters, Map<String, Histogram.Snapshot> histograms) {
+            this.counters = Collections.unmodifiableMap(counters);
+            this.histograms = Collections.unmodifiableMap(histograms);
+        }
+
+        /**
+         * Gets the counters.
+         *
+         * @return A sorted map of each name with its labels, as in
+         *         {@code name{key="value"}}, to the count
+         */
+        public Map<String, Long> getCounters() {
+            return counters;
+        }
+
+        /**
+         * Gets the histograms.
+         *
+         * @return A sorted map of each name with its labels, as in
+         *         {@code name{key="value"}}, to the histogram
+         */
+        public Map<String, Histogram.Snapshot> getHistograms() {
+            return histograms;
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Sets whether metrics are recorded. Metrics which were already recorded are
+     * kept.
+     *
+     * @param enabled {@code true} to record metrics, which is the default
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Returns whether metrics are recorded.
+     *
+     * @return {@code true} if metrics are recorded
+     * @see #setEnabled(boolean)
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets a counter, creating it if needed.
+     *
+     * @param name   The name of the metric, which should end with {@code _total}
+     * @param labels The labels, as alternating keys and values
+     * @return The counter
+     * @throws IllegalArgumentException If {@code name} is used by another type of
+     *                                  metric
+     */
+    public static Counter counter(String name, String... labels) {
+        return (Counter) series(name, "counter", labels, Counter::new);
+    }
+
+    /**
+     * Gets a histogram of durations in nanoseconds, creating it if needed.
+     *
+     * @param name   The name of the metric, which should end with
+     *               {@code _seconds}
+     * @param labels The labels, as alternating keys and values
+     * @return The histogram
+     * @throws IllegalArgumentException If {@code name} is used by another type of
+     *                                  metric
+     */
+    public static Histogram histogram(String name, String... labels) {
+        return (Histogram) series(name, "summary", labels, Histogram::new);
+    }
+
+    /**
+     * Adds a counter which is kept elsewhere, for example by a cache. It is
+     * included in snapshots and exports, but not {@link #reset()}. Registering the
+     * same name and labels again replaces the previous counter.
+     *
+     * @param name   The name of the metric, which should end with {@code _total}
+     * @param value  Reads the count
+     * @param labels The labels, as alternating keys and values
+     * @throws IllegalArgumentException If {@code name} is used by another type of
+     *                                  metric
+     */
+    public static void register(String name, LongSupplier value, String... labels) {
+        assert value != null;
+        family(name, "counter").series.put(labels(labels), value);
+    }
+
+    /**
+     * Reads every metric.
+     *
+     * @return The snapshot
+     */
+    public static Snapshot snapshot() {
+        Map<String, Long> counters = new TreeMap<>();
+        Map<String, Histogram.Snapshot> histograms = new TreeMap<>();
+        families.forEach((name, family) -> family.series.forEach((labels, metric) -> {
+            if (metric instanceof Histogram) {
+                histograms.put(name + labels, ((Histogram) metric).snapshot());
+            } else {
+                counters.put(name + labels, count(metric));
+            }
+        }));
+        return new Snapshot(counters, histograms);
+    }
+
+    /**
+     * Sets every counter back to 0 and empties every histogram, except the
+     * counters added with {@link #register(String, LongSupplier, String...)}.
+     */
+    public static void reset() {
+        for (Family family : families.values()) {
+            for (Object metric : family.series.values()) {
+                if (metric instanceof Counter) {
+                    ((Counter) metric).reset();
+                } else if (metric instanceof Histogram) {
+                    ((Histogram) metric).reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every metric in the Prometheus text format, version 0.0.4.
+     *
+     * @param out Where to write the metrics
+     * @throws IOException If {@code out} could not be written to
+     */
+    public static void writePrometheus(Appendable out) throws IOException {
+        for (Map.Entry<String, Family> entry : new TreeMap<>(families).entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> series : new TreeMap<>(family.series).entrySet()) {
+                String labels = series.getKey();
+                Object metric = series.getValue();
+                if (!(metric instanceof Histogram)) {
+                    out.append(name).append(labels).append(' ').append(Long.toString(count(metric))).append('\n');
+                    continue;
+                }
+                Histogram.Snapshot snapshot = ((Histogram) metric).snapshot();
+                String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+                for (double quantile : QUANTILES) {
+                    out.append(name).append(prefix).append("quantile=\"").append(Double.toString(quantile))
+                            .append("\"} ")
+                            .append(seconds(snapshot.getValueAtPercentile(quantile * 100))).append('\n');
+                }
+                out.append(name).append("_sum").append(labels).append(' ').append(seconds(snapshot.getSum()))
+                        .append('\n');
+                out.append(name).append("_count").append(labels).append(' ')
+                        .append(Long.toString(snapshot.getCount())).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes every metric in the Prometheus text format.
+     *
+     * @return The metrics
+     * @see #writePrometheus(Appendable)
+     */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        try {
+            writePrometheus(out);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static Object series(String name, String type, String[] labels, Supplier<Object> factory) {
+        Family family = family(name, type);
+        String key = labels(labels);
+        Object metric = family.series.get(key);
+        if (metric == null) {
+            metric = family.series.computeIfAbsent(key, k -> factory.get());
+        }
+        return metric;
+    }
+
+    private static Family family(String name, String type) {
+        assert name.matches("[a-zA-Z_:][a-zA-Z0-9_:]*") : "Invalid metric name " + name;
+        Family family = families.computeIfAbsent(name, n -> new Family(type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(name + " is a " + family.type);
+        }
+        return family;
+    }
+
+    /**
+     * Formats labels as {@code {key="value",...}}, or an empty string if there
+     * are none.
+     */
+    private static String labels(String[] labels) {
+        assert labels.length % 2 == 0 : "Labels must be key-value pairs";
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder res = new StringBuilder().append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                res.append(',');
+            }
+            res.append(labels[i]).append("=\"");
+            String value = String.valueOf(labels[i + 1]);
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    res.append('\\').append(c);
+                } else if (c == '\n') {
+                    res.append("\\n");
+                } else {
+                    res.append(c);
+                }
+            }
+            res.append('"');
+        }
+        return res.append('}').toString();
+    }
+
+    private static long count(Object metric) {
+        return metric instanceof Counter ? ((Counter) metric).get() : ((LongSupplier) metric).getAsLong();
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / NANOS_PER_SECOND);
+    }
+}
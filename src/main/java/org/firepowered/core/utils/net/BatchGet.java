@@ -0,0 +1,112 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+import org.firepowered.core.utils.net.GenericHttpGet.Result;
+
+/**
+ * Performs the concurrent requests of
+ * {@link GenericHttpGet#getAll(Collection, int)}.
+ *
+ * @since 1.3
+ */
+final class BatchGet {
+
+    private BatchGet() {
+    }
+
+    /**
+     * Performs GET requests on many URLs at once, see
+     * {@link GenericHttpGet#getAll(Collection, int)}.
+     *
+     * @param urls        The URLs
+     * @param concurrency The number of requests which may be in flight at once
+     * @return The results, in the same order as {@code urls}
+     * @throws InterruptedException If interrupted while waiting for the requests
+     */
+    static List<Result> getAll(List<URL> urls, int concurrency) throws InterruptedException {
+        Result[] res = new Result[urls.size()];
+        getAll(urls, concurrency, result -> res[result.index] = result);
+        return Collections.unmodifiableList(Arrays.asList(res));
+    }
+
+    /**
+     * Runs the requests for
+     * {@link GenericHttpGet#getAll(Collection, int, Consumer)} on their own
+     * threads, handing each result back to the calling thread. The calling
+     * thread starts a request whenever there is a free turn, and otherwise waits
+     * for the next result. Requests keep the {@link Deadline} and transport of
+     * the calling thread.
+     *
+     * @param urls        The URLs
+     * @param concurrency The number of requests which may be in flight at once
+     * @param callback    Called on the calling thread with each result
+     * @throws InterruptedException If interrupted while waiting for the requests
+     */
+    static void getAll(List<URL> urls, int concurrency, Consumer<Result> callback) throws InterruptedException {
+        assert concurrency > 0 : "Concurrency must be positive";
+        Semaphore permits = new Semaphore(concurrency);
+        BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+        Deadline deadline = Deadline.current();
+        HttpTransport transport = GenericHttpGet.scopedTransport.get();
+        ExecutorService executor = TaskExecutors.newPerTaskExecutor("fp-http-batch-");
+        try {
+            int started = 0;
+            for (int done = 0; done < urls.size();) {
+                if (started < urls.size() && permits.tryAcquire()) {
+                    int index = started++;
+                    URL url = urls.get(index);
+                    executor.execute(() -> {
+                        Result result = null;
+                        try {
+                            Deadline.Task<String, IOException> get = () -> GenericHttpGet.withTransport(transport,
+                                    () -> GenericHttpGet.getString(url));
+                            String body = deadline == null ? get.run() : deadline.call(get);
+                            result = new Result(index, url, body, null);
+                        } catch (IOException e) {
+                            result = new Result(index, url, null, e);
+                        } catch (Throwable e) {
+                            result = new Result(index, url, null, new IOException(e));
+                        } finally {
+                            // Always hand a result back, or the calling thread waits forever
+                            permits.release();
+                            results.add(result);
+                        }
+                    });
+                } else {
+                    callback.accept(results.take());
+                    done++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Handles the body of an HTTP response as a stream, so it can be processed
+ * without holding all of it in memory.
+ *
+ * @param <T> The type the body is converted into
+ * @since 1.3
+ */
+@FunctionalInterface
+public interface BodyHandler<T> {
+
+    /**
+     * Handles a response body. The handler does not need to read the whole body
+     * and must not close {@code body}, this is done by the caller once the handler
+     * returns.
+     *
+     * @param body The response body
+     * @return The converted body
+     * @throws IOException If the body could not be read or converted
+     */
+    T handle(InputStream body) throws IOException;
+}
@@ -0,0 +1,112 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpResponse;
+
+/**
+ * Performs the requests made by {@link GenericHttpGet} through its
+ * {@link HttpCache}, and records each lookup as an {@link HttpCacheEvent}.
+ *
+ * @since 1.3
+ */
+final class CachedGet {
+
+    private CachedGet() {
+    }
+
+    /**
+     * Performs a GET request through {@code cache}. A fresh cached response is
+     * served without a request, and a stale one is revalidated. The body is read
+     * fully before being passed to {@code handler} so it can be stored. See
+     * {@link #cacheKey(String)} for how API keys are kept out of the cache.
+     *
+     * @param <T>     The type the body is converted into
+     * @param cache   The cache
+     * @param uri     The URI
+     * @param handler Converts the body
+     * @return The converted body
+     * @throws IOException If there was an error sending the request or
+     *                     converting the body
+     */
+    static <T> T get(HttpCache cache, URI uri, RawHandler<T> handler) throws IOException {
+        HttpCacheEvent event = new HttpCacheEvent();
+        event.begin();
+        String key = cacheKey(uri.toString());
+        HttpCache.Entry entry = cache.get(key);
+        if (entry != null && entry.isFresh(System.currentTimeMillis())) {
+            cache.hit();
+            commit(event, uri, HttpCacheEvent.HIT);
+            return handler.handle(entry.body(), entry.length(), entry.contentType());
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = RequestSender.send(uri, entry);
+        } catch (CircuitOpenException e) {
+            if (entry == null) {
+                throw e;
+            }
+            cache.stale();
+            commit(event, uri, HttpCacheEvent.STALE);
+            return handler.handle(entry.body(), entry.length(), entry.contentType());
+        }
+        if (entry != null && response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            response.body().close();
+            entry = cache.notModified(key, entry, ResponseBody.header(response, "Cache-Control"));
+            commit(event, uri, HttpCacheEvent.REVALIDATED);
+        } else {
+            byte[] body;
+            try (InputStream in = ResponseBody.open(response)) {
+                body = ResponseBody.read(in, ResponseBody.length(response));
+            }
+            entry = cache.store(key, body, ResponseBody.header(response, "Content-Type"),
+                    ResponseBody.header(response, "ETag"), ResponseBody.header(response, "Last-Modified"),
+                    ResponseBody.header(response, "Cache-Control"));
+            commit(event, uri, HttpCacheEvent.MISS);
+        }
+        return handler.handle(entry.body(), entry.length(), entry.contentType());
+    }
+
+    /**
+     * Commits a cache event if it took at least its threshold.
+     */
+    private static void commit(HttpCacheEvent event, URI uri, String result) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = RequestSender.withoutQuery(uri);
+            event.result = result;
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the key a response is cached under. The Web API answers differently
+     * for different API keys, so the value of any {@code key} parameter is kept,
+     * but replaced by its SHA-256 so no key is stored in the cache.
+     *
+     * @param url The URL
+     * @return The cache key
+     */
+    static String cacheKey(String url) {
+        return GenericHttpGet.replaceKey(url, HttpCache::sha256);
+    }
+}
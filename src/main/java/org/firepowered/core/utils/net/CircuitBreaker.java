@@ -0,0 +1,349 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stops sending requests to an endpoint which is failing, used by
+ * {@link GenericHttpGet} once set with
+ * {@link GenericHttpGet#setCircuitBreaker(CircuitBreaker)}. An endpoint is a
+ * host and the first segment of the path, such as
+ * {@code api.steampowered.com/ISteamUser} or {@code steamcommunity.com/id}, so
+ * that requests for different players or methods of the same service share a
+ * circuit. Each endpoint has its own circuit:
+ * <ul>
+ * <li>{@link State#CLOSED Closed}: requests are sent, and the outcome of the
+ * last {@code windowSize} is kept. Once at least {@code minCalls} are known and
+ * either the share which failed reaches {@code failureRateThreshold}, or the
+ * share which took longer than {@code slowCallDuration} to be answered reaches
+ * {@code slowCallRateThreshold}, the circuit opens.</li>
+ * <li>{@link State#OPEN Open}: requests fail right away with a
+ * {@link CircuitOpenException}, or are served from the {@link HttpCache} if it
+ * holds a response, however stale. After {@code openDuration} the circuit is
+ * half-open.</li>
+ * <li>{@link State#HALF_OPEN Half-open}: {@code halfOpenCalls} requests are let
+ * through as a trial and the others fail as if the circuit was open. If all of
+ * the trial requests succeed the circuit closes, otherwise it opens again.</li>
+ * </ul>
+ * A request fails if it could not be sent, timed out, or was answered with a
+ * {@code 5xx} status. Other error statuses mean the request itself was wrong, so
+ * they count as successes.
+ * <p>
+ * Checking whether a request may be sent does not take a lock. Once
+ * {@value #MAX_CIRCUITS} endpoints are known, the closed circuits are dropped
+ * before another one is added, so only failing endpoints are remembered.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @since 1.3
+ */
+public final class CircuitBreaker {
+
+    /** The number of circuits beyond which closed ones are dropped. */
+    static final int MAX_CIRCUITS = 256;
+
+    /** The default number of recent requests kept per endpoint. */
+    public static final int DEFAULT_WINDOW_SIZE = 50;
+
+    /** The default number of requests needed before a circuit can open. */
+    public static final int DEFAULT_MIN_CALLS = 10;
+
+    /** The default share of failed requests which opens a circuit. */
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    /** The default time after which a request counts as slow. */
+    public static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(5);
+
+    /** The default share of slow requests which opens a circuit. */
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+
+    /** The default time a circuit stays open. */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    /** The default number of trial requests while half-open. */
+    public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * The state of a circuit.
+     *
+     * @since 1.3
+     */
+    public enum State {
+
+        /** Requests are sent. */
+        CLOSED,
+
+        /** Requests fail without being sent. */
+        OPEN,
+
+        /** A few trial requests are sent to find out whether to close. */
+        HALF_OPEN
+    }
+
+    /**
+     * The circuit of a single endpoint.
+     */
+    final class Circuit {
+
+        private final String endpoint;
+
+        /** Changed by transitions, which are made while holding the lock. */
+        private volatile State state = State.CLOSED;
+
+        /** When the circuit opened, as a {@link System#nanoTime()} value. */
+        private volatile long openedAt;
+
+        /**
+         * Incremented by each transition, so outcomes of requests let through in
+         * an earlier state are ignored.
+         */
+        private volatile int generation;
+
+        /** The trial requests left while half-open. */
+        private final AtomicInteger trials = new AtomicInteger();
+
+        // Guarded by this
+        private final boolean[] failed = new boolean[windowSize];
+        private final boolean[] slow = new boolean[windowSize];
+        private int calls;
+        private int failures;
+        private int slowCalls;
+        private int succeeded;
+
+        Circuit(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Checks whether a request may be sent.
+         *
+         * @return A value to pass to {@link #record(int, boolean, long)}
+         * @throws CircuitOpenException If the circuit is open, or half-open and
+         *                              all trial requests were let through
+         */
+        int acquire() throws CircuitOpenException {
+            int generation = this.generation;
+            State state = this.state;
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openNanos) {
+                    throw reject();
+                }
+                synchronized (this) {
+                    if (this.state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                        transition(State.HALF_OPEN);
+                    }
+                    generation = this.generation;
+                    state = this.state;
+                }
+            }
+            if (state == State.HALF_OPEN) {
+                int left;
+                do {
+                    left = trials.get();
+                    if (left <= 0) {
+                        throw reject();
+                    }
+                } while (!trials.compareAndSet(left, left - 1));
+            } else if (state == State.OPEN) {
+                throw reject();
+            }
+            return generation;
+        }
+
+        private CircuitOpenException reject() {
+            rejected.increment();
+            return new CircuitOpenException(endpoint);
+        }
+
+        /**
+         * Records the outcome of a request.
+         *
+         * @param generation The value returned by {@link #acquire()}
+         * @param success    Whether the request succeeded
+         * @param nanos      The time until the response arrived
+         */
+        synchronized void record(int generation, boolean success, long nanos) {
+            if (generation != this.generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (!success) {
+                    transition(State.OPEN);
+                } else if (++succeeded >= halfOpenCalls) {
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+
+            int i = calls++ % windowSize;
+            if (calls > windowSize) {
+                failures -= failed[i] ? 1 : 0;
+                slowCalls -= slow[i] ? 1 : 0;
+            }
+            failed[i] = !success;
+            slow[i] = nanos >= slowCallNanos;
+            failures += failed[i] ? 1 : 0;
+            slowCalls += slow[i] ? 1 : 0;
+            int known = Math.min(calls, windowSize);
+            if (known >= minCalls && (failures >= failureRateThreshold * known
+                    || slowCalls >= slowCallRateThreshold * known)) {
+                transition(State.OPEN);
+            }
+        }
+
+        private void transition(State state) {
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+            succeeded = 0;
+            trials.set(halfOpenCalls);
+            openedAt = System.nanoTime();
+            generation++;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Creates a new circuit breaker with the default settings.
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MIN_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_SLOW_CALL_DURATION,
+                DEFAULT_SLOW_CALL_RATE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_HALF_OPEN_CALLS);
+    }
+
+    /**
+     * Creates a new circuit breaker.
+     *
+     * @param windowSize            The number of recent requests kept per
+     *                              endpoint, must be greater than 0
+     * @param minCalls              The number of requests needed before a
+     *                              circuit can open, must be between 1 and
+     *                              {@code windowSize}
+     * @param failureRateThreshold  The share of failed requests which opens a
+     *                              circuit, between 0 (exclusive) and 1
+     * @param slowCallDuration      The time after which a request counts as slow
+     * @param slowCallRateThreshold The share of slow requests which opens a
+     *                              circuit, between 0 (exclusive) and 1
+     * @param openDuration          The time a circuit stays open
+     * @param halfOpenCalls         The number of trial requests while half-open,
+     *                              must be greater than 0
+     */
+    public CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, Duration slowCallDuration,
+            double slowCallRateThreshold, Duration openDuration, int halfOpenCalls) {
+        assert windowSize > 0;
+        assert minCalls > 0 && minCalls <= windowSize;
+        assert failureRateThreshold > 0 && failureRateThreshold <= 1;
+        assert slowCallRateThreshold > 0 && slowCallRateThreshold <= 1;
+        assert halfOpenCalls > 0;
+        this.windowSize = windowSize;
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Gets the state of an endpoint's circuit. An open circuit whose
+     * {@code openDuration} passed is reported as open until the next request
+     * to it.
+     *
+     * @param endpoint The host, with the port if it is not the default one, and
+     *                 first segment of the path, for example
+     *                 {@code api.steampowered.com/ISteamUser}
+     * @return The state, which is {@link State#CLOSED} if no request was sent to
+     *         the endpoint
+     */
+    public State getState(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        return circuit == null ? State.CLOSED : circuit.state;
+    }
+
+    /**
+     * Gets the state of each endpoint a request was sent to.
+     *
+     * @return A map of each endpoint, see {@link #getState(String)}, to the state
+     *         of its circuit
+     */
+    public Map<String, State> getStates() {
+        Map<String, State> res = new TreeMap<>();
+        circuits.forEach((endpoint, circuit) -> res.put(endpoint, circuit.state));
+        return Collections.unmodifiableMap(res);
+    }
+
+    /**
+     * Gets the number of requests which were not sent because their circuit was
+     * open.
+     *
+     * @return The number of requests
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the circuit of the endpoint a request is sent to.
+     *
+     * @param uri The URI of the request
+     * @return The circuit
+     */
+    Circuit circuit(URI uri) {
+        String endpoint = endpoint(uri);
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit == null) {
+            if (circuits.size() >= MAX_CIRCUITS) {
+                circuits.values().removeIf(c -> c.state == State.CLOSED);
+            }
+            circuit = circuits.computeIfAbsent(endpoint, Circuit::new);
+        }
+        return circuit;
+    }
+
+    /**
+     * Gets the endpoint of a request: its host, with the port if it is not the
+     * default one, and the first segment of its path.
+     *
+     * @param uri The URI of the request
+     * @return The endpoint
+     */
+    static String endpoint(URI uri) {
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        int end = path.indexOf('/', 1);
+        return (uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort())
+                + (end < 0 ? path : path.substring(0, end));
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+
+/**
+ * An Exception representing that a request was not sent because the
+ * {@link CircuitBreaker} of its endpoint is open, as recent requests to it
+ * failed or were too slow.
+ *
+ * @since 1.3
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = -4385210953349127713L;
+
+    private final String endpoint;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param endpoint The endpoint whose circuit is open, see
+     *                 {@link CircuitBreaker#getState(String)}
+     */
+    public CircuitOpenException(String endpoint) {
+        super("Circuit open for " + endpoint);
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Gets the endpoint whose circuit is open.
+     *
+     * @return The endpoint, for example
+     *         {@code api.steampowered.com/ISteamUser}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
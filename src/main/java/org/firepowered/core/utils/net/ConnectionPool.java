@@ -0,0 +1,738 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+
+/**
+ * The shared HTTP client used by {@link GenericHttpGet}, which is the default
+ * {@link HttpTransport}. Connections are kept
+ * alive and reused between requests to the same host, and HTTPS requests use
+ * HTTP/2 when the server supports it, so many requests share a single
+ * connection. Plain HTTP requests are sent as HTTP/1.1, without trying to
+ * upgrade the connection to HTTP/2. Redirects are not followed, as required of
+ * a transport.
+ * <p>
+ * At most {@code maxRequestsPerHost} requests to each host are in flight at
+ * once; further requests wait for one to finish. This limits requests, not
+ * connections: over HTTP/2 they may all share one connection, and over HTTP/1.1
+ * the platform may keep idle connections beyond the limit open. The statistics
+ * from {@link #getStats()} and {@link #getStats(String)} show how busy each host
+ * is and how long requests waited, which helps to size the pool.
+ * <p>
+ * The platform closes idle connections after the number of seconds in the
+ * {@code jdk.httpclient.keepalive.timeout} system property, and
+ * {@code jdk.httpclient.keepalive.timeout.h2} for HTTP/2. These apply to every
+ * {@link HttpClient} in the JVM and are read when the first one is created, so
+ * they are best given on the command line, for example
+ * {@code -Djdk.httpclient.keepalive.timeout=60}.
+ * <p>
+ * Connecting fails after {@code connectTimeout}. The timeout of a request, if it
+ * has one, bounds the whole exchange: waiting for a turn, waiting for the
+ * response headers, and reading the body, which is closed once the time is up so
+ * the next read throws an {@link HttpTimeoutException}.
+ * <p>
+ * With hedging enabled, a request which has not been answered after the 95th
+ * percentile of the recent response times of its host is sent a second time, if
+ * a turn is free, and the first response to arrive is used. The other attempt is
+ * cancelled, so a single slow connection or server does not hold up the caller.
+ * Only a few percent of requests are sent twice. Hedging starts once
+ * {@value #MIN_HEDGE_SAMPLES} responses from the host were timed, and is only
+ * suitable for idempotent requests, which all requests made by
+ * {@link GenericHttpGet} are.
+ * <p>
+ * A pool holds threads until it is {@link #close() closed}, which should be done
+ * for every pool but the one of {@link GenericHttpGet}.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @since 1.3
+ */
+public final class ConnectionPool implements HttpTransport, AutoCloseable {
+
+    /** The default maximum number of requests in flight per host. */
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 16;
+
+    /** The default time after which connecting to a host fails. */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    /** The number of responses timed before requests to a host are hedged. */
+    public static final int MIN_HEDGE_SAMPLES = 20;
+
+    /** The number of recent response times kept per host. */
+    private static final int LATENCY_SAMPLES = 256;
+
+    private final int maxRequestsPerHost;
+    private final Duration connectTimeout;
+    private final boolean hedging;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /** Closes response bodies which are still being read once their time is up. */
+    private final ScheduledExecutorService timeouts;
+
+    /** The number of requests in flight to all hosts. */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /** The highest number of requests which were in flight to all hosts at once. */
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * Request statistics, either for a single host or for all hosts combined.
+     *
+     * @since 1.3
+     */
+    public static final class Stats {
+
+        private final long requests;
+        private final long http2Requests;
+        private final int active;
+        private final int peakActive;
+        private final int waiting;
+        private final long waitNanos;
+        private final long hedgedRequests;
+        private final long hedgeDelayNanos;
+
+        private Stats(long requests, long http2Requests, int active, int peakActive, int waiting, long waitNanos,
+                long hedgedRequests, long hedgeDelayNanos) {
+            this.requests = requests;
+            this.http2Requests = http2Requests;
+            this.active = active;
+            this.peakActive = peakActive;
+            this.waiting = waiting;
+            this.waitNanos = waitNanos;
+            this.hedgedRequests = hedgedRequests;
+            this.hedgeDelayNanos = hedgeDelayNanos;
+        }
+
+        /**
+         * Gets the number of requests sent.
+         *
+         * @return The number of requests
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * Gets the number of requests answered over HTTP/2.
+         *
+         * @return The number of requests
+         */
+        public long getHttp2Requests() {
+            return http2Requests;
+        }
+
+        /**
+         * Gets the number of requests in flight, whose response body has not yet
+         * been closed.
+         *
+         * @return The number of requests
+         */
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * Gets the highest number of requests which were in flight at once.
+         *
+         * @return The number of requests
+         */
+        public int getPeakActive() {
+            return peakActive;
+        }
+
+        /**
+         * Gets the number of requests waiting because {@code maxRequestsPerHost}
+         * requests are already in flight.
+         *
+         * @return The number of requests
+         */
+        public int getWaiting() {
+            return waiting;
+        }
+
+        /**
+         * Gets the total time requests spent waiting for their turn.
+         *
+         * @return The time
+         */
+        public Duration getWaitTime() {
+            return Duration.ofNanos(waitNanos);
+        }
+
+        /**
+         * Gets the number of requests which were sent a second time because the
+         * first attempt was slow. These are not counted by {@link #getRequests()}.
+         *
+         * @return The number of requests
+         */
+        public long getHedgedRequests() {
+            return hedgedRequests;
+        }
+
+        /**
+         * Gets the time after which a request to the host is sent a second time,
+         * the 95th percentile of its recent response times. This is only known for
+         * the statistics of a single host.
+         *
+         * @return The delay, or {@code null} if it is not known
+         */
+        public Duration getHedgeDelay() {
+            return hedgeDelayNanos < 0 ? null : Duration.ofNanos(hedgeDelayNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "Stats[requests=" + requests + ", http2Requests=" + http2Requests + ", active=" + active
+                    + ", peakActive=" + peakActive + ", waiting=" + waiting + ", waitTime=" + getWaitTime()
+                    + ", hedgedRequests=" + hedgedRequests + ", hedgeDelay=" + getHedgeDelay() + "]";
+        }
+    }
+
+    /**
+     * The state of a single host.
+     */
+    private final class Host {
+
+        private final Semaphore permits = new Semaphore(maxRequestsPerHost);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder http2Requests = new LongAdder();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peakActive = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAdder hedgedRequests = new LongAdder();
+
+        /** A ring of the recent response times, guarded by itself. */
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private long samples;
+        private volatile long hedgeDelay = -1;
+
+        /**
+         * Waits for a turn.
+         *
+         * @param timeoutNanos The maximum time to wait, or a negative value to wait
+         *                     as long as needed
+         */
+        void acquire(long timeoutNanos) throws IOException {
+            if (!permits.tryAcquire()) {
+                waiting.incrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    if (timeoutNanos < 0) {
+                        permits.acquire();
+                    } else if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                        throw new HttpTimeoutException("Timed out waiting for a connection");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a connection");
+                } finally {
+                    waiting.decrementAndGet();
+                    waitNanos.add(System.nanoTime() - start);
+                }
+            }
+            acquired();
+        }
+
+        /**
+         * Takes a turn for a hedged attempt or an asynchronous request if one is
+         * free right away.
+         *
+         * @return {@code true} if a turn was taken
+         */
+        boolean tryAcquire() {
+            if (!permits.tryAcquire()) {
+                return false;
+            }
+            acquired();
+            return true;
+        }
+
+        private void acquired() {
+            requests.increment();
+            peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            ConnectionPool.this.peakActive.accumulateAndGet(ConnectionPool.this.active.incrementAndGet(), Math::max);
+        }
+
+        void release() {
+            active.decrementAndGet();
+            ConnectionPool.this.active.decrementAndGet();
+            permits.release();
+        }
+
+        /**
+         * Records the time until the headers of a response arrived, updating the
+         * hedge delay every 16 samples.
+         */
+        void record(long nanos) {
+            synchronized (latencies) {
+                latencies[(int) (samples++ % LATENCY_SAMPLES)] = nanos;
+                if (samples == MIN_HEDGE_SAMPLES || samples > MIN_HEDGE_SAMPLES && samples % 16 == 0) {
+                    long[] sorted = Arrays.copyOf(latencies, (int) Math.min(samples, LATENCY_SAMPLES));
+                    Arrays.sort(sorted);
+                    hedgeDelay = sorted[sorted.length * 95 / 100];
+                }
+            }
+        }
+
+        Stats stats() {
+            return new Stats(requests.sum() - hedgedRequests.sum(), http2Requests.sum(), active.get(),
+                    peakActive.get(), waiting.get(), waitNanos.sum(), hedgedRequests.sum(), hedgeDelay);
+        }
+    }
+
+    /**
+     * Creates a new pool with {@link #DEFAULT_MAX_REQUESTS_PER_HOST},
+     * {@link #DEFAULT_CONNECT_TIMEOUT}, and hedging disabled.
+     */
+    public ConnectionPool() {
+        this(DEFAULT_MAX_REQUESTS_PER_HOST);
+    }
+
+    /**
+     * Creates a new pool with {@link #DEFAULT_CONNECT_TIMEOUT} and hedging
+     * disabled.
+     *
+     * @param maxRequestsPerHost The maximum number of requests in flight per host,
+     *                           must be greater than 0
+     */
+    public ConnectionPool(int maxRequestsPerHost) {
+        this(maxRequestsPerHost, DEFAULT_CONNECT_TIMEOUT, false);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param maxRequestsPerHost The maximum number of requests in flight per host,
+     *                           must be greater than 0
+     * @param connectTimeout     The time after which connecting to a host fails,
+     *                           must be positive
+     * @param hedging            Whether slow requests are sent a second time
+     */
+    public ConnectionPool(int maxRequestsPerHost, Duration connectTimeout, boolean hedging) {
+        assert maxRequestsPerHost > 0;
+        assert connectTimeout != null && !connectTimeout.isNegative() && !connectTimeout.isZero();
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.connectTimeout = connectTimeout;
+        this.hedging = hedging;
+        this.executor = TaskExecutors.newPerTaskExecutor("fp-http-");
+        this.client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(connectTimeout).executor(executor).build();
+        ScheduledThreadPoolExecutor timeouts = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "fp-http-timeout");
+            t.setDaemon(true);
+            return t;
+        });
+        timeouts.setRemoveOnCancelPolicy(true);
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * Gets the maximum number of requests in flight per host.
+     *
+     * @return The maximum
+     */
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Gets the time after which connecting to a host fails.
+     *
+     * @return The timeout
+     */
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns whether slow requests are sent a second time.
+     *
+     * @return {@code true} if hedging is enabled
+     */
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    /**
+     * Gets the statistics of all hosts combined. The peak is the highest number
+     * of requests which were in flight to all hosts at once.
+     *
+     * @return The statistics
+     */
+    public Stats getStats() {
+        long requests = 0;
+        long http2Requests = 0;
+        int waiting = 0;
+        long waitNanos = 0;
+        long hedgedRequests = 0;
+        for (Host host : hosts.values()) {
+            Stats stats = host.stats();
+            requests += stats.requests;
+            http2Requests += stats.http2Requests;
+            waiting += stats.waiting;
+            waitNanos += stats.waitNanos;
+            hedgedRequests += stats.hedgedRequests;
+        }
+        return new Stats(requests, http2Requests, active.get(), peakActive.get(), waiting, waitNanos, hedgedRequests,
+                -1);
+    }
+
+    /**
+     * Gets the statistics of a single host.
+     *
+     * @param host The host, with the port if it is not the default one, for
+     *             example {@code api.steampowered.com} or {@code localhost:8080}
+     * @return The statistics, or {@code null} if no request was sent to the host
+     */
+    public Stats getStats(String host) {
+        Host state = hosts.get(host);
+        return state == null ? null : state.stats();
+    }
+
+    /**
+     * Gets the statistics of each host a request was sent to.
+     *
+     * @return A map of each host, see {@link #getStats(String)}, to its statistics
+     */
+    public Map<String, Stats> getHostStats() {
+        Map<String, Stats> res = new TreeMap<>();
+        hosts.forEach((name, host) -> res.put(name, host.stats()));
+        return Collections.unmodifiableMap(res);
+    }
+
+    /**
+     * Stops the threads of this pool once the requests in flight have finished.
+     * Response bodies which are still open keep their timeout. Requests sent
+     * afterwards fail with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        timeouts.shutdown();
+    }
+
+    /**
+     * Sends a request, waiting for a turn if {@code maxRequestsPerHost} requests
+     * to the host are already in flight. The turn is given up once the
+     * response body is closed, which must always be done. The timeout of the
+     * request includes the wait for a turn.
+     *
+     * @param request The request
+     * @return The response, with the body not yet read
+     * @throws IOException If the request could not be sent, or
+     *                     {@link HttpTimeoutException} if its timeout expired
+     */
+    @Override
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+        request = plainHttp11(request);
+        long start = System.nanoTime();
+        long timeout = request.timeout().map(Duration::toNanos).orElse(-1L);
+        Host host = host(request.uri());
+        host.acquire(timeout);
+        long end = timeout < 0 ? -1 : start + timeout;
+        CompletableFuture<HttpResponse<InputStream>> first = attempt(host, request, end);
+        long delay = hedging ? host.hedgeDelay : -1;
+        if (delay < 0) {
+            return await(first);
+        }
+
+        try {
+            return first.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slow, hedge below
+        } catch (InterruptedException e) {
+            first.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending the request");
+        } catch (ExecutionException e) {
+            return await(first);
+        }
+        if (!host.tryAcquire()) {
+            return await(first);
+        }
+        host.hedgedRequests.increment();
+        CompletableFuture<HttpResponse<InputStream>> second = attempt(host, request, end);
+        CompletableFuture<HttpResponse<InputStream>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<HttpResponse<InputStream>, Throwable> complete = (response, e) -> {
+            if (e != null) {
+                if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(e);
+                }
+            } else if (!winner.complete(response)) {
+                // The other attempt won
+                close(response);
+            }
+        };
+        first.whenComplete(complete);
+        second.whenComplete(complete);
+        try {
+            return await(winner);
+        } finally {
+            first.cancel(true);
+            second.cancel(true);
+        }
+    }
+
+    /**
+     * Sends a request without waiting for the response. If a turn is free the
+     * request is sent straight away, otherwise a thread waits for one as with
+     * {@link #send(HttpRequest)}. Requests sent this way are never hedged.
+     *
+     * @param request The request
+     * @return A future which completes with the response once its headers
+     *         arrived. The turn is given up once the body is closed, which must
+     *         always be done.
+     */
+    @Override
+    public CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+        long start = System.nanoTime();
+        Host host = host(request.uri());
+        if (!host.tryAcquire()) {
+            return HttpTransport.super.sendAsync(request);
+        }
+        request = plainHttp11(request);
+        long end = request.timeout().map(timeout -> start + timeout.toNanos()).orElse(-1L);
+        return attempt(host, request, end);
+    }
+
+    /**
+     * Sends plain HTTP requests which did not choose a version as HTTP/1.1. The
+     * client would otherwise ask to upgrade every such connection to HTTP/2.
+     */
+    private static HttpRequest plainHttp11(HttpRequest request) {
+        if (request.version().isPresent() || !"http".equalsIgnoreCase(request.uri().getScheme())) {
+            return request;
+        }
+        return copy(request).version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    /**
+     * Creates a builder with the URI, method, headers, and settings of a request.
+     */
+    private static HttpRequest.Builder copy(HttpRequest request) {
+        HttpRequest.Builder copy = HttpRequest.newBuilder(request.uri())
+                .method(request.method(), request.bodyPublisher().orElse(HttpRequest.BodyPublishers.noBody()))
+                .expectContinue(request.expectContinue());
+        request.version().ifPresent(copy::version);
+        request.timeout().ifPresent(copy::timeout);
+        request.headers().map().forEach((name, values) -> values.forEach(value -> copy.header(name, value)));
+        return copy;
+    }
+
+    private Host host(URI uri) {
+        if (closed) {
+            throw new IllegalStateException("Connection pool is closed");
+        }
+        return hosts.computeIfAbsent(uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort(),
+                name -> new Host());
+    }
+
+    /**
+     * Sends a single attempt of a request, for which a turn was taken. The turn is
+     * given up if the attempt fails, otherwise when the body is closed. The
+     * request only gets the part of its timeout which is left.
+     * <p>
+     * Cancelling the returned future aborts the exchange where the client
+     * supports it. Before Java 16 the exchange carries on, so a response which
+     * still arrives is closed straight away.
+     *
+     * @param end The time the whole exchange must finish by, as a
+     *            {@link System#nanoTime()} value, or -1 if there is none
+     */
+    private CompletableFuture<HttpResponse<InputStream>> attempt(Host host, HttpRequest request, long end) {
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                host.release();
+            }
+        };
+        if (end >= 0) {
+            if (end - start <= 0) {
+                release.run();
+                return CompletableFuture.failedFuture(new HttpTimeoutException("Timed out waiting for a connection"));
+            }
+            request = copy(request).timeout(Duration.ofNanos(end - start)).build();
+        }
+        CompletableFuture<HttpResponse<InputStream>> exchange;
+        try {
+            exchange = client.sendAsync(request, info -> {
+                host.record(System.nanoTime() - start);
+                if (info.version() == HttpClient.Version.HTTP_2) {
+                    host.http2Requests.increment();
+                }
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                        in -> new Body(in, end, release, timeouts));
+            });
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+        CompletableFuture<HttpResponse<InputStream>> response = new CompletableFuture<>();
+        exchange.whenComplete((r, e) -> {
+            if (e != null) {
+                release.run();
+                response.completeExceptionally(e);
+            } else if (!response.complete(r)) {
+                // Cancelled while the exchange was still running
+                close(r);
+            }
+        });
+        response.whenComplete((r, e) -> {
+            if (response.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    private static HttpResponse<InputStream> await(CompletableFuture<HttpResponse<InputStream>> response)
+            throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending the request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void close(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            // Only closed to free the connection
+        }
+    }
+
+    /**
+     * A response body which gives up the turn once closed, and is closed by the
+     * pool's {@link #timeouts} if it is still open when the exchange must finish.
+     */
+    private static final class Body extends FilterInputStream {
+
+        private final Runnable release;
+        private final ScheduledFuture<?> timeout;
+        private volatile boolean expired;
+
+        Body(InputStream in, long end, Runnable release, ScheduledExecutorService timeouts) {
+            super(in);
+            this.release = release;
+            this.timeout = end < 0 ? null : timeouts.schedule(() -> {
+                expired = true;
+                try {
+                    close();
+                } catch (IOException e) {
+                    // The reader sees the timeout either way
+                }
+            }, end - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return check(super.read());
+            } catch (IOException e) {
+                throw timeout(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return check(super.read(b, off, len));
+            } catch (IOException e) {
+                throw timeout(e);
+            }
+        }
+
+        private int check(int n) throws IOException {
+            if (n < 0 && expired) {
+                throw new HttpTimeoutException("Timed out reading the response body");
+            }
+            return n;
+        }
+
+        private IOException timeout(IOException e) {
+            if (expired && !(e instanceof HttpTimeoutException)) {
+                HttpTimeoutException res = new HttpTimeoutException("Timed out reading the response body");
+                res.initCause(e);
+                return res;
+            }
+            return e;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+}
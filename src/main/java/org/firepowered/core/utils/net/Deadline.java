@@ -0,0 +1,152 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.time.Duration;
+
+/**
+ * A point in time by which a task must finish. While a task runs with
+ * {@link #call(Task)}, every request made through {@link GenericHttpGet} on the
+ * same thread, including those made by
+ * {@link org.firepowered.core.utils.steam.Builder Builder},
+ * {@link org.firepowered.core.utils.steam.SteamApiWrapper SteamApiWrapper} and
+ * {@link org.firepowered.core.utils.steam.SteamID#of(String) SteamID.of}, fails
+ * with an {@link java.net.http.HttpTimeoutException HttpTimeoutException} once
+ * the deadline passes, whether it is connecting, waiting for the response or
+ * reading the body. For example:
+ *
+ * <pre>
+ * SteamID id = Deadline.after(Duration.ofSeconds(2)).call(() -&gt; SteamID.of(input));
+ * </pre>
+ * <p>
+ * Deadlines nest, the earliest one applies. The lookups of a
+ * {@link org.firepowered.core.utils.steam.BulkResolver BulkResolver} and the
+ * prefetching of a {@link org.firepowered.core.utils.steam.Paginator Paginator}
+ * keep the deadline of the thread which started them, but other tasks handed to
+ * another thread only have one if they run with {@link #call(Task)} themselves.
+ * <p>
+ * Instances are immutable.
+ *
+ * @since 1.3
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    /** The deadline as a {@link System#nanoTime()} value. */
+    private final long nanos;
+
+    /**
+     * A task which runs within a deadline.
+     *
+     * @param <T> The type of the result
+     * @param <E> The type of the exception thrown by the task
+     * @since 1.3
+     */
+    @FunctionalInterface
+    public interface Task<T, E extends Exception> {
+
+        /**
+         * Runs the task.
+         *
+         * @return The result
+         * @throws E If the task failed
+         */
+        T run() throws E;
+    }
+
+    private Deadline(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * Creates a deadline a given time from now.
+     *
+     * @param timeout The time until the deadline
+     * @return The deadline
+     */
+    public static Deadline after(Duration timeout) {
+        long now = System.nanoTime();
+        long nanos;
+        try {
+            nanos = Math.addExact(now, timeout.toNanos());
+        } catch (ArithmeticException e) {
+            nanos = timeout.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return new Deadline(nanos);
+    }
+
+    /**
+     * Gets the deadline of the task running on this thread.
+     *
+     * @return The deadline, or {@code null} if there is none
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * Gets the time left until this deadline.
+     *
+     * @return The time left, which is zero or negative once the deadline passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    /**
+     * Returns whether this deadline passed.
+     *
+     * @return {@code true} if there is no time left
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Runs a task with this deadline applied to the requests it makes. If a
+     * deadline already applies on this thread, the earlier of the two is used.
+     *
+     * @param <T>  The type of the result
+     * @param <E>  The type of the exception thrown by the task
+     * @param task The task
+     * @return The result of the task
+     * @throws E If thrown by the task
+     */
+    public <T, E extends Exception> T call(Task<T, E> task) throws E {
+        Deadline outer = current.get();
+        current.set(outer != null && outer.nanos - nanos < 0 ? outer : this);
+        try {
+            return task.run();
+        } finally {
+            if (outer == null) {
+                current.remove();
+            } else {
+                current.set(outer);
+            }
+        }
+    }
+
+    private long remainingNanos() {
+        return nanos - System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining() + "]";
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Downloads files for {@link GenericHttpGet#downloadTo(URL, Path, String, String)},
+ * resuming interrupted transfers and checking their digest.
+ *
+ * @since 1.3
+ */
+final class Downloader {
+
+    /** The {@code 416 Range Not Satisfiable} status. */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    /** The size of the buffer used to digest downloaded files. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Downloader() {
+    }
+
+    /**
+     * Downloads the body of a GET request to a file, see
+     * {@link GenericHttpGet#downloadTo(URL, Path, String, String)}.
+     *
+     * @param uri       The URI
+     * @param target    The file to write, which is replaced if it exists
+     * @param algorithm The {@link MessageDigest} algorithm of {@code digest}, or
+     *                  {@code null} to not check the digest
+     * @param digest    The expected digest of the file as a hexadecimal string,
+     *                  or {@code null} to not check it
+     * @return The size of the file in bytes
+     * @throws IOException If there is an Exception while sending the request or
+     *                     writing the file, or the digest does not match
+     */
+    static long download(URI uri, Path target, String algorithm, String digest) throws IOException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Path validatorFile = target.resolveSibling(target.getFileName() + ".part.validator");
+        String validator = Files.isRegularFile(part) && Files.isRegularFile(validatorFile)
+                ? Files.readString(validatorFile).strip()
+                : "";
+        long start = validator.isEmpty() ? 0 : Files.size(part);
+        HttpRequest.Builder request = RequestSender.newRequest(uri, null).header("Accept-Encoding", "identity");
+        if (start > 0) {
+            request.header("Range", "bytes=" + start + "-").header("If-Range", validator);
+        }
+        HttpResponse<InputStream> response = RequestSender.send(request.build());
+
+        int status = response.statusCode();
+        if (status == HTTP_RANGE_NOT_SATISFIABLE && start > 0) {
+            response.body().close();
+            if (start != rangeLength(response)) {
+                // The partial file does not match the resource any more, start over
+                Files.deleteIfExists(part);
+                Files.deleteIfExists(validatorFile);
+                return download(uri, target, algorithm, digest);
+            }
+            // The previous transfer got the whole body but was not renamed
+        } else {
+            if (status != HttpURLConnection.HTTP_PARTIAL || rangeStart(response) != start) {
+                start = 0;
+            }
+            try (InputStream in = ResponseBody.open(response);
+                    ReadableByteChannel src = Channels.newChannel(in);
+                    FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                if (start == 0) {
+                    validator = validator(response);
+                    if (validator == null) {
+                        Files.deleteIfExists(validatorFile);
+                    } else {
+                        Files.writeString(validatorFile, validator);
+                    }
+                }
+                out.truncate(start);
+                long position = start;
+                long n;
+                while ((n = out.transferFrom(src, position, Long.MAX_VALUE)) > 0) {
+                    position += n;
+                }
+                out.force(false);
+            }
+        }
+
+        if (algorithm != null && digest != null) {
+            String actual = digest(part, algorithm);
+            if (!actual.equalsIgnoreCase(digest)) {
+                Files.deleteIfExists(part);
+                Files.deleteIfExists(validatorFile);
+                throw new IOException("Digest mismatch for " + target.getFileName() + ": expected " + digest
+                        + " but was " + actual);
+            }
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(validatorFile);
+        return Files.size(target);
+    }
+
+    /**
+     * Gets the first byte position from the {@code Content-Range} header of a
+     * {@code 206 Partial Content} response.
+     *
+     * @return The position, or -1 if the header is missing or malformed
+     */
+    private static long rangeStart(HttpResponse<?> response) {
+        String range = ResponseBody.header(response, "Content-Range");
+        if (range == null || !range.regionMatches(true, 0, "bytes ", 0, 6)) {
+            return -1;
+        }
+        int dash = range.indexOf('-', 6);
+        try {
+            return dash < 0 ? -1 : Long.parseLong(range.substring(6, dash).strip());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the validator to send as {@code If-Range} when resuming a download of
+     * a response: its {@code ETag} if it is strong, otherwise its
+     * {@code Last-Modified} date.
+     *
+     * @return The validator, or {@code null} if the response has neither
+     */
+    private static String validator(HttpResponse<?> response) {
+        String etag = ResponseBody.header(response, "ETag");
+        return etag != null && !etag.startsWith("W/") ? etag : ResponseBody.header(response, "Last-Modified");
+    }
+
+    /**
+     * Gets the complete length from the {@code Content-Range} header of a
+     * {@code 416 Range Not Satisfiable} response.
+     *
+     * @return The length, or -1 if the header is missing or malformed
+     */
+    private static long rangeLength(HttpResponse<?> response) {
+        String range = ResponseBody.header(response, "Content-Range");
+        int slash = range == null ? -1 : range.lastIndexOf('/');
+        try {
+            return slash < 0 ? -1 : Long.parseLong(range.substring(slash + 1).strip());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Calculates the digest of a file as a hexadecimal string, reading it through
+     * a direct buffer.
+     */
+    private static String digest(Path file, String algorithm) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unsupported digest algorithm: " + algorithm, e);
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (in.read(buf) >= 0) {
+                md.update(buf.flip());
+                buf.clear();
+            }
+        }
+        byte[] hash = md.digest();
+        StringBuilder res = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            res.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return res.toString();
+    }
+}
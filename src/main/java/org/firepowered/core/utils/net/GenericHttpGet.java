@@ -16,25 +16,166 @@
  */
 package org.firepowered.core.utils.net;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+import org.firepowered.core.utils.metrics.Metrics;
 
 /**
  * Utility for generic GET requests. This class can either be used by itself or
  * to help implement another utility.
+ * <p>
+ * Requests ask for {@code gzip} or {@code deflate} compression, and compressed
+ * responses are decoded while they are read, so callers always see the
+ * decoded body. {@link #getWireBytes()} and {@link #getDecodedBytes()} show how
+ * much this saves.
+ * <p>
+ * Requests are sent through a shared {@link ConnectionPool}, so connections are
+ * kept alive and reused. It can be replaced with
+ * {@link #setConnectionPool(ConnectionPool)}, or another {@link HttpTransport}
+ * can be used instead with {@link #setTransport(HttpTransport)} or
+ * {@link #withTransport(HttpTransport, Deadline.Task)}.
+ * <p>
+ * Redirects are followed, at most {@value #MAX_REDIRECTS} of them, except from
+ * HTTPS to plain HTTP. Any other redirect response is thrown as an
+ * {@link HttpStatusException}, as is any error status.
+ * <p>
+ * Each request, including following redirects and reading its body, fails with
+ * an {@link HttpTimeoutException} after {@link #getTimeout()}, or earlier if it
+ * is made within a {@link Deadline} which expires first. A {@link CircuitBreaker}
+ * can be set with {@link #setCircuitBreaker(CircuitBreaker)} to stop sending
+ * requests to endpoints which keep failing. Request durations, errors, bytes,
+ * and cache results are recorded in {@link Metrics}. Requests and cache lookups
+ * which take at least 20 ms are also recorded by Java Flight Recorder, as
+ * {@code org.firepowered.HttpRequest} and {@code org.firepowered.HttpCache}
+ * events.
  *
  * @author Kyle Smith
  * @since 1.0
  */
 public final class GenericHttpGet {
 
+    /**
+     * The default timeout of each request.
+     *
+     * @since 1.3
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The most redirects followed for a single request.
+     *
+     * @since 1.3
+     */
+    public static final int MAX_REDIRECTS = 5;
+
+    private static volatile Duration timeout = DEFAULT_TIMEOUT;
+
+    private static volatile HttpCache cache;
+
+    private static volatile ConnectionPool pool;
+
+    private static volatile HttpTransport transport;
+
+    /** The transport set for the current thread by {@link #withTransport}. */
+    static final ThreadLocal<HttpTransport> scopedTransport = new ThreadLocal<>();
+
+    private static volatile CircuitBreaker circuitBreaker;
+
+    static {
+        Metrics.register("fp_http_received_bytes_total", ResponseBody.wireBytes::sum);
+        Metrics.register("fp_http_decoded_bytes_total", ResponseBody.decodedBytes::sum);
+        Metrics.register("fp_http_cache_total", () -> cacheCount(HttpCache::getHits), "result", "hit");
+        Metrics.register("fp_http_cache_total", () -> cacheCount(HttpCache::getRevalidations), "result",
+                "revalidated");
+        Metrics.register("fp_http_cache_total", () -> cacheCount(HttpCache::getMisses), "result", "miss");
+        Metrics.register("fp_http_cache_total", () -> cacheCount(HttpCache::getStaleHits), "result", "stale");
+    }
+
+    /**
+     * The outcome of a single request made by
+     * {@link GenericHttpGet#getAll(Collection, int)}.
+     *
+     * @since 1.3
+     */
+    public static final class Result {
+
+        /** The position of the URL among those requested. */
+        final int index;
+
+        private final URL url;
+        private final String body;
+        private final IOException error;
+
+        Result(int index, URL url, String body, IOException error) {
+            this.index = index;
+            this.url = url;
+            this.body = body;
+            this.error = error;
+        }
+
+        /**
+         * Gets the URL of the request.
+         *
+         * @return The URL
+         */
+        public URL getUrl() {
+            return url;
+        }
+
+        /**
+         * Gets the response body.
+         *
+         * @return The body, or {@code null} if the request failed
+         */
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * Gets the reason the request failed.
+         *
+         * @return The error, or {@code null} if the request succeeded
+         */
+        public IOException getError() {
+            return error;
+        }
+
+        /**
+         * Returns whether the request succeeded.
+         *
+         * @return {@code true} if {@link #getBody()} is not {@code null}
+         */
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
     private GenericHttpGet() {
     }
 
@@ -80,7 +221,8 @@ public final class GenericHttpGet {
 
     /**
      * Performs a GET request on the given {@code url} with the given query
-     * parameters and returns the body as a string.
+     * parameters and returns the body as a string. The body is decoded with the
+     * charset from the {@code Content-Type} header, or UTF-8 if there is none.
      *
      * @param url        The URL
      * @param parameters Query parameters as key-value pairs
@@ -88,46 +230,621 @@ public final class GenericHttpGet {
      * @throws IOException If there is an Exception while sending the request
      */
     public static String getString(URL url, Map<String, String> parameters) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
+        return exchange(url, parameters, (body, length, contentType) -> new String(ResponseBody.read(body, length),
+                ResponseBody.charset(contentType)));
+    }
+
+    /**
+     * Performs a GET request on the given {@code url} and returns the body as
+     * bytes, exactly as received after decoding any compression.
+     *
+     * @param url The URL
+     * @return The response body
+     * @throws IOException If there is an Exception while sending the request
+     * @since 1.3
+     */
+    public static byte[] getBytes(URL url) throws IOException {
+        return getBytes(url, Collections.emptyMap());
+    }
+
+    /**
+     * Performs a GET request on the given {@code url} with the given query
+     * parameters and returns the body as bytes, exactly as received after
+     * decoding any compression. When the server sends a {@code Content-Length},
+     * the body is read straight into an array of that size.
+     *
+     * @param url        The URL
+     * @param parameters Query parameters as key-value pairs
+     * @return The response body
+     * @throws IOException If there is an Exception while sending the request
+     * @since 1.3
+     */
+    public static byte[] getBytes(URL url, Map<String, String> parameters) throws IOException {
+        return exchange(url, parameters, (body, length, contentType) -> ResponseBody.read(body, length));
+    }
+
+    /**
+     * Performs a GET request on the given {@code url} and returns the body in a
+     * buffer.
+     *
+     * @param url The URL
+     * @return The response body, from position 0 to the limit
+     * @throws IOException If there is an Exception while sending the request
+     * @see #getBytes(URL)
+     * @since 1.3
+     */
+    public static ByteBuffer getByteBuffer(URL url) throws IOException {
+        return ByteBuffer.wrap(getBytes(url));
+    }
+
+    /**
+     * Performs a GET request on the given {@code url} with the given query
+     * parameters and returns the body in a buffer.
+     *
+     * @param url        The URL
+     * @param parameters Query parameters as key-value pairs
+     * @return The response body, from position 0 to the limit
+     * @throws IOException If there is an Exception while sending the request
+     * @see #getBytes(URL, Map)
+     * @since 1.3
+     */
+    public static ByteBuffer getByteBuffer(URL url, Map<String, String> parameters) throws IOException {
+        return ByteBuffer.wrap(getBytes(url, parameters));
+    }
+
+    /**
+     * Performs a GET request on the given {@code url} and passes the body to
+     * {@code handler} as a stream.
+     *
+     * @param <T>     The type the body is converted into
+     * @param url     The URL
+     * @param handler Converts the response body
+     * @return The value returned by {@code handler}
+     * @throws IOException If there is an Exception while sending the request or
+     *                     thrown by {@code handler}
+     * @since 1.3
+     */
+    public static <T> T get(URL url, BodyHandler<T> handler) throws IOException {
+        return get(url, Collections.emptyMap(), handler);
+    }
+
+    /**
+     * Performs a GET request on the given {@code url} with the given query
+     * parameters and passes the body to {@code handler} as a stream.
+     *
+     * @param <T>        The type the body is converted into
+     * @param url        The URL
+     * @param parameters Query parameters as key-value pairs
+     * @param handler    Converts the response body
+     * @return The value returned by {@code handler}
+     * @throws IOException If there is an Exception while sending the request or
+     *                     thrown by {@code handler}
+     * @since 1.3
+     */
+    public static <T> T get(URL url, Map<String, String> parameters, BodyHandler<T> handler) throws IOException {
+        return exchange(url, parameters, (body, length, contentType) -> handler.handle(body));
+    }
+
+    /**
+     * Performs a GET request on the given {@code url} and returns the body as a
+     * stream. The caller must close the stream, which also returns the connection
+     * to the pool.
+     *
+     * @param url The URL
+     * @return The response body
+     * @throws IOException If there is an Exception while sending the request
+     * @since 1.3
+     */
+    public static InputStream getStream(URL url) throws IOException {
+        HttpCache cache = GenericHttpGet.cache;
+        if (cache != null) {
+            // The body was read fully to store it, so there is nothing to release
+            return CachedGet.get(cache, toURI(url), (body, length, contentType) -> body);
+        }
+
+        return ResponseBody.open(RequestSender.send(toURI(url), null));
+    }
+
+    /**
+     * Downloads the body of a GET request on the given {@code url} to a file,
+     * without holding it in memory. See
+     * {@link #downloadTo(URL, Path, String, String)}.
+     *
+     * @param url    The URL
+     * @param target The file to write, which is replaced if it exists
+     * @return The size of the file in bytes
+     * @throws IOException If there is an Exception while sending the request or
+     *                     writing the file
+     * @since 1.3
+     */
+    public static long downloadTo(URL url, Path target) throws IOException {
+        return downloadTo(url, target, null, null);
+    }
+
+    /**
+     * Downloads the body of a GET request on the given {@code url} to a file,
+     * without holding it in memory, and checks its digest.
+     * <p>
+     * The body is written to {@code target} with {@code .part} appended to its
+     * name, which is renamed to {@code target} once complete, so {@code target}
+     * never holds a partial file. If the transfer is interrupted, the partial
+     * file is kept and the next download of the same file asks the server for
+     * the rest only, with a {@code Range} request. The strong {@code ETag} or
+     * {@code Last-Modified} date of the response is kept next to the partial
+     * file with {@code .validator} appended to its name and sent as
+     * {@code If-Range}, so the server sends the whole body again if the
+     * resource changed. Without either, as well as from a server which does not
+     * support ranges, the whole body is downloaded again.
+     * <p>
+     * Unlike other requests, the default {@link #getTimeout() timeout} does not
+     * apply, as a large file may take much longer to download. A
+     * {@link Deadline} still does. The body is not cached.
+     *
+     * @param url       The URL
+     * @param target    The file to write, which is replaced if it exists
+     * @param algorithm The {@link MessageDigest} algorithm of {@code digest}, for
+     *                  example {@code SHA-256}, or {@code null} to not check the
+     *                  digest
+     * @param digest    The expected digest of the file as a hexadecimal string,
+     *                  or {@code null} to not check it
+     * @return The size of the file in bytes
+     * @throws IOException If there is an Exception while sending the request or
+     *                     writing the file, or the digest of the file does not
+     *                     match {@code digest}, in which case the partial file
+     *                     is deleted
+     * @since 1.3
+     */
+    public static long downloadTo(URL url, Path target, String algorithm, String digest) throws IOException {
+        return Downloader.download(toURI(url), target, algorithm, digest);
+    }
+
+    /**
+     * Performs GET requests on many URLs at once, with at most
+     * {@code concurrency} in flight. Requests to a single host are further
+     * limited by the {@link ConnectionPool#getMaxRequestsPerHost() connection
+     * pool}, which all requests share. A failed request does not stop the others,
+     * its error is in its {@link Result}.
+     *
+     * @param urls        The URLs
+     * @param concurrency The number of requests which may be in flight at once,
+     *                    must be greater than 0
+     * @return The results, in the same order as {@code urls}
+     * @throws InterruptedException If interrupted while waiting for the requests,
+     *                              which are then cancelled
+     * @since 1.3
+     */
+    public static List<Result> getAll(Collection<URL> urls, int concurrency) throws InterruptedException {
+        return BatchGet.getAll(new ArrayList<>(urls), concurrency);
+    }
+
+    /**
+     * Performs GET requests on many URLs at once, passing each result to
+     * {@code callback} as soon as it arrives. See
+     * {@link #getAll(Collection, int)}. The callback is always called on the
+     * calling thread, one result at a time, and this method returns once it was
+     * called for every URL.
+     *
+     * @param urls        The URLs
+     * @param concurrency The number of requests which may be in flight at once,
+     *                    must be greater than 0
+     * @param callback    Called with each result, in the order they arrive
+     * @throws InterruptedException If interrupted while waiting for the requests,
+     *                              which are then cancelled
+     * @since 1.3
+     */
+    public static void getAll(Collection<URL> urls, int concurrency, Consumer<Result> callback)
+            throws InterruptedException {
+        BatchGet.getAll(new ArrayList<>(urls), concurrency, callback);
+    }
+
+    /**
+     * Prepares connections to the hosts of {@code urls}, so the first real
+     * requests to them are as fast as later ones. Each host name is resolved, and
+     * {@code connections} requests are sent to each URL at once, which opens that
+     * many connections (or one HTTP/2 connection), completes the TLS handshakes,
+     * and leaves the connections in the {@link #getConnectionPool() pool} for
+     * reuse. The responses are discarded and their status does not matter, so
+     * the URLs should be cheap to fetch. {@code HEAD} is not used because the
+     * client closes connections after it. Requests keep the {@link Deadline} and
+     * {@link #currentTransport() transport} of the calling thread. Host names
+     * are only resolved for a {@link ConnectionPool}.
+     * <p>
+     * Connections are closed once idle for the time set by the
+     * {@code jdk.httpclient.keepalive.timeout} system property, see
+     * {@link ConnectionPool}, so this is best done shortly before traffic starts.
+     *
+     * @param urls        The URLs, for example the base URL of each API used
+     * @param connections The number of connections to open per URL, must be
+     *                    greater than 0
+     * @return How long warming up took
+     * @throws IOException If a host could not be resolved or connected to, after
+     *                     trying all of them. Other failures are suppressed.
+     * @since 1.3
+     */
+    public static Duration warmUp(Collection<URL> urls, int connections) throws IOException {
+        assert connections > 0;
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        Deadline deadline = Deadline.current();
+        HttpTransport transport = scopedTransport.get();
+        ExecutorService executor = TaskExecutors.newPerTaskExecutor("fp-http-warmup-");
+        try {
+            for (URL url : urls) {
+                URI uri = toURI(url);
+                Deadline.Task<Void, IOException> connect = () -> withTransport(transport, () -> {
+                    if (transport() instanceof ConnectionPool) {
+                        InetAddress.getAllByName(uri.getHost());
+                    }
+                    HttpRequest request = RequestSender.newRequest(uri, timeout).GET().build();
+                    try (InputStream body = RequestSender.send(request).body()) {
+                        body.readAllBytes();
+                    }
+                    return null;
+                });
+                for (int i = 0; i < connections; i++) {
+                    futures.add(executor.submit(() -> deadline == null ? connect.run() : deadline.call(connect)));
+                }
+            }
 
-        if (!parameters.isEmpty()) {
-            conn.setDoOutput(true);
-            try (DataOutputStream dos = new DataOutputStream(conn.getOutputStream())) {
-                dos.writeBytes(createParamString(parameters));
+            IOException error = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    IOException cause = e.getCause() instanceof IOException ? (IOException) e.getCause()
+                            : new IOException(e.getCause());
+                    if (error == null) {
+                        error = cause;
+                    } else {
+                        error.addSuppressed(cause);
+                    }
+                }
             }
+            if (error != null) {
+                throw error;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while warming up");
+        } finally {
+            executor.shutdownNow();
         }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Sets the timeout of each request made through this class, including those
+     * made by {@link org.firepowered.core.utils.steam.Builder Builder}. The
+     * timeout covers waiting for a connection, waiting for the response, and
+     * reading the body. The default is {@link #DEFAULT_TIMEOUT}.
+     *
+     * @param timeout The timeout, must be positive, or {@code null} to only time
+     *                out requests made within a {@link Deadline}
+     * @since 1.3
+     */
+    public static void setTimeout(Duration timeout) {
+        assert timeout == null || !timeout.isNegative() && !timeout.isZero();
+        GenericHttpGet.timeout = timeout;
+    }
+
+    /**
+     * Gets the timeout of each request made through this class.
+     *
+     * @return The timeout, or {@code null} if there is none
+     * @see #setTimeout(Duration)
+     * @since 1.3
+     */
+    public static Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the cache used for all requests made through this class, including
+     * those made by {@link org.firepowered.core.utils.steam.Builder Builder}.
+     * There is no cache by default.
+     *
+     * @param cache The cache, or {@code null} to disable caching
+     * @since 1.3
+     */
+    public static void setCache(HttpCache cache) {
+        GenericHttpGet.cache = cache;
+    }
+
+    /**
+     * Gets the cache used for all requests made through this class.
+     *
+     * @return The cache, or {@code null} if caching is disabled
+     * @see #setCache(HttpCache)
+     * @since 1.3
+     */
+    public static HttpCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the connection pool used for all requests made through this class,
+     * including those made by {@link org.firepowered.core.utils.steam.Builder
+     * Builder}. Requests already in flight finish on the previous pool, which is
+     * not closed.
+     *
+     * @param pool The pool, must not be {@code null}
+     * @since 1.3
+     */
+    public static void setConnectionPool(ConnectionPool pool) {
+        assert pool != null;
+        GenericHttpGet.pool = pool;
+    }
 
-        StringBuilder res = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                res.append(line);
+    /**
+     * Gets the connection pool used for all requests made through this class. A
+     * pool with the default settings is created on first use if none was set.
+     *
+     * @return The pool
+     * @see #setConnectionPool(ConnectionPool)
+     * @since 1.3
+     */
+    public static ConnectionPool getConnectionPool() {
+        ConnectionPool pool = GenericHttpGet.pool;
+        if (pool == null) {
+            synchronized (GenericHttpGet.class) {
+                pool = GenericHttpGet.pool;
+                if (pool == null) {
+                    pool = new ConnectionPool();
+                    GenericHttpGet.pool = pool;
+                }
             }
+        }
+        return pool;
+    }
+
+    /**
+     * Sets the transport used for all requests made through this class,
+     * including those made by {@link org.firepowered.core.utils.steam.Builder
+     * Builder}, unless another one is set for the current thread with
+     * {@link #withTransport(HttpTransport, Deadline.Task)}. Requests already in
+     * flight finish on the previous transport.
+     *
+     * @param transport The transport, or {@code null} to use the
+     *                  {@link #getConnectionPool() connection pool}, which is the
+     *                  default
+     * @since 1.3
+     */
+    public static void setTransport(HttpTransport transport) {
+        GenericHttpGet.transport = transport;
+    }
+
+    /**
+     * Gets the transport used for all requests made through this class.
+     *
+     * @return The transport, which is the {@link #getConnectionPool() connection
+     *         pool} if none was set
+     * @see #setTransport(HttpTransport)
+     * @since 1.3
+     */
+    public static HttpTransport getTransport() {
+        HttpTransport transport = GenericHttpGet.transport;
+        return transport != null ? transport : getConnectionPool();
+    }
+
+    /**
+     * Runs {@code task} with the requests it makes on the current thread sent
+     * through {@code transport} instead of {@link #getTransport()}. Once it
+     * returns, the transport which was used before applies again.
+     *
+     * @param <T>       The type of the result
+     * @param <E>       The type of the exception thrown by the task
+     * @param transport The transport, or {@code null} to use
+     *                  {@link #getTransport()}
+     * @param task      The task
+     * @return The result of the task
+     * @throws E If the task failed
+     * @since 1.3
+     */
+    public static <T, E extends Exception> T withTransport(HttpTransport transport, Deadline.Task<T, E> task)
+            throws E {
+        HttpTransport outer = scopedTransport.get();
+        scopedTransport.set(transport);
+        try {
+            return task.run();
         } finally {
-            conn.disconnect();
+            if (outer == null) {
+                scopedTransport.remove();
+            } else {
+                scopedTransport.set(outer);
+            }
         }
-        return res.toString();
+    }
+
+    /**
+     * Gets the transport set for the current thread. Work handed to other threads
+     * can pass it on with {@link #withTransport(HttpTransport, Deadline.Task)}.
+     *
+     * @return The transport, or {@code null} if requests use
+     *         {@link #getTransport()}
+     * @since 1.3
+     */
+    public static HttpTransport currentTransport() {
+        return scopedTransport.get();
+    }
 
+    /**
+     * Sets the circuit breaker used for all requests made through this class,
+     * including those made by {@link org.firepowered.core.utils.steam.Builder
+     * Builder}. While the circuit of an endpoint is open, requests to it throw a
+     * {@link CircuitOpenException} without being sent, unless the cache holds a
+     * response for the URL, which is then served however stale it is. There is
+     * no circuit breaker by default.
+     *
+     * @param circuitBreaker The circuit breaker, or {@code null} to always send
+     *                       requests
+     * @since 1.3
+     */
+    public static void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        GenericHttpGet.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Gets the circuit breaker used for all requests made through this class.
+     *
+     * @return The circuit breaker, or {@code null} if there is none
+     * @see #setCircuitBreaker(CircuitBreaker)
+     * @since 1.3
+     */
+    public static CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Gets the number of response body bytes received from the network since the
+     * class was loaded, as they were sent by the server. Responses served from the
+     * cache are not counted.
+     *
+     * @return The number of bytes
+     * @since 1.3
+     */
+    public static long getWireBytes() {
+        return ResponseBody.wireBytes.sum();
+    }
+
+    /**
+     * Gets the number of response body bytes read since the class was loaded,
+     * after decoding any compression. This is the same as {@link #getWireBytes()}
+     * for uncompressed responses. Responses served from the cache are not
+     * counted.
+     *
+     * @return The number of bytes
+     * @since 1.3
+     */
+    public static long getDecodedBytes() {
+        return ResponseBody.decodedBytes.sum();
+    }
+
+    /**
+     * Performs a GET request, through the cache if one is set, and passes the body
+     * to {@code handler}.
+     */
+    private static <T> T exchange(URL url, Map<String, String> parameters, RawHandler<T> handler)
+            throws IOException {
+        URI uri = toURI(url, parameters);
+        HttpCache cache = GenericHttpGet.cache;
+        if (cache != null) {
+            return CachedGet.get(cache, uri, handler);
+        }
+
+        HttpResponse<InputStream> response = RequestSender.send(uri, null);
+        try (InputStream body = ResponseBody.open(response)) {
+            return handler.handle(body, ResponseBody.length(response),
+                    ResponseBody.header(response, "Content-Type"));
+        }
+    }
+
+    /**
+     * Replaces the value of the {@code key} query parameter of a URL.
+     *
+     * @param url         The URL
+     * @param replacement The text to put in place of the value
+     * @return The URL with the value replaced, or {@code url} if it has no
+     *         {@code key} parameter
+     */
+    static String replaceKey(String url, String replacement) {
+        return replaceKey(url, value -> replacement);
+    }
+
+    /**
+     * Replaces the value of the {@code key} query parameter of a URL.
+     *
+     * @param url         The URL
+     * @param replacement Converts the value into the text to put in its place
+     * @return The URL with the value replaced, or {@code url} if it has no
+     *         {@code key} parameter
+     */
+    static String replaceKey(String url, UnaryOperator<String> replacement) {
+        int i = url.indexOf('?');
+        while (i >= 0) {
+            if (url.startsWith("key=", i + 1)) {
+                int start = i + 5;
+                int end = url.indexOf('&', start);
+                if (end < 0) {
+                    end = url.length();
+                }
+                return url.substring(0, start) + replacement.apply(url.substring(start, end)) + url.substring(end);
+            }
+            i = url.indexOf('&', i + 1);
+        }
+        return url;
+    }
+
+    /**
+     * Reads a count of the current cache for {@link Metrics}.
+     */
+    private static long cacheCount(ToLongFunction<HttpCache> count) {
+        HttpCache cache = GenericHttpGet.cache;
+        return cache == null ? 0 : count.applyAsLong(cache);
+    }
+
+    /**
+     * Gets the transport for requests made on the current thread.
+     *
+     * @return The transport
+     */
+    static HttpTransport transport() {
+        HttpTransport transport = scopedTransport.get();
+        return transport != null ? transport : getTransport();
+    }
+
+    /**
+     * Converts a URL into a URI, adding {@code parameters} to its query string
+     * as created by {@link #createParamString(Map)}.
+     */
+    private static URI toURI(URL url, Map<String, String> parameters) throws IOException {
+        URI uri = toURI(url);
+        if (parameters.isEmpty()) {
+            return uri;
+        }
+        String base = uri.toString();
+        String fragment = "";
+        int hash = base.indexOf('#');
+        if (hash >= 0) {
+            fragment = base.substring(hash);
+            base = base.substring(0, hash);
+        }
+        StringBuilder res = new StringBuilder(
+                base.length() + 1 + UrlEncoding.queryLength(parameters) + fragment.length()).append(base);
+        if (uri.getRawQuery() == null) {
+            res.append('?');
+        } else if (!base.endsWith("?") && !base.endsWith("&")) {
+            res.append('&');
+        }
+        return URI.create(UrlEncoding.encodeQuery(parameters, res).append(fragment).toString());
+    }
+
+    /**
+     * Converts a URL into a URI, quoting any characters which are not allowed in
+     * a URI.
+     */
+    private static URI toURI(URL url) throws IOException {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            try {
+                return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(), url.getPath(),
+                        url.getQuery(), url.getRef());
+            } catch (URISyntaxException e2) {
+                throw new MalformedURLException(e2.getMessage());
+            }
+        }
     }
 
     /**
      * Creates a querystring ({@code key1=value1&key2=value2}, etc.) with the given
-     * parameter map.
+     * parameter map. Keys and values are percent-encoded and sorted by key, see
+     * {@link UrlEncoding#encodeQuery(Map, StringBuilder)}.
      *
      * @param params The parameter map
      * @return The querystring
      */
     public static String createParamString(Map<String, String> params) {
-        StringBuilder result = new StringBuilder();
-        for (Map.Entry<String, String> param : params.entrySet()) {
-            result.append(param.getKey()).append('=').append(param.getValue()).append('&');
-        }
-        String res = result.toString();
-        if (!res.isEmpty()) {
-            res = res.substring(0, res.length() - 1);
-        }
-        return res;
+        return UrlEncoding.encodeQuery(params, new StringBuilder(UrlEncoding.queryLength(params))).toString();
     }
 
 }
@@ -0,0 +1,579 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * A cache of HTTP responses used by {@link GenericHttpGet} once set with
+ * {@link GenericHttpGet#setCache(HttpCache)}. Responses are stored with their
+ * {@code ETag} and {@code Last-Modified} headers, which are sent back as
+ * {@code If-None-Match} and {@code If-Modified-Since} once the response is
+ * stale, so an unchanged resource only costs a {@code 304 Not Modified}. While
+ * a response is fresh according to {@code Cache-Control: max-age} it is served
+ * without any request at all.
+ * <p>
+ * Responses are kept in memory up to a total size, least recently used first.
+ * An optional directory adds a disk tier, which keeps responses across
+ * restarts and holds those that do not fit in memory. The disk tier is also
+ * limited to a total size, removing the least recently used files first, in
+ * the order of their modification times across restarts. Files are named by a
+ * hash of the URL, so they do not contain the URL itself or any API key in it.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @since 1.3
+ */
+public final class HttpCache {
+
+    /**
+     * The default maximum total size of the files in the disk tier.
+     */
+    public static final long DEFAULT_MAX_DISK_BYTES = 256L * 1024 * 1024;
+
+    private static final int DISK_FORMAT = 2;
+
+    /** The length of the file names, a hex SHA-256. */
+    private static final int FILE_NAME_LENGTH = 64;
+
+    private final long maxMemoryBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+
+    private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    /** The size of each file in the disk tier, least recently used first. */
+    private final Map<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+
+    /**
+     * A cached response.
+     */
+    static final class Entry {
+
+        private final byte[] body;
+        private final String contentType;
+        private final String etag;
+        private final String lastModified;
+
+        /** When the response becomes stale, in epoch milliseconds. */
+        private final long expires;
+
+        Entry(byte[] body, String contentType, String etag, String lastModified, long expires) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expires = expires;
+        }
+
+        /**
+         * Gets the cached body as a stream.
+         *
+         * @return The body
+         */
+        InputStream body() {
+            return new ByteArrayInputStream(body);
+        }
+
+        /**
+         * Gets the length of the cached body.
+         *
+         * @return The length in bytes
+         */
+        int length() {
+            return body.length;
+        }
+
+        /**
+         * Gets the {@code Content-Type} header of the cached response.
+         *
+         * @return The header, or {@code null} if there was none
+         */
+        String contentType() {
+            return contentType;
+        }
+
+        /**
+         * Gets the {@code ETag} header of the cached response.
+         *
+         * @return The header, or {@code null} if there was none
+         */
+        String etag() {
+            return etag;
+        }
+
+        /**
+         * Gets the {@code Last-Modified} header of the cached response.
+         *
+         * @return The header, or {@code null} if there was none
+         */
+        String lastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Returns whether the response can be served without revalidating it.
+         *
+         * @param now The current time, in epoch milliseconds
+         * @return {@code true} if the response is fresh
+         */
+        boolean isFresh(long now) {
+            return now < expires;
+        }
+    }
+
+    /**
+     * Creates a new memory-only cache.
+     *
+     * @param maxMemoryBytes The maximum total size of the bodies kept in memory,
+     *                       must be greater than 0
+     */
+    public HttpCache(long maxMemoryBytes) {
+        this(maxMemoryBytes, null);
+    }
+
+    /**
+     * Creates a new cache with a disk tier of at most
+     * {@link #DEFAULT_MAX_DISK_BYTES}.
+     *
+     * @param maxMemoryBytes The maximum total size of the bodies kept in memory,
+     *                       must be greater than 0
+     * @param directory      The directory to store responses in, or {@code null}
+     *                       for a memory-only cache. It is created if it does not
+     *                       exist.
+     * @throws UncheckedIOException If {@code directory} could not be created or
+     *                              read
+     */
+    public HttpCache(long maxMemoryBytes, Path directory) {
+        this(maxMemoryBytes, directory, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * Creates a new cache with a disk tier. Files already in {@code directory},
+     * from an earlier run, count towards {@code maxDiskBytes}, and the oldest are
+     * removed at once if they exceed it.
+     *
+     * @param maxMemoryBytes The maximum total size of the bodies kept in memory,
+     *                       must be greater than 0
+     * @param directory      The directory to store responses in, or {@code null}
+     *                       for a memory-only cache. It is created if it does not
+     *                       exist, and should not be used for anything else.
+     * @param maxDiskBytes   The maximum total size of the files in
+     *                       {@code directory}, must be greater than 0
+     * @throws UncheckedIOException If {@code directory} could not be created or
+     *                              read
+     * @since 1.3
+     */
+    public HttpCache(long maxMemoryBytes, Path directory, long maxDiskBytes) {
+        assert maxMemoryBytes > 0 && maxDiskBytes > 0;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                loadDisk();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of requests served from the cache without contacting the
+     * server.
+     *
+     * @return The number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests for which the server confirmed the cached
+     * response was still valid ({@code 304 Not Modified}).
+     *
+     * @return The number of revalidations
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    /**
+     * Gets the number of requests for which the full response had to be
+     * downloaded.
+     *
+     * @return The number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of requests served from the cache, however stale, because
+     * the {@link CircuitBreaker} did not let them be sent.
+     *
+     * @return The number of stale hits
+     */
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    /**
+     * Removes all responses from both tiers.
+     *
+     * @throws IOException If a file in the disk tier could not be deleted
+     */
+    public void clear() throws IOException {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        if (directory != null) {
+            synchronized (disk) {
+                disk.clear();
+                diskBytes = 0;
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Iterator<Path> it = files.iterator(); it.hasNext();) {
+                        Files.deleteIfExists(it.next());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up a response, promoting it from disk to memory if needed.
+     *
+     * @param url The cache key
+     * @return The cached response, or {@code null} if there is none
+     */
+    Entry get(String url) {
+        synchronized (memory) {
+            Entry entry = memory.get(url);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Entry entry = readDisk(url);
+        if (entry != null) {
+            putMemory(url, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Records that a fresh response was served.
+     */
+    void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Records that a stale response was served because its request could not be
+     * sent.
+     */
+    void stale() {
+        staleHits.increment();
+    }
+
+    /**
+     * Records a {@code 304 Not Modified} for a cached response, updating its
+     * freshness.
+     *
+     * @param url          The cache key
+     * @param entry        The cached response
+     * @param cacheControl The {@code Cache-Control} header of the 304 response
+     * @return The updated response
+     */
+    Entry notModified(String url, Entry entry, String cacheControl) {
+        revalidations.increment();
+        Entry updated = new Entry(entry.body, entry.contentType, entry.etag, entry.lastModified,
+                expires(cacheControl));
+        put(url, updated);
+        return updated;
+    }
+
+    /**
+     * Records a full response, storing it if its headers allow.
+     *
+     * @param url          The cache key
+     * @param body         The response body
+     * @param contentType  The {@code Content-Type} header, may be {@code null}
+     * @param etag         The {@code ETag} header, may be {@code null}
+     * @param lastModified The {@code Last-Modified} header, may be {@code null}
+     * @param cacheControl The {@code Cache-Control} header, may be {@code null}
+     * @return The response
+     */
+    Entry store(String url, byte[] body, String contentType, String etag, String lastModified,
+            String cacheControl) {
+        misses.increment();
+        Entry entry = new Entry(body, contentType, etag, lastModified, expires(cacheControl));
+        boolean noStore = cacheControl != null && cacheControl.toLowerCase().contains("no-store");
+        boolean reusable = etag != null || lastModified != null || entry.expires > System.currentTimeMillis();
+        if (!noStore && reusable) {
+            put(url, entry);
+        }
+        return entry;
+    }
+
+    private void put(String url, Entry entry) {
+        putMemory(url, entry);
+        writeDisk(url, entry);
+    }
+
+    private void putMemory(String url, Entry entry) {
+        synchronized (memory) {
+            Entry old = memory.remove(url);
+            if (old != null) {
+                memoryBytes -= old.body.length;
+            }
+            if (entry.body.length > maxMemoryBytes) {
+                // Only the disk tier can hold this one
+                return;
+            }
+            memory.put(url, entry);
+            memoryBytes += entry.body.length;
+            Iterator<Entry> it = memory.values().iterator();
+            while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+                memoryBytes -= it.next().body.length;
+                it.remove();
+            }
+        }
+    }
+
+    private Entry readDisk(String url) {
+        if (directory == null) {
+            return null;
+        }
+        String name = fileName(url);
+        synchronized (disk) {
+            if (disk.get(name) == null) {
+                return null;
+            }
+        }
+        Path file = directory.resolve(name);
+        try {
+            // Keeps the least recently used order across restarts
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            //$FALL-THROUGH$
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != DISK_FORMAT) {
+                return null;
+            }
+            String contentType = in.readBoolean() ? in.readUTF() : null;
+            String etag = in.readBoolean() ? in.readUTF() : null;
+            String lastModified = in.readBoolean() ? in.readUTF() : null;
+            long expires = in.readLong();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Entry(body, contentType, etag, lastModified, expires);
+        } catch (IOException e) {
+            // Treat a corrupt or concurrently replaced file as a miss
+            return null;
+        }
+    }
+
+    private void writeDisk(String url, Entry entry) {
+        if (directory == null) {
+            return;
+        }
+        String name = fileName(url);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(directory, "fp-cache", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                out.writeInt(DISK_FORMAT);
+                writeOptional(out, entry.contentType);
+                writeOptional(out, entry.etag);
+                writeOptional(out, entry.lastModified);
+                out.writeLong(entry.expires);
+                out.writeInt(entry.body.length);
+                out.write(entry.body);
+            }
+            long size = Files.size(tmp);
+            synchronized (disk) {
+                if (size > maxDiskBytes) {
+                    // Too large to keep, and an older copy must not be served
+                    removeDisk(name);
+                    return;
+                }
+                Files.move(tmp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                Long old = disk.put(name, size);
+                diskBytes += size - (old == null ? 0 : old);
+                evictDisk();
+            }
+        } catch (IOException e) {
+            // The disk tier is best effort, the response is still in memory
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    /**
+     * Indexes the files left in the directory by an earlier run, oldest first,
+     * and removes those over the size limit.
+     */
+    private void loadDisk() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.forEach(files::add);
+        }
+        List<Map.Entry<Path, FileTime>> cached = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.length() == FILE_NAME_LENGTH && Files.isRegularFile(file)) {
+                cached.add(Map.entry(file, Files.getLastModifiedTime(file)));
+            } else if (name.startsWith("fp-cache") && name.endsWith(".tmp")) {
+                // Left by a write which was interrupted
+                deleteQuietly(file);
+            }
+        }
+        cached.sort(Comparator.comparing(Map.Entry::getValue));
+        synchronized (disk) {
+            for (Map.Entry<Path, FileTime> file : cached) {
+                long size = Files.size(file.getKey());
+                disk.put(file.getKey().getFileName().toString(), size);
+                diskBytes += size;
+            }
+            evictDisk();
+        }
+    }
+
+    /**
+     * Removes the least recently used files until the disk tier fits in its
+     * limit. Must hold the lock on {@link #disk}.
+     */
+    private void evictDisk() {
+        Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            diskBytes -= eldest.getValue();
+            it.remove();
+            deleteQuietly(directory.resolve(eldest.getKey()));
+        }
+    }
+
+    /**
+     * Removes a file from the disk tier. Must hold the lock on {@link #disk}.
+     */
+    private void removeDisk(String name) {
+        Long old = disk.remove(name);
+        if (old != null) {
+            diskBytes -= old;
+            deleteQuietly(directory.resolve(name));
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //$FALL-THROUGH$
+        }
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Calculates when a response becomes stale from its {@code Cache-Control}
+     * header. Responses without {@code max-age}, or with {@code no-cache}, are
+     * stale immediately and always revalidated.
+     */
+    private static long expires(String cacheControl) {
+        long now = System.currentTimeMillis();
+        if (cacheControl == null) {
+            return now;
+        }
+        long maxAge = 0;
+        for (String directive : cacheControl.toLowerCase().split(",")) {
+            directive = directive.strip();
+            if (directive.equals("no-cache")) {
+                return now;
+            } else if (directive.startsWith("max-age=")) {
+                try {
+                    maxAge = Long.parseLong(directive.substring(8));
+                } catch (NumberFormatException e) {
+                    //$FALL-THROUGH$
+                }
+            }
+        }
+        return now + maxAge * 1000;
+    }
+
+    private static String fileName(String url) {
+        return sha256(url);
+    }
+
+    /**
+     * Hashes a string with SHA-256.
+     *
+     * @param str The string
+     * @return The hash as 64 lowercase hex digits
+     */
+    static String sha256(String str) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(str.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new AssertionError(e);
+        }
+    }
+}
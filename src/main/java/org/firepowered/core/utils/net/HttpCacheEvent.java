@@ -0,0 +1,63 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a request served through an {@link HttpCache},
+ * including any request made to revalidate or fetch the response. Only lookups
+ * which took at least the threshold are recorded, 20 ms unless changed in the
+ * recording settings, so fresh hits are usually only seen with a threshold of
+ * 0.
+ *
+ * @since 1.3
+ */
+@Name("org.firepowered.HttpCache")
+@Label("HTTP Cache Lookup")
+@Category({ "FirePowered", "HTTP" })
+@Description("A GET request served through the HttpCache of GenericHttpGet")
+@Threshold("20 ms")
+@StackTrace(false)
+final class HttpCacheEvent extends Event {
+
+    /** A fresh response was served without a request. */
+    static final String HIT = "hit";
+
+    /** A stale response was confirmed by a {@code 304 Not Modified}. */
+    static final String REVALIDATED = "revalidated";
+
+    /** A stale response was served because the circuit was open. */
+    static final String STALE = "stale";
+
+    /** The response was not cached or had changed. */
+    static final String MISS = "miss";
+
+    @Label("URL")
+    @Description("The URL without its query string, so it never contains an API key")
+    String url;
+
+    @Label("Result")
+    @Description("One of hit, revalidated, stale, or miss")
+    String result;
+}
@@ -0,0 +1,60 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a request sent by {@link GenericHttpGet}, from
+ * sending it until the response headers arrived. Only requests which took at
+ * least the threshold are recorded, 20 ms unless changed in the recording
+ * settings.
+ *
+ * @since 1.3
+ */
+@Name("org.firepowered.HttpRequest")
+@Label("HTTP Request")
+@Category({ "FirePowered", "HTTP" })
+@Description("A GET request sent by GenericHttpGet")
+@Threshold("20 ms")
+@StackTrace(false)
+final class HttpRequestEvent extends Event {
+
+    @Label("URL")
+    @Description("The URL without its query string, so it never contains an API key")
+    String url;
+
+    @Label("Status")
+    @Description("The status of the response, or 0 if there was none")
+    int status;
+
+    @Label("Response Size")
+    @Description("The Content-Length of the response, or -1 if it was not sent")
+    @DataAmount
+    long bytes;
+
+    @Label("Error")
+    @Description("The type of the exception thrown, if any")
+    String error;
+}
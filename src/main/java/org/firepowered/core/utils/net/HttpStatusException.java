@@ -0,0 +1,58 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+
+/**
+ * An Exception representing that a server answered a request with an error
+ * status ({@code 4xx} or {@code 5xx}). The URL in the message has the value of
+ * any {@code key} parameter removed, so it is safe to log.
+ *
+ * @since 1.3
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 2867315609862432734L;
+
+    /** The {@code 429 Too Many Requests} status. */
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    private final int statusCode;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param statusCode The HTTP status code
+     * @param url        The URL of the request, which may contain a {@code key}
+     *                   parameter
+     */
+    public HttpStatusException(int statusCode, String url) {
+        super("Server returned HTTP response code " + statusCode + " for URL "
+                + GenericHttpGet.replaceKey(url, "<redacted>"));
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Gets the HTTP status code returned by the server.
+     *
+     * @return The status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
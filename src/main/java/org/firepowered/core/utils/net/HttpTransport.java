@@ -0,0 +1,87 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the requests made by {@link GenericHttpGet}, and so by
+ * {@link org.firepowered.core.utils.steam.Builder Builder} and
+ * {@link org.firepowered.core.utils.steam.SteamApiWrapper SteamApiWrapper}. The
+ * {@link ConnectionPool} is the transport used by default. Another one can be
+ * set for all requests with {@link GenericHttpGet#setTransport(HttpTransport)},
+ * or for the requests made by a single thread with
+ * {@link GenericHttpGet#withTransport(HttpTransport, Deadline.Task)}, for example
+ * to send them to a local stand-in server.
+ * <p>
+ * Requests are handed over complete, with any timeout already set to the time
+ * left of the current {@link Deadline}. A transport should fail with an
+ * {@link java.net.http.HttpTimeoutException HttpTimeoutException} once the
+ * timeout is up, and must not follow redirects or decode the body, which is
+ * left to {@link GenericHttpGet}. It sends each redirect as a new request, so
+ * every hop goes through the {@link CircuitBreaker} and counts against the
+ * timeout.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @since 1.3
+ */
+@FunctionalInterface
+public interface HttpTransport {
+
+    /**
+     * Sends a request and waits for the response headers. The body of the
+     * response must always be closed by the caller.
+     *
+     * @param request The request
+     * @return The response, with the body not yet read
+     * @throws IOException If the request could not be sent
+     */
+    HttpResponse<InputStream> send(HttpRequest request) throws IOException;
+
+    /**
+     * Sends a request without waiting for the response. The body of the response
+     * must always be closed by the caller.
+     * <p>
+     * The default implementation calls {@link #send(HttpRequest)} on its own
+     * thread, from an executor shared by all transports.
+     *
+     * @param request The request
+     * @return A future which completes with the response once its headers
+     *         arrived, or with the exception {@link #send(HttpRequest)} would have
+     *         thrown
+     */
+    default CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+        CompletableFuture<HttpResponse<InputStream>> res = new CompletableFuture<>();
+        TransportExecutor.EXECUTOR.execute(() -> {
+            try {
+                HttpResponse<InputStream> response = send(request);
+                if (!res.complete(response)) {
+                    // Cancelled while waiting
+                    response.body().close();
+                }
+            } catch (IOException | RuntimeException e) {
+                res.completeExceptionally(e);
+            }
+        });
+        return res;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a response body along with the headers needed to interpret it.
+ *
+ * @param <T> The type the body is converted into
+ * @since 1.3
+ */
+@FunctionalInterface
+interface RawHandler<T> {
+
+    /**
+     * Handles a response body.
+     *
+     * @param body        The decoded body
+     * @param length      The length of {@code body}, or -1 if unknown
+     * @param contentType The {@code Content-Type} header, or {@code null}
+     * @return The converted body
+     * @throws IOException If the body could not be read or converted
+     */
+    T handle(InputStream body, long length, String contentType) throws IOException;
+}
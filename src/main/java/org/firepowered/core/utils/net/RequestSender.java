@@ -0,0 +1,253 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+
+import org.firepowered.core.utils.metrics.Histogram;
+import org.firepowered.core.utils.metrics.Metrics;
+
+/**
+ * Sends the requests made by {@link GenericHttpGet}: applies the timeout and
+ * the current {@link Deadline}, follows redirects, sends each hop through the
+ * current transport and circuit breaker, and records it in {@link Metrics} and
+ * as an {@link HttpRequestEvent}.
+ *
+ * @since 1.3
+ */
+final class RequestSender {
+
+    /** The {@code 307 Temporary Redirect} status. */
+    private static final int HTTP_TEMPORARY_REDIRECT = 307;
+
+    /** The {@code 308 Permanent Redirect} status. */
+    private static final int HTTP_PERMANENT_REDIRECT = 308;
+
+    /** The time until the response headers of each request arrived. */
+    private static final Histogram requestDuration = Metrics.histogram("fp_http_request_duration_seconds");
+
+    private RequestSender() {
+    }
+
+    /**
+     * Sends a GET request within the {@link GenericHttpGet#getTimeout() timeout},
+     * sending the validators of {@code cached} if given.
+     *
+     * @param uri    The URI
+     * @param cached The cached response to revalidate, or {@code null}
+     * @return The response, whose body must be closed
+     * @throws IOException If there was an error sending the request
+     */
+    static HttpResponse<InputStream> send(URI uri, HttpCache.Entry cached) throws IOException {
+        HttpRequest.Builder request = newRequest(uri, GenericHttpGet.getTimeout())
+                .header("Accept-Encoding", "gzip, deflate");
+        if (cached != null) {
+            if (cached.etag() != null) {
+                request.header("If-None-Match", cached.etag());
+            }
+            if (cached.lastModified() != null) {
+                request.header("If-Modified-Since", cached.lastModified());
+            }
+        }
+        return send(request.build());
+    }
+
+    /**
+     * Creates a GET request which times out after {@code timeout} or when the
+     * current {@link Deadline} expires, whichever comes first.
+     *
+     * @param uri     The URI
+     * @param timeout The timeout, or {@code null} to only use the deadline
+     * @return The request
+     * @throws HttpTimeoutException If the deadline already expired
+     */
+    static HttpRequest.Builder newRequest(URI uri, Duration timeout) throws HttpTimeoutException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            Duration remaining = deadline.remaining();
+            if (remaining.isNegative() || remaining.isZero()) {
+                throw new HttpTimeoutException("Deadline exceeded");
+            }
+            if (timeout == null || remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
+            }
+        }
+        if (timeout != null) {
+            request.timeout(timeout);
+        }
+        return request;
+    }
+
+    /**
+     * Sends a request, following up to {@value GenericHttpGet#MAX_REDIRECTS}
+     * redirects. Each one is sent as a new request, within the time left of the
+     * timeout of the first.
+     *
+     * @param request The request
+     * @return The last response, whose body must be closed
+     * @throws IOException If there was an error sending a request
+     */
+    static HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+        long start = System.nanoTime();
+        for (int redirects = 0;; redirects++) {
+            HttpResponse<InputStream> response = sendOnce(request);
+            URI location = redirects < GenericHttpGet.MAX_REDIRECTS ? location(request.uri(), response) : null;
+            if (location == null) {
+                return response;
+            }
+            response.body().close();
+
+            HttpRequest.Builder next = HttpRequest.newBuilder(location).GET();
+            request.headers().map().forEach((name, values) -> values.forEach(value -> next.header(name, value)));
+            request.version().ifPresent(next::version);
+            if (request.timeout().isPresent()) {
+                long remaining = request.timeout().get().toNanos() - (System.nanoTime() - start);
+                if (remaining <= 0) {
+                    throw new HttpTimeoutException("Timed out following redirects");
+                }
+                next.timeout(Duration.ofNanos(remaining));
+            }
+            start = System.nanoTime();
+            request = next.build();
+        }
+    }
+
+    /**
+     * Gets the URI a response to a request for {@code from} redirects to.
+     *
+     * @return The URI, or {@code null} if the response is not a redirect which
+     *         can be followed
+     */
+    private static URI location(URI from, HttpResponse<?> response) {
+        switch (response.statusCode()) {
+        case HttpURLConnection.HTTP_MOVED_PERM:
+        case HttpURLConnection.HTTP_MOVED_TEMP:
+        case HttpURLConnection.HTTP_SEE_OTHER:
+        case HTTP_TEMPORARY_REDIRECT:
+        case HTTP_PERMANENT_REDIRECT:
+            break;
+        default:
+            return null;
+        }
+        String location = ResponseBody.header(response, "Location");
+        if (location == null) {
+            return null;
+        }
+        URI to;
+        try {
+            to = from.resolve(location.strip());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String scheme = to.getScheme();
+        if (to.getHost() == null || !"https".equalsIgnoreCase(scheme)
+                && ("https".equalsIgnoreCase(from.getScheme()) || !"http".equalsIgnoreCase(scheme))) {
+            // Never downgrade from HTTPS
+            return null;
+        }
+        return to;
+    }
+
+    /**
+     * Sends a request through the current transport, unless the
+     * {@link GenericHttpGet#getCircuitBreaker() circuit breaker} rejects it. The
+     * body of the response must be closed.
+     */
+    private static HttpResponse<InputStream> sendOnce(HttpRequest request) throws IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        boolean metered = Metrics.isEnabled();
+        if (!metered && !event.isEnabled()) {
+            return sendThroughBreaker(request);
+        }
+        long start = metered ? System.nanoTime() : 0;
+        event.begin();
+        try {
+            HttpResponse<InputStream> response = sendThroughBreaker(request);
+            event.end();
+            if (metered) {
+                requestDuration.record(System.nanoTime() - start);
+                if (response.statusCode() >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                    Metrics.counter("fp_http_errors_total", "type", "status_" + response.statusCode()).increment();
+                }
+            }
+            if (event.shouldCommit()) {
+                event.url = withoutQuery(request.uri());
+                event.status = response.statusCode();
+                event.bytes = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+                event.commit();
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            event.end();
+            if (metered) {
+                requestDuration.record(System.nanoTime() - start);
+                Metrics.counter("fp_http_errors_total", "type", e.getClass().getSimpleName()).increment();
+            }
+            if (event.shouldCommit()) {
+                event.url = withoutQuery(request.uri());
+                event.bytes = -1;
+                event.error = e.getClass().getSimpleName();
+                event.commit();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the query string and fragment of a URI, which leaves the part
+     * shared by requests to the same endpoint and never contains an API key.
+     *
+     * @param uri The URI
+     * @return The URI without its query string and fragment
+     */
+    static String withoutQuery(URI uri) {
+        String url = uri.toString();
+        int end = url.indexOf('?');
+        if (end < 0) {
+            end = url.indexOf('#');
+        }
+        return end < 0 ? url : url.substring(0, end);
+    }
+
+    private static HttpResponse<InputStream> sendThroughBreaker(HttpRequest request) throws IOException {
+        HttpTransport transport = GenericHttpGet.transport();
+        CircuitBreaker circuitBreaker = GenericHttpGet.getCircuitBreaker();
+        if (circuitBreaker == null) {
+            return transport.send(request);
+        }
+        CircuitBreaker.Circuit circuit = circuitBreaker.circuit(request.uri());
+        int generation = circuit.acquire();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = transport.send(request);
+            circuit.record(generation, response.statusCode() < HttpURLConnection.HTTP_INTERNAL_ERROR,
+                    System.nanoTime() - start);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            circuit.record(generation, false, System.nanoTime() - start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.HttpURLConnection;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the bodies of the responses received by {@link GenericHttpGet}:
+ * checks the status, decodes any compression, and counts the bytes.
+ *
+ * @since 1.3
+ */
+final class ResponseBody {
+
+    /** Response body bytes received from the network, before decoding. */
+    static final LongAdder wireBytes = new LongAdder();
+
+    /** Response body bytes after decoding. */
+    static final LongAdder decodedBytes = new LongAdder();
+
+    private ResponseBody() {
+    }
+
+    /**
+     * Gets the response body, decoding it according to its
+     * {@code Content-Encoding}. An error status, or a redirect which was not
+     * followed, is thrown as an {@link HttpStatusException}, whose message does
+     * not contain any API key.
+     *
+     * @param response The response
+     * @return The decoded body, which must be closed
+     * @throws IOException If the status is an error or a redirect, or the body
+     *                     could not be decoded
+     */
+    static InputStream open(HttpResponse<InputStream> response) throws IOException {
+        InputStream in = response.body();
+        int status = response.statusCode();
+        if (status >= HttpURLConnection.HTTP_MULT_CHOICE) {
+            in.close();
+            throw new HttpStatusException(status, response.request().uri().toString());
+        }
+
+        in = new CountingInputStream(in, wireBytes);
+        String encoding = header(response, "Content-Encoding");
+        if (encoding != null) {
+            encoding = encoding.strip().toLowerCase();
+            if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+                in = new GZIPInputStream(in);
+            } else if (encoding.equals("deflate")) {
+                in = inflate(in);
+            }
+        }
+        return new CountingInputStream(in, decodedBytes);
+    }
+
+    /**
+     * Decodes a {@code deflate} body. This should be zlib-wrapped, but some
+     * servers send raw deflate data, so the header is checked first.
+     */
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        byte[] header = pushback.readNBytes(2);
+        pushback.unread(header);
+        boolean zlib = header.length == 2 && (header[0] & 0x0f) == 8
+                && ((header[0] & 0xff) << 8 | (header[1] & 0xff)) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(pushback, inflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // Only freed by InflaterInputStream if it created the Inflater
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads a whole body. With a known length the body is read straight into an
+     * array of that size, otherwise it is read until the end of the stream.
+     *
+     * @param in     The body
+     * @param length The length of the body, or -1 if unknown
+     * @return The body
+     * @throws IOException If the body could not be read or is shorter than
+     *                     {@code length}
+     */
+    static byte[] read(InputStream in, long length) throws IOException {
+        if (length >= 0 && length < Integer.MAX_VALUE - 8) {
+            byte[] body = new byte[(int) length];
+            int n = in.readNBytes(body, 0, body.length);
+            if (n < body.length) {
+                throw new EOFException("Response body ended after " + n + " of " + length + " bytes");
+            }
+            // Reach the end of the stream, so the connection is reused rather than
+            // closed when the body is closed
+            in.read();
+            return body;
+        }
+
+        return in.readAllBytes();
+    }
+
+    /**
+     * Gets the length of the decoded response body from its
+     * {@code Content-Length}.
+     *
+     * @param response The response
+     * @return The length, or -1 if it is not known or the body is compressed
+     */
+    static long length(HttpResponse<?> response) {
+        String encoding = header(response, "Content-Encoding");
+        if (encoding != null && !encoding.strip().equalsIgnoreCase("identity")) {
+            return -1;
+        }
+        return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    }
+
+    /**
+     * Gets the first value of a header of a response.
+     *
+     * @param response The response
+     * @param name     The name of the header
+     * @return The value, or {@code null} if the response does not have it
+     */
+    static String header(HttpResponse<?> response, String name) {
+        return response.headers().firstValue(name).orElse(null);
+    }
+
+    /**
+     * Gets the charset from a {@code Content-Type} header.
+     *
+     * @param contentType The header, may be {@code null}
+     * @return The charset, or UTF-8 if there is none or it is not supported
+     */
+    static Charset charset(String contentType) {
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                param = param.strip();
+                if (param.regionMatches(true, 0, "charset=", 0, 8)) {
+                    String name = param.substring(8).strip();
+                    if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+                        name = name.substring(1, name.length() - 1);
+                    }
+                    try {
+                        return Charset.forName(name);
+                    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
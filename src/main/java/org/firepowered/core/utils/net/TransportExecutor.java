@@ -0,0 +1,35 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.util.concurrent.ExecutorService;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+
+/**
+ * Holds the executor {@link HttpTransport#sendAsync(java.net.http.HttpRequest)}
+ * runs blocking sends on by default. It is created when first used and shared
+ * by every transport. Its threads are daemon threads, so it is never shut down.
+ */
+final class TransportExecutor {
+
+    /** Runs each send on its own thread. */
+    static final ExecutorService EXECUTOR = TaskExecutors.newPerTaskExecutor("fp-http-async-");
+
+    private TransportExecutor() {
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Percent-encoding of URL components as described in
+ * <a href="https://www.rfc-editor.org/rfc/rfc3986#section-2.1">RFC 3986</a>.
+ * All characters except the unreserved ones ({@code [A-Za-z0-9-._~]}) are
+ * encoded as their UTF-8 bytes.
+ * <p>
+ * Unlike {@link java.net.URLEncoder URLEncoder}, these methods append straight
+ * into an existing buffer and {@link #encodedLength(CharSequence)} allows that
+ * buffer to be sized exactly up front.
+ *
+ * @since 1.3
+ */
+public final class UrlEncoding {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+            UNRESERVED[Character.toLowerCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['-'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['~'] = true;
+    }
+
+    private UrlEncoding() {
+    }
+
+    /**
+     * Percent-encodes {@code str}.
+     *
+     * @param str The text to encode, must not be {@code null}
+     * @return The encoded text, which is {@code str} itself if nothing needed to
+     *         be encoded
+     */
+    public static String encode(String str) {
+        int len = encodedLength(str);
+        if (len == str.length()) {
+            return str;
+        }
+        return encode(str, new StringBuilder(len)).toString();
+    }
+
+    /**
+     * Returns the length of {@code str} once percent-encoded.
+     *
+     * @param str The text, must not be {@code null}
+     * @return The encoded length
+     */
+    public static int encodedLength(CharSequence str) {
+        int len = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                len += UNRESERVED[c] ? 1 : 3;
+            } else if (c < 0x800) {
+                len += 6;
+            } else if (isSurrogatePair(str, i)) {
+                len += 12;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are encoded as '?'
+                len += 3;
+            } else {
+                len += 9;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Percent-encodes {@code str}, appending the result to {@code out}.
+     *
+     * @param str The text to encode, must not be {@code null}
+     * @param out The buffer to append to
+     * @return {@code out}
+     */
+    public static StringBuilder encode(CharSequence str, StringBuilder out) {
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                if (UNRESERVED[c]) {
+                    out.append(c);
+                } else {
+                    appendByte(out, c);
+                }
+            } else if (c < 0x800) {
+                appendByte(out, 0xc0 | (c >> 6));
+                appendByte(out, 0x80 | (c & 0x3f));
+            } else if (isSurrogatePair(str, i)) {
+                int cp = Character.toCodePoint(c, str.charAt(++i));
+                appendByte(out, 0xf0 | (cp >> 18));
+                appendByte(out, 0x80 | ((cp >> 12) & 0x3f));
+                appendByte(out, 0x80 | ((cp >> 6) & 0x3f));
+                appendByte(out, 0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                appendByte(out, '?');
+            } else {
+                appendByte(out, 0xe0 | (c >> 12));
+                appendByte(out, 0x80 | ((c >> 6) & 0x3f));
+                appendByte(out, 0x80 | (c & 0x3f));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the length of the query string {@link #encodeQuery(Map, StringBuilder)}
+     * creates.
+     *
+     * @param params The parameters, must not be {@code null}
+     * @return The encoded length
+     * @since 1.3
+     */
+    public static int queryLength(Map<String, String> params) {
+        int len = Math.max(0, 2 * params.size() - 1);
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            len += encodedLength(param.getKey()) + encodedLength(String.valueOf(param.getValue()));
+        }
+        return len;
+    }
+
+    /**
+     * Encodes parameters as a query string ({@code key1=value1&key2=value2},
+     * etc.), appending the result to {@code out}. Keys and values are
+     * percent-encoded and the parameters are sorted by key, so the same
+     * parameters always give the same query string whatever the iteration order
+     * of {@code params}. A {@code null} value is encoded as {@code null}.
+     *
+     * @param params The parameters, must not be {@code null}
+     * @param out    The buffer to append to
+     * @return {@code out}
+     * @since 1.3
+     */
+    public static StringBuilder encodeQuery(Map<String, String> params, StringBuilder out) {
+        Iterable<String> keys;
+        if (params instanceof SortedMap && ((SortedMap<String, String>) params).comparator() == null) {
+            keys = params.keySet();
+        } else {
+            String[] sorted = params.keySet().toArray(new String[0]);
+            Arrays.sort(sorted);
+            keys = Arrays.asList(sorted);
+        }
+        boolean first = true;
+        for (String key : keys) {
+            if (!first) {
+                out.append('&');
+            }
+            first = false;
+            encode(key, out).append('=');
+            encode(String.valueOf(params.get(key)), out);
+        }
+        return out;
+    }
+
+    private static boolean isSurrogatePair(CharSequence str, int i) {
+        return Character.isHighSurrogate(str.charAt(i)) && i + 1 < str.length()
+                && Character.isLowSurrogate(str.charAt(i + 1));
+    }
+
+    private static void appendByte(StringBuilder out, int b) {
+        out.append('%').append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.firepowered.core.utils.metrics.Histogram;
+import org.firepowered.core.utils.metrics.Metrics;
+import org.firepowered.core.utils.net.Deadline;
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.net.HttpTransport;
+
+/**
+ * The settings of a {@link Builder} which apply to each call rather than to
+ * the URL, shared by the builder and the {@link PreparedRequest PreparedRequests}
+ * created from it so both make their calls the same way.
+ * <p>
+ * Instances are immutable apart from the histogram, which is looked up on the
+ * first metered call, and are thread-safe.
+ */
+final class ApiCall {
+
+    private final String apiInterface;
+    private final String method;
+    private final String version;
+    private final Duration timeout;
+    private final HttpTransport transport;
+
+    /**
+     * The duration of the calls to the interface and method, or {@code null} if
+     * no metered call was made yet.
+     */
+    private volatile Histogram duration;
+
+    /**
+     * Creates the settings for calls to a method.
+     *
+     * @param apiInterface The interface
+     * @param method       The method
+     * @param version      The version
+     * @param timeout      The time each call may take, or {@code null}
+     * @param transport    The transport to send each call through, or
+     *                     {@code null} to use the one of {@link GenericHttpGet}
+     */
+    ApiCall(String apiInterface, String method, String version, Duration timeout, HttpTransport transport) {
+        this.apiInterface = apiInterface;
+        this.method = method;
+        this.version = version;
+        this.timeout = timeout;
+        this.transport = transport;
+    }
+
+    /**
+     * Runs a call within the timeout and with the transport, if they are set,
+     * recording its duration and any error in {@link Metrics} per interface and
+     * method, and as a {@link SteamApiCallEvent} if it took at least its
+     * threshold.
+     *
+     * @param <T>  The type of the response
+     * @param call The call
+     * @return The response
+     * @throws IOException If there was an error sending the request
+     */
+    <T> T run(Deadline.Task<T, IOException> call) throws IOException {
+        HttpTransport transport = this.transport;
+        Deadline.Task<T, IOException> scoped = transport == null ? call
+                : () -> GenericHttpGet.withTransport(transport, call);
+        Deadline.Task<T, IOException> timed = timeout == null ? scoped : () -> Deadline.after(timeout).call(scoped);
+        SteamApiCallEvent event = new SteamApiCallEvent();
+        boolean metered = Metrics.isEnabled();
+        if (!metered && !event.isEnabled()) {
+            return timed.run();
+        }
+
+        Histogram duration = this.duration;
+        if (metered && duration == null) {
+            duration = Metrics.histogram("fp_steam_api_call_duration_seconds", "interface", apiInterface, "method",
+                    method);
+            this.duration = duration;
+        }
+        long start = metered ? System.nanoTime() : 0;
+        event.begin();
+        try {
+            T res = timed.run();
+            event.end();
+            if (metered) {
+                duration.record(System.nanoTime() - start);
+            }
+            commit(event, null);
+            return res;
+        } catch (IOException | RuntimeException e) {
+            event.end();
+            if (metered) {
+                duration.record(System.nanoTime() - start);
+                Metrics.counter("fp_steam_api_errors_total", "interface", apiInterface, "method", method, "type",
+                        e.getClass().getSimpleName()).increment();
+            }
+            commit(event, e.getClass().getSimpleName());
+            throw e;
+        }
+    }
+
+    /**
+     * Commits an API call event if it took at least its threshold.
+     */
+    private void commit(SteamApiCallEvent event, String error) {
+        if (event.shouldCommit()) {
+            event.apiInterface = apiInterface;
+            event.method = method;
+            event.version = version;
+            event.error = error;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of Steam Web API keys which spreads requests across them. Set it on a
+ * builder with {@link Builder#keyPool(ApiKeyPool)} and each call draws the
+ * least-loaded key which still has quota left.
+ * <p>
+ * Each key may be used for {@code quota} requests per {@code window}, after
+ * which it is taken out of rotation until the window resets. A key which is
+ * answered with {@code 429 Too Many Requests} is also taken out of rotation for
+ * {@code cooldown}. All counters are lock-free.
+ * <p>
+ * Keys are identified by their index in the constructor arguments. The key
+ * values are copied when the pool is created and never appear in
+ * {@link #toString()}, messages, or statistics.
+ *
+ * @since 1.3
+ */
+public final class ApiKeyPool {
+
+    /** The documented daily request limit of a Steam Web API key. */
+    public static final long STEAM_DAILY_QUOTA = 100_000;
+
+    private final Key[] keys;
+    private final long quota;
+    private final long windowMillis;
+    private final long cooldownMillis;
+
+    /**
+     * A key drawn from the pool for a single request.
+     */
+    static final class Lease {
+
+        private final Key key;
+        private final long cooldownMillis;
+
+        private Lease(Key key, long cooldownMillis) {
+            this.key = key;
+            this.cooldownMillis = cooldownMillis;
+        }
+
+        /**
+         * Gets the key value. The array must not be modified.
+         *
+         * @return The key
+         */
+        char[] value() {
+            return key.value;
+        }
+
+        /**
+         * Reports that the server answered {@code 429 Too Many Requests} for this
+         * key, taking it out of rotation for the cooldown.
+         */
+        void throttled() {
+            key.throttles.increment();
+            key.disabledUntil = System.currentTimeMillis() + cooldownMillis;
+        }
+    }
+
+    private static final class Key {
+
+        private final char[] value;
+
+        /** Requests in the current window. */
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong windowStart;
+        private final LongAdder totalRequests = new LongAdder();
+        private final LongAdder throttles = new LongAdder();
+        private volatile long disabledUntil;
+
+        private Key(char[] value, long now) {
+            this.value = value.clone();
+            this.windowStart = new AtomicLong(now);
+        }
+    }
+
+    /**
+     * Creates a new pool where each key is allowed {@link #STEAM_DAILY_QUOTA}
+     * requests per day and is taken out of rotation for five minutes after a
+     * {@code 429} response.
+     *
+     * @param keys The keys, there must be at least one and none may be empty
+     */
+    public ApiKeyPool(char[]... keys) {
+        this(STEAM_DAILY_QUOTA, Duration.ofDays(1), Duration.ofMinutes(5), keys);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param quota    The number of requests each key may make per
+     *                 {@code window}, must be greater than 0
+     * @param window   The period after which the quota resets
+     * @param cooldown How long a key is taken out of rotation after a {@code 429}
+     *                 response
+     * @param keys     The keys, there must be at least one and none may be empty
+     */
+    public ApiKeyPool(long quota, Duration window, Duration cooldown, char[]... keys) {
+        assert quota > 0 && keys.length > 0;
+        long now = System.currentTimeMillis();
+        this.keys = new Key[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            assert keys[i] != null && keys[i].length > 0 : "Empty API key at index " + i;
+            this.keys[i] = new Key(keys[i], now);
+        }
+        this.quota = quota;
+        this.windowMillis = window.toMillis();
+        this.cooldownMillis = cooldown.toMillis();
+    }
+
+    /**
+     * Gets the number of keys in this pool.
+     *
+     * @return The number of keys
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the number of requests made with a key since the pool was created.
+     *
+     * @param index The index of the key
+     * @return The number of requests
+     */
+    public long getRequests(int index) {
+        return keys[index].totalRequests.sum();
+    }
+
+    /**
+     * Gets the number of {@code 429} responses for a key since the pool was
+     * created.
+     *
+     * @param index The index of the key
+     * @return The number of throttled requests
+     */
+    public long getThrottles(int index) {
+        return keys[index].throttles.sum();
+    }
+
+    /**
+     * Returns whether a key is currently in rotation.
+     *
+     * @param index The index of the key
+     * @return {@code true} if the key has quota left and is not cooling down
+     */
+    public boolean isAvailable(int index) {
+        Key key = keys[index];
+        long now = System.currentTimeMillis();
+        resetWindow(key, now);
+        return key.disabledUntil <= now && key.requests.get() < quota;
+    }
+
+    /**
+     * Draws the least-loaded key which is in rotation, counting a request against
+     * it.
+     *
+     * @return The key
+     * @throws IOException If every key is out of quota or cooling down
+     */
+    Lease acquire() throws IOException {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Key best = null;
+            long bestRequests = Long.MAX_VALUE;
+            for (Key key : keys) {
+                resetWindow(key, now);
+                long requests = key.requests.get();
+                if (key.disabledUntil <= now && requests < quota && requests < bestRequests) {
+                    best = key;
+                    bestRequests = requests;
+                }
+            }
+            if (best == null) {
+                throw new IOException("All " + keys.length + " API keys are out of quota or throttled");
+            }
+            // Another thread may have taken the last request in the meantime
+            if (best.requests.compareAndSet(bestRequests, bestRequests + 1)) {
+                best.totalRequests.increment();
+                return new Lease(best, cooldownMillis);
+            }
+        }
+    }
+
+    private void resetWindow(Key key, long now) {
+        long start = key.windowStart.get();
+        if (now - start >= windowMillis && key.windowStart.compareAndSet(start, now)) {
+            key.requests.set(0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ApiKeyPool[" + keys.length + " keys]";
+    }
+
+    /**
+     * Clears the key values held by this pool. The pool must not be used
+     * afterwards.
+     */
+    public void destroy() {
+        for (Key key : keys) {
+            Arrays.fill(key.value, '\0');
+        }
+    }
+}
@@ -1,23 +1,35 @@
 package org.firepowered.core.utils.steam;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.text.MessageFormat;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import org.firepowered.core.utils.StringUtils;
+import org.firepowered.core.utils.net.BodyHandler;
+import org.firepowered.core.utils.net.Deadline;
 import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.net.HttpStatusException;
+import org.firepowered.core.utils.net.HttpTransport;
+import org.firepowered.core.utils.net.UrlEncoding;
 
 /**
  * A builder for an API call. It is necessary to specify an interface with
  * {@link #apiInterface(String)}, a method with {@link #method(String)}, and a
  * version with {@link #version(String)}. Some API calls may require a key, in
- * which {@link #key(char[])} must be specified.
+ * which {@link #key(char[])} or {@link #keyPool(ApiKeyPool)} must be specified.
  *
  * @since 1.2
  */
@@ -31,13 +43,23 @@ public class Builder implements Cloneable {
     public enum Format {
 
         /** JSON format, this is the default */
-        JSON,
+        JSON("json"),
 
         /** XML format */
-        XML,
+        XML("xml"),
 
-        /** VDF (Valve data format) format */
-        VDF
+        /**
+         * VDF (Valve data format) format, which can be read with
+         * {@link org.firepowered.core.utils.vdf.VdfNode VdfNode}
+         */
+        VDF("vdf");
+
+        /** The value of the {@code format} parameter. */
+        private final String param;
+
+        Format(String param) {
+            this.param = param;
+        }
     }
 
     @Override
@@ -45,7 +67,7 @@ public class Builder implements Cloneable {
         final int prime = 31;
         int result = 1;
         result = prime * result + Arrays.hashCode(key);
-        result = prime * result + Objects.hash(apiInterface, format, method, param, version);
+        result = prime * result + Objects.hash(apiInterface, format, keyPool, method, param, timeout, transport, version);
         return result;
     }
 
@@ -59,18 +81,36 @@ public class Builder implements Cloneable {
         }
         Builder other = (Builder) obj;
         return Objects.equals(apiInterface, other.apiInterface) && format == other.format
-                && Arrays.equals(key, other.key) && Objects.equals(method, other.method)
-                && Objects.equals(param, other.param) && Objects.equals(version, other.version);
+                && Arrays.equals(key, other.key) && keyPool == other.keyPool && Objects.equals(method, other.method)
+                && Objects.equals(param, other.param) && Objects.equals(timeout, other.timeout)
+                && transport == other.transport && Objects.equals(version, other.version);
     }
 
-    private static final String BASE_URL_FMT = "http://api.steampowered.com/{0}/{1}/{2}/";
+    /** The base URL of the Steam Web API. */
+    static final String BASE_URL = "http://api.steampowered.com/";
 
     private String apiInterface;
     private String method;
     private String version;
     private char[] key;
+    private ApiKeyPool keyPool;
     private Format format = Format.JSON;
     private Map<String, String> param;
+    private Duration timeout;
+    private HttpTransport transport;
+
+    /**
+     * The URL up to and including the format, which only depends on the
+     * interface, method, version, and format. This is {@code null} if one of those
+     * changed since the last call to {@link #build()}. The key is never cached.
+     */
+    private String prefix;
+
+    /**
+     * The settings which apply to each call, or {@code null} if the interface,
+     * method, version, timeout, or transport changed since the last call.
+     */
+    private ApiCall options;
 
     /**
      * Creates a new empty builder.
@@ -89,6 +129,8 @@ public class Builder implements Cloneable {
     public Builder apiInterface(String apiInterface) {
         assert !StringUtils.isEmpty(apiInterface);
         this.apiInterface = apiInterface;
+        this.prefix = null;
+        this.options = null;
         return this;
     }
 
@@ -101,6 +143,8 @@ public class Builder implements Cloneable {
     public Builder method(String method) {
         assert !StringUtils.isEmpty(method);
         this.method = method;
+        this.prefix = null;
+        this.options = null;
         return this;
     }
 
@@ -118,6 +162,8 @@ public class Builder implements Cloneable {
             version = "v" + version;
         }
         this.version = version;
+        this.prefix = null;
+        this.options = null;
         return this;
     }
 
@@ -130,6 +176,7 @@ public class Builder implements Cloneable {
     public Builder key(char[] key) {
         assert key != null && key.length > 0;
         this.key = key;
+        this.keyPool = null;
         return this;
     }
 
@@ -145,6 +192,63 @@ public class Builder implements Cloneable {
     public Builder key(String key) {
         assert !StringUtils.isEmpty(key);
         this.key = key.toCharArray();
+        this.keyPool = null;
+        return this;
+    }
+
+    /**
+     * Sets a pool of API keys to draw from. Each call made with this builder uses
+     * the least-loaded key in the pool which is in rotation, and a key answered
+     * with {@code 429 Too Many Requests} is taken out of rotation and the call is
+     * retried with another one. This replaces any key set with
+     * {@link #key(char[])}.
+     * <p>
+     * The key is only added to the URL when the call is made, so {@link #build()}
+     * does not contain one.
+     *
+     * @param keyPool The pool, may not be {@code null}
+     * @return this
+     * @since 1.3
+     */
+    public Builder keyPool(ApiKeyPool keyPool) {
+        assert keyPool != null;
+        this.keyPool = keyPool;
+        this.key = null;
+        return this;
+    }
+
+    /**
+     * Sets the time each call made with this builder may take, including any
+     * retries with another key from the {@link #keyPool(ApiKeyPool) key pool}.
+     * The call fails with an {@link java.net.http.HttpTimeoutException
+     * HttpTimeoutException} once it is up. A {@link Deadline} the call is made
+     * within still applies if it expires first.
+     *
+     * @param timeout The timeout, or {@code null} to only use the timeout of
+     *                {@link GenericHttpGet#getTimeout()}
+     * @return this
+     * @since 1.3
+     */
+    public Builder timeout(Duration timeout) {
+        this.timeout = timeout;
+        this.options = null;
+        return this;
+    }
+
+    /**
+     * Sets the transport calls made with this builder are sent through, for
+     * example the one of a {@link LocalSteamServer}. Other calls keep using the
+     * transport of {@link GenericHttpGet}.
+     *
+     * @param transport The transport, or {@code null} to use the one of
+     *                  {@link GenericHttpGet}
+     * @return this
+     * @see GenericHttpGet#withTransport(HttpTransport, Deadline.Task)
+     * @since 1.3
+     */
+    public Builder transport(HttpTransport transport) {
+        this.transport = transport;
+        this.options = null;
         return this;
     }
 
@@ -162,6 +266,7 @@ public class Builder implements Cloneable {
             format = Format.JSON;
         }
         this.format = format;
+        this.prefix = null;
         return this;
     }
 
@@ -247,7 +352,7 @@ public class Builder implements Cloneable {
     public Object clone() {
         try {
             Builder clone = (Builder) super.clone();
-            clone.param(new LinkedHashMap<>(param));
+            clone.param = new LinkedHashMap<>(param);
             return clone;
         } catch (CloneNotSupportedException e) {
             // will not happen
@@ -262,31 +367,232 @@ public class Builder implements Cloneable {
      * @return The URL representing the builder
      */
     public String build() {
-        assert !(StringUtils.isEmpty(apiInterface) || StringUtils.isEmpty(method) || StringUtils.isEmpty(version))
-                : "An interface, method, and version must be specified";
+        return build(Collections.emptySet(), key);
+    }
 
-        StringBuilder url = new StringBuilder(MessageFormat.format(BASE_URL_FMT, apiInterface, method, version));
-        url.append("?format=").append(format.name().toLowerCase());
-        if (key != null && key.length > 0) {
-            url.append("&key=").append(new String(key));
+    /**
+     * Converts this builder into an immutable, thread-safe request template. The
+     * parameters named in {@code paramNames} are left out of the template and are
+     * given a value for each call with {@link PreparedRequest#bind(String...)}.
+     * Interface, method, and version must have been set prior to calling this.
+     * <p>
+     * Later changes to this builder do not affect the returned request.
+     *
+     * @param paramNames The names of the parameters which change for each call
+     * @return The prepared request
+     * @since 1.3
+     */
+    public PreparedRequest prepare(String... paramNames) {
+        return new PreparedRequest(build(new HashSet<>(Arrays.asList(paramNames)), null),
+                key == null ? null : key.clone(), keyPool, options(), paramNames);
+    }
+
+    /**
+     * Converts this builder into a URL, leaving out the given parameters.
+     *
+     * @param excluded The names of the parameters to leave out
+     * @param key      The key to add at the end, or {@code null}
+     * @return The URL representing the builder
+     */
+    private String build(Set<String> excluded, char[] key) {
+        String prefix = prefix();
+        int len = prefix.length() + keyLength(key);
+        for (Map.Entry<String, String> param : this.param.entrySet()) {
+            if (!excluded.contains(param.getKey())) {
+                len += 2 + UrlEncoding.encodedLength(param.getKey())
+                        + UrlEncoding.encodedLength(String.valueOf(param.getValue()));
+            }
         }
 
+        StringBuilder url = new StringBuilder(len).append(prefix);
         for (Map.Entry<String, String> param : this.param.entrySet()) {
-            url.append('&').append(param.getKey()).append('=').append(param.getValue());
+            if (!excluded.contains(param.getKey())) {
+                UrlEncoding.encode(param.getKey(), url.append('&'));
+                UrlEncoding.encode(String.valueOf(param.getValue()), url.append('='));
+            }
         }
-        return url.toString();
+        return appendKey(url, key).toString();
     }
 
     /**
-     * Performs an API call with the given builder's settings.
+     * Gets the cached {@link #prefix}, building it if needed.
+     *
+     * @return The URL up to and including the format
+     */
+    private String prefix() {
+        String prefix = this.prefix;
+        if (prefix == null) {
+            assert !(StringUtils.isEmpty(apiInterface) || StringUtils.isEmpty(method)
+                    || StringUtils.isEmpty(version)) : "An interface, method, and version must be specified";
+
+            // Only built once per configuration, so no need to size the buffer
+            StringBuilder url = new StringBuilder(BASE_URL);
+            url.append(apiInterface).append('/').append(method).append('/').append(version)
+                    .append("/?format=").append(format.param);
+            prefix = url.toString();
+            this.prefix = prefix;
+        }
+        return prefix;
+    }
+
+    /**
+     * Performs an API call with the given builder's settings. If a cache was set
+     * with {@link GenericHttpGet#setCache(org.firepowered.core.utils.net.HttpCache)
+     * GenericHttpGet.setCache(HttpCache)}, the response may be served from it.
      *
      * @return The response
      * @throws IOException If there was an error sending the request
      */
     public String call() throws IOException {
-        String url = build();
+        return withOptions(() -> send(build(), keyPool, GenericHttpGet::getString));
+    }
+
+    /**
+     * Performs an API call with the given builder's settings, passing the response
+     * body to {@code handler} as it arrives. This allows the response to be parsed
+     * incrementally, written to a file, or abandoned early without holding all of
+     * it in memory.
+     *
+     * @param <T>     The type the body is converted into
+     * @param handler Converts the response body
+     * @return The value returned by {@code handler}
+     * @throws IOException If there was an error sending the request or thrown by
+     *                     {@code handler}
+     * @since 1.3
+     */
+    public <T> T call(BodyHandler<T> handler) throws IOException {
+        return withOptions(() -> send(build(), keyPool, url -> GenericHttpGet.get(url, handler)));
+    }
+
+    /**
+     * Performs an API call with the given builder's settings and returns the
+     * response body as a stream. The caller must close the stream.
+     *
+     * @return The response body
+     * @throws IOException If there was an error sending the request
+     * @since 1.3
+     */
+    public InputStream callStream() throws IOException {
+        return withOptions(() -> send(build(), keyPool, GenericHttpGet::getStream));
+    }
+
+    /**
+     * Runs a call with the settings of this builder which apply to each call.
+     */
+    private <T> T withOptions(Deadline.Task<T, IOException> call) throws IOException {
+        return options().run(call);
+    }
+
+    /**
+     * Gets the settings of this builder which apply to each call.
+     */
+    private ApiCall options() {
+        ApiCall options = this.options;
+        if (options == null) {
+            options = new ApiCall(apiInterface, method, version, timeout, transport);
+            this.options = options;
+        }
+        return options;
+    }
+
+    /**
+     * Performs an API call with the given builder's settings and returns the
+     * response body as a channel. The caller must close the channel.
+     *
+     * @return The response body
+     * @throws IOException If there was an error sending the request
+     * @see #callStream()
+     * @since 1.3
+     */
+    public ReadableByteChannel callChannel() throws IOException {
+        return Channels.newChannel(callStream());
+    }
+
+    /**
+     * Sends a request to a URL created by a builder.
+     *
+     * @param <T> The type of the response
+     */
+    @FunctionalInterface
+    interface Request<T> {
+
+        /**
+         * Sends the request.
+         *
+         * @param url The URL, including the key
+         * @return The response
+         * @throws IOException If there was an error sending the request
+         */
+        T send(URL url) throws IOException;
+    }
+
+    /**
+     * Performs an API call to a URL created by a builder. If {@code keyPool} is
+     * given, a key drawn from it is added to the URL, and the call is retried with
+     * another key while the server answers {@code 429 Too Many Requests}.
+     *
+     * @param <T>     The type of the response
+     * @param url     The URL
+     * @param keyPool The pool to draw the key from, or {@code null} if the URL
+     *                already contains any key needed
+     * @param request Sends the request
+     * @return The response
+     * @throws IOException If there was an error sending the request, or no key in
+     *                     the pool is in rotation
+     */
+    static <T> T send(String url, ApiKeyPool keyPool, Request<T> request) throws IOException {
+        if (keyPool == null) {
+            return request.send(toURL(url));
+        }
+        for (int attempt = 1;; attempt++) {
+            ApiKeyPool.Lease lease = keyPool.acquire();
+            char[] key = lease.value();
+            StringBuilder withKey = new StringBuilder(url.length() + keyLength(key)).append(url);
+            try {
+                return request.send(toURL(appendKey(withKey, key).toString()));
+            } catch (HttpStatusException e) {
+                if (e.getStatusCode() != HttpStatusException.TOO_MANY_REQUESTS) {
+                    throw e;
+                }
+                lease.throttled();
+                if (attempt >= keyPool.size()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of characters {@link #appendKey(StringBuilder, char[])} adds.
+     *
+     * @param key The key, or {@code null}
+     * @return The length of {@code &key=} and the encoded key
+     */
+    static int keyLength(char[] key) {
+        return key == null ? 0 : 5 + UrlEncoding.encodedLength(CharBuffer.wrap(key));
+    }
+
+    /**
+     * Adds the key parameter to a URL. The key is encoded straight from the array
+     * so it is not copied into any other object.
+     *
+     * @param url The URL
+     * @param key The key, or {@code null} to add nothing
+     * @return {@code url}
+     */
+    static StringBuilder appendKey(StringBuilder url, char[] key) {
+        return key == null ? url : UrlEncoding.encode(CharBuffer.wrap(key), url.append("&key="));
+    }
+
+    /**
+     * Converts a URL created by a builder into a {@link URL}.
+     *
+     * @param url The URL
+     * @return The URL object
+     */
+    static URL toURL(String url) {
         try {
-            return GenericHttpGet.getString(new URL(url));
+            return new URL(url);
         } catch (MalformedURLException e) {
             // Consider as an internal error
             throw new AssertionError(e);
@@ -0,0 +1,191 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+import org.firepowered.core.utils.net.Deadline;
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.net.HttpTransport;
+
+/**
+ * Runs many blocking Steam lookups concurrently. Each lookup runs on its own
+ * thread from {@link TaskExecutors#newPerTaskExecutor(String)}, which are
+ * virtual threads when running on Java 21 or newer, and a {@link Semaphore}
+ * limits how many lookups are in flight at once.
+ * <p>
+ * Instances are thread-safe and should be {@link #close() closed} when no
+ * longer needed.
+ *
+ * @since 1.3
+ */
+public final class BulkResolver implements AutoCloseable {
+
+    /**
+     * The default number of lookups which may be in flight at once.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 256;
+
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a new resolver allowing {@link #DEFAULT_MAX_CONCURRENCY} lookups in
+     * flight at once.
+     */
+    public BulkResolver() {
+        this(DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param maxConcurrency The number of lookups which may be in flight at once,
+     *                       must be greater than 0
+     */
+    public BulkResolver(int maxConcurrency) {
+        assert maxConcurrency > 0 : "Concurrency must be positive";
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = TaskExecutors.newPerTaskExecutor("fp-bulk-resolver-");
+    }
+
+    /**
+     * Resolves many vanity urls at once.
+     *
+     * @param ids The vanityUrls, see {@link SteamApiWrapper#resolveVanityUrl(String)}
+     * @return A map of each distinct vanityUrl to its SteamID, in the iteration
+     *         order of {@code ids}. The value is {@code null} if the id could not
+     *         be resolved.
+     * @throws InterruptedException If interrupted while waiting for the lookups
+     */
+    public Map<String, SteamID> resolveVanityUrls(Collection<String> ids) throws InterruptedException {
+        return resolveAll(ids, id -> {
+            try {
+                return SteamApiWrapper.resolveVanityUrl(id);
+            } catch (SteamIDParserException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Gets the personaNames of many Steam users at once.
+     *
+     * @param ids The SteamIDs, see {@link SteamApiWrapper#getPersonaName(SteamID)}
+     * @return A map of each distinct SteamID to its personaName, in the iteration
+     *         order of {@code ids}. The value is {@code null} if the name could not
+     *         be retrieved.
+     * @throws InterruptedException If interrupted while waiting for the lookups
+     */
+    public Map<SteamID, String> getPersonaNames(Collection<SteamID> ids) throws InterruptedException {
+        return resolveAll(ids, SteamApiWrapper::getPersonaName);
+    }
+
+    /**
+     * Performs many API calls at once. The builders must not be modified until
+     * this method returns.
+     *
+     * @param builders The API calls, see {@link Builder#call()}
+     * @return The responses, in the same order as {@code builders}. A response is
+     *         {@code null} if there was an error sending that request.
+     * @throws InterruptedException If interrupted while waiting for the calls
+     */
+    public List<String> callAll(List<Builder> builders) throws InterruptedException {
+        return runAll(builders, builder -> {
+            try {
+                return builder.call();
+            } catch (IOException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Stops accepting new lookups. Lookups which are already in flight are allowed
+     * to complete.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <K, V> Map<K, V> resolveAll(Collection<K> keys, Function<K, V> lookup) throws InterruptedException {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<V> values = runAll(distinct, lookup);
+        Map<K, V> res = new LinkedHashMap<>();
+        for (int i = 0; i < distinct.size(); i++) {
+            res.put(distinct.get(i), values.get(i));
+        }
+        return res;
+    }
+
+    /**
+     * Runs {@code lookup} on every item, blocking while there are no permits left,
+     * and waits for all of them to complete.
+     */
+    private <T, R> List<R> runAll(List<T> items, Function<T, R> lookup) throws InterruptedException {
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        Deadline deadline = Deadline.current();
+        HttpTransport transport = GenericHttpGet.currentTransport();
+        try {
+            for (T item : items) {
+                permits.acquire();
+                try {
+                    futures.add(executor.submit(() -> {
+                        Deadline.Task<R, RuntimeException> task = () -> GenericHttpGet.withTransport(transport,
+                                () -> lookup.apply(item));
+                        try {
+                            return deadline == null ? task.run() : deadline.call(task);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            List<R> res = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                try {
+                    res.add(future.get());
+                } catch (ExecutionException e) {
+                    // Treat unexpected failures the same as a failed lookup
+                    res.add(null);
+                }
+            }
+            return res;
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+import org.firepowered.core.utils.net.ConnectionPool;
+import org.firepowered.core.utils.net.HttpTransport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A stand-in for the Steam community and Steam Web API servers, listening on the
+ * loopback interface. It answers the requests made by {@link SteamApiWrapper},
+ * {@link SteamID} and {@link BulkResolver} from the profiles added with
+ * {@link #addProfile(SteamID, String, String)}, and any other Web API call with
+ * the responses added with {@link #addResponse(String, String)}. Latency and
+ * errors can be added to every response, so throughput, caching, and failure
+ * handling can be tested without the real servers:
+ *
+ * <pre>
+ * try (LocalSteamServer steam = new LocalSteamServer()) {
+ *     steam.addProfile(SteamID.of("76561197960287930"), "gabelogannewell", "Rabscuttle");
+ *     steam.setLatency(Duration.ofMillis(20));
+ *     GenericHttpGet.withTransport(steam.getTransport(),
+ *             () -&gt; SteamID.of("https://steamcommunity.com/id/gabelogannewell"));
+ * }
+ * </pre>
+ * <p>
+ * The {@link #getTransport() transport} sends every request to this server,
+ * whatever its host, keeping the path and query.
+ * <p>
+ * The JDK server writes the headers and body of a response separately, so the
+ * body waits for the client's delayed ACK, adding about 40 ms to every request,
+ * unless the JVM is started with {@code -Dsun.net.httpserver.nodelay=true}. The
+ * property applies to every server in the JVM and is read when the first one is
+ * created, so it is left to the application; the tests and benchmarks set it.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @since 1.3
+ */
+public final class LocalSteamServer implements AutoCloseable {
+
+    /** The status of the errors added with {@link #setErrorRate(double)}. */
+    public static final int ERROR_STATUS = 503;
+
+    private static final String XML = "text/xml; charset=utf-8";
+    private static final String JSON = "application/json; charset=utf-8";
+
+    /**
+     * A Steam user known to the server.
+     */
+    private static final class Profile {
+
+        private final String steamID64;
+        private final String personaName;
+
+        Profile(String steamID64, String personaName) {
+            this.steamID64 = steamID64;
+            this.personaName = personaName;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpTransport transport;
+
+    /** The pool created by this server, closed with it, or {@code null}. */
+    private final ConnectionPool ownPool;
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    private final Map<String, Profile> vanityUrls = new ConcurrentHashMap<>();
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+
+    private volatile long latencyNanos;
+    private volatile double errorRate;
+
+    private final LongAdder requests = new LongAdder();
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates and starts a new server on a free port. Requests are sent to it
+     * through a new {@link ConnectionPool} with the default settings, which is
+     * closed with the server.
+     *
+     * @throws IOException If the server could not be started
+     */
+    public LocalSteamServer() throws IOException {
+        this(new ConnectionPool(), true);
+    }
+
+    /**
+     * Creates and starts a new server on a free port.
+     *
+     * @param pool The pool {@link #getTransport()} sends requests through, which
+     *             is left open when the server is closed
+     * @throws IOException If the server could not be started
+     */
+    public LocalSteamServer(ConnectionPool pool) throws IOException {
+        this(pool, false);
+    }
+
+    private LocalSteamServer(ConnectionPool pool, boolean owned) throws IOException {
+        assert pool != null;
+        this.ownPool = owned ? pool : null;
+        try {
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            if (owned) {
+                pool.close();
+            }
+            throw e;
+        }
+        this.executor = TaskExecutors.newPerTaskExecutor("fp-steam-local-");
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        this.transport = new HttpTransport() {
+
+            @Override
+            public HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+                return pool.send(redirect(request, base));
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+                try {
+                    return pool.sendAsync(redirect(request, base));
+                } catch (IOException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets a transport which sends every request to this server, see
+     * {@link org.firepowered.core.utils.net.GenericHttpGet#withTransport(HttpTransport, org.firepowered.core.utils.net.Deadline.Task)
+     * GenericHttpGet.withTransport} and {@link Builder#transport(HttpTransport)}.
+     *
+     * @return The transport
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Adds a user, who can then be looked up by SteamID and vanity URL, both on
+     * the community pages and through the {@code ISteamUser} API.
+     *
+     * @param id          The SteamID, must not be {@code null}
+     * @param vanityUrl   The custom URL, or {@code null} if there is none
+     * @param personaName The display name, must not be {@code null}
+     */
+    public void addProfile(SteamID id, String vanityUrl, String personaName) {
+        assert id != null && personaName != null;
+        Profile profile = new Profile(id.getSteamID64(), personaName);
+        profiles.put(profile.steamID64, profile);
+        if (vanityUrl != null) {
+            vanityUrls.put(vanityUrl.toLowerCase(), profile);
+        }
+    }
+
+    /**
+     * Adds a canned JSON response for a Web API call, which is returned whatever
+     * the query string. This takes precedence over the built-in
+     * {@code ISteamUser} responses.
+     *
+     * @param path The path of the call, for example
+     *             {@code /ISteamNews/GetNewsForApp/v0002/}
+     * @param json The response body, must not be {@code null}
+     */
+    public void addResponse(String path, String json) {
+        assert json != null;
+        responses.put(normalize(path), json);
+    }
+
+    /**
+     * Sets how long the server waits before answering each request.
+     *
+     * @param latency The latency, must not be negative
+     */
+    public void setLatency(Duration latency) {
+        assert !latency.isNegative();
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * Sets the fraction of requests answered with {@value #ERROR_STATUS}, chosen
+     * at random.
+     *
+     * @param errorRate The fraction, from 0 for none to 1 for all requests
+     */
+    public void setErrorRate(double errorRate) {
+        assert errorRate >= 0 && errorRate <= 1;
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Gets the number of requests received.
+     *
+     * @return The number of requests
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Gets the number of connections requests were received on. Each client
+     * address and port is counted once, so a connection which was kept alive
+     * for many requests counts as one.
+     *
+     * @return The number of connections
+     */
+    public int getConnections() {
+        return connections.size();
+    }
+
+    /**
+     * Stops the server, and closes its pool if it created one.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        if (ownPool != null) {
+            ownPool.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        connections.add(exchange.getRemoteAddress());
+        try {
+            long latency = latencyNanos;
+            if (latency > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(latency);
+                } catch (InterruptedException e) {
+                    // Stopped
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(ERROR_STATUS, -1);
+                return;
+            }
+
+            String path = normalize(exchange.getRequestURI().getRawPath());
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            String canned = responses.get(path);
+            if (canned != null) {
+                respond(exchange, 200, JSON, canned);
+            } else if (path.startsWith("/id/")) {
+                respondProfile(exchange, vanityUrls.get(segment(path, 4).toLowerCase()));
+            } else if (path.startsWith("/profiles/")) {
+                respondProfile(exchange, profiles.get(segment(path, 10)));
+            } else if (path.equalsIgnoreCase("/ISteamUser/ResolveVanityURL/v0001/")) {
+                Profile profile = vanityUrls.get(query.getOrDefault("vanityurl", "").toLowerCase());
+                respond(exchange, 200, JSON, profile == null
+                        ? "{\"response\":{\"success\":42,\"message\":\"No match\"}}"
+                        : "{\"response\":{\"steamid\":\"" + profile.steamID64 + "\",\"success\":1}}");
+            } else if (path.equalsIgnoreCase("/ISteamUser/GetPlayerSummaries/v0002/")) {
+                StringBuilder json = new StringBuilder("{\"response\":{\"players\":[");
+                boolean first = true;
+                for (String id : query.getOrDefault("steamids", "").split(",")) {
+                    Profile profile = profiles.get(id.strip());
+                    if (profile != null) {
+                        json.append(first ? "" : ",").append("{\"steamid\":\"").append(profile.steamID64)
+                                .append("\",\"personaname\":");
+                        quote(profile.personaName, json).append('}');
+                        first = false;
+                    }
+                }
+                respond(exchange, 200, JSON, json.append("]}}").toString());
+            } else {
+                respond(exchange, 404, "text/plain; charset=utf-8", "Not Found");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respondProfile(HttpExchange exchange, Profile profile) throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        if (profile == null) {
+            xml.append("<response>\n<error><![CDATA[The specified profile could not be found.]]></error>\n")
+                    .append("</response>");
+        } else {
+            xml.append("<profile>\n<steamID64>").append(profile.steamID64).append("</steamID64>\n")
+                    .append("<steamID><![CDATA[").append(profile.personaName).append("]]></steamID>\n")
+                    .append("</profile>");
+        }
+        respond(exchange, 200, XML, xml.toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Copies a request with its host replaced by {@code base}.
+     */
+    private static HttpRequest redirect(HttpRequest request, String base) throws IOException {
+        URI uri = request.uri();
+        String target = base + uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        HttpRequest.Builder copy;
+        try {
+            copy = HttpRequest.newBuilder(new URI(target));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        copy.method(request.method(), request.bodyPublisher().orElse(HttpRequest.BodyPublishers.noBody()));
+        request.headers().map().forEach((name, values) -> values.forEach(value -> copy.header(name, value)));
+        request.timeout().ifPresent(copy::timeout);
+        return copy.build();
+    }
+
+    /**
+     * Adds the trailing slash to a path, as Steam treats both the same.
+     */
+    private static String normalize(String path) {
+        return path.endsWith("/") ? path : path + "/";
+    }
+
+    /**
+     * Gets the decoded path segment starting at {@code start}.
+     */
+    private static String segment(String path, int start) {
+        return URLDecoder.decode(path.substring(start, path.indexOf('/', start)), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> res = new HashMap<>();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                int eq = param.indexOf('=');
+                String key = eq < 0 ? param : param.substring(0, eq);
+                String value = eq < 0 ? "" : param.substring(eq + 1);
+                res.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return res;
+    }
+
+    private static StringBuilder quote(String str, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"');
+    }
+}
@@ -0,0 +1,416 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+import org.firepowered.core.utils.net.Deadline;
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.net.HttpTransport;
+
+/**
+ * Walks the pages of a Steam Web API list endpoint. Each page is requested with
+ * the builder's parameters plus those returned by the previous page, for example
+ * a {@code start} offset, a {@code cursor}, or an {@code enddate}. The
+ * {@link PageDecoder} decides what those are for each endpoint:
+ *
+ * <pre>
+ * Builder news = SteamApiWrapper.newBuilder().apiInterface(SteamApiWrapper.INTERFACE_STEAMNEWS)
+ *         .method("GetNewsForApp").version("v0002").param("appid", "440").param("count", "100");
+ * try (Paginator&lt;NewsItem&gt; pages = new Paginator&lt;&gt;(news, body -&gt; {
+ *     List&lt;NewsItem&gt; items = JsonReader.read(body, "appnews.newsitems", r -&gt; r.nextList(NewsItem::decode));
+ *     return items.isEmpty() ? Page.last(items)
+ *             : Page.of(items, Map.of("enddate", String.valueOf(items.get(items.size() - 1).date - 1)));
+ * })) {
+ *     pages.stream().forEach(...);
+ * }
+ * </pre>
+ * <p>
+ * Pages are fetched lazily. With a prefetch depth greater than 0, a background
+ * thread requests up to that many pages ahead of the one being consumed, so the
+ * round trip for the next page overlaps with processing the current one. With a
+ * depth of 0 each page is only requested when it is needed.
+ * <p>
+ * A paginator can only be iterated once, either by page or by item, and is not
+ * thread-safe. It should be {@link #close() closed} if it is not iterated to
+ * the end, which stops any prefetching. An error while fetching a page is thrown
+ * as an {@link UncheckedIOException} when that page is reached. The background
+ * thread keeps the {@link Deadline} and the
+ * {@link GenericHttpGet#currentTransport() transport} of the thread which
+ * reached the first page.
+ *
+ * @param <T> The type of the items
+ * @since 1.3
+ */
+public final class Paginator<T> implements Iterable<T>, AutoCloseable {
+
+    /**
+     * A single page of results.
+     *
+     * @param <T> The type of the items
+     * @since 1.3
+     */
+    public static final class Page<T> {
+
+        private final List<T> items;
+        private final Map<String, String> next;
+
+        private Page(List<T> items, Map<String, String> next) {
+            this.items = Collections.unmodifiableList(items);
+            this.next = next;
+        }
+
+        /**
+         * Creates a page which is followed by another.
+         *
+         * @param <T>   The type of the items
+         * @param items The items on this page
+         * @param next  The parameters which select the next page, added to the
+         *              builder's parameters
+         * @return The page
+         */
+        public static <T> Page<T> of(List<T> items, Map<String, String> next) {
+            assert next != null;
+            return new Page<>(items, next);
+        }
+
+        /**
+         * Creates the last page.
+         *
+         * @param <T>   The type of the items
+         * @param items The items on this page
+         * @return The page
+         */
+        public static <T> Page<T> last(List<T> items) {
+            return new Page<>(items, null);
+        }
+
+        /**
+         * Gets the items on this page.
+         *
+         * @return The items
+         */
+        public List<T> getItems() {
+            return items;
+        }
+
+        /**
+         * Gets the parameters which select the next page.
+         *
+         * @return The parameters, or {@code null} if this is the last page
+         */
+        public Map<String, String> getNext() {
+            return next;
+        }
+
+        /**
+         * Returns whether this is the last page.
+         *
+         * @return {@code true} if there are no more pages
+         */
+        public boolean isLast() {
+            return next == null;
+        }
+    }
+
+    /**
+     * Converts a response body into a page.
+     *
+     * @param <T> The type of the items
+     * @since 1.3
+     */
+    @FunctionalInterface
+    public interface PageDecoder<T> {
+
+        /**
+         * Decodes a page.
+         *
+         * @param body The response body
+         * @return The page
+         * @throws IOException If the body could not be read or decoded
+         */
+        Page<T> decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * Fetches a single page.
+     *
+     * @param <T> The type of the items
+     */
+    @FunctionalInterface
+    interface Fetcher<T> {
+
+        /**
+         * Fetches a page.
+         *
+         * @param next The parameters returned by the previous page, or an empty map
+         *             for the first page
+         * @return The page
+         * @throws IOException If there was an error fetching the page
+         */
+        Page<T> fetch(Map<String, String> next) throws IOException;
+    }
+
+    /** The default prefetch depth. */
+    public static final int DEFAULT_PREFETCH = 2;
+
+    private final Fetcher<T> fetcher;
+    private final int prefetch;
+
+    /** Pages or exceptions from the background thread, in order. */
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    /** Limits the pages fetched but not yet consumed to {@link #prefetch}. */
+    private final Semaphore permits;
+
+    private ExecutorService executor;
+    private boolean iterated;
+    private boolean done;
+    private Map<String, String> next = Collections.emptyMap();
+
+    /**
+     * Creates a new paginator with a prefetch depth of {@link #DEFAULT_PREFETCH}.
+     *
+     * @param builder The builder for the first page, which is copied
+     * @param decoder Converts each response into a page
+     */
+    public Paginator(Builder builder, PageDecoder<T> decoder) {
+        this(builder, decoder, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Creates a new paginator.
+     *
+     * @param builder  The builder for the first page, which is copied
+     * @param decoder  Converts each response into a page
+     * @param prefetch The number of pages to fetch ahead of the one being
+     *                 consumed, or 0 to only fetch pages when needed
+     */
+    public Paginator(Builder builder, PageDecoder<T> decoder, int prefetch) {
+        this(fetcher((Builder) builder.clone(), decoder), prefetch);
+    }
+
+    /**
+     * Creates a new paginator which fetches pages with {@code fetcher}.
+     *
+     * @param fetcher  Fetches each page
+     * @param prefetch See {@link #Paginator(Builder, PageDecoder, int)}
+     */
+    Paginator(Fetcher<T> fetcher, int prefetch) {
+        assert prefetch >= 0;
+        this.fetcher = fetcher;
+        this.prefetch = prefetch;
+        this.permits = new Semaphore(prefetch);
+    }
+
+    private static <T> Fetcher<T> fetcher(Builder builder, PageDecoder<T> decoder) {
+        return next -> ((Builder) builder.clone()).param(next).call(decoder::decode);
+    }
+
+    /**
+     * Iterates over the pages.
+     *
+     * @return The iterator
+     * @throws IllegalStateException If this paginator was already iterated
+     */
+    public Iterator<Page<T>> pages() {
+        if (iterated) {
+            throw new IllegalStateException("A paginator can only be iterated once");
+        }
+        iterated = true;
+        return new Iterator<Page<T>>() {
+
+            private Page<T> page;
+
+            @Override
+            public boolean hasNext() {
+                if (page == null && !done) {
+                    page = nextPage();
+                    done = page.isLast();
+                }
+                return page != null;
+            }
+
+            @Override
+            public Page<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Page<T> page = this.page;
+                this.page = null;
+                return page;
+            }
+        };
+    }
+
+    /**
+     * Iterates over the items on all pages.
+     *
+     * @return The iterator
+     * @throws IllegalStateException If this paginator was already iterated
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<Page<T>> pages = pages();
+        return new Iterator<T>() {
+
+            private Iterator<T> items = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!items.hasNext() && pages.hasNext()) {
+                    items = pages.next().getItems().iterator();
+                }
+                return items.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return items.next();
+            }
+        };
+    }
+
+    /**
+     * Creates a stream of the pages. Closing the stream closes this paginator.
+     *
+     * @return The stream
+     * @throws IllegalStateException If this paginator was already iterated
+     */
+    public Stream<Page<T>> pageStream() {
+        return stream(pages());
+    }
+
+    /**
+     * Creates a stream of the items on all pages. Closing the stream closes this
+     * paginator.
+     *
+     * @return The stream
+     * @throws IllegalStateException If this paginator was already iterated
+     */
+    public Stream<T> stream() {
+        return stream(iterator());
+    }
+
+    private <E> Stream<E> stream(Iterator<E> it) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * Stops any prefetching. Pages which were already fetched are discarded.
+     */
+    @Override
+    public void close() {
+        done = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the next page, either fetching it now or waiting for the background
+     * thread.
+     */
+    @SuppressWarnings("unchecked")
+    private Page<T> nextPage() {
+        if (prefetch == 0) {
+            try {
+                Page<T> page = fetcher.fetch(next);
+                next = page.getNext();
+                return page;
+            } catch (IOException e) {
+                done = true;
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        if (executor == null) {
+            Deadline deadline = Deadline.current();
+            HttpTransport transport = GenericHttpGet.currentTransport();
+            Deadline.Task<Void, RuntimeException> task = () -> GenericHttpGet.withTransport(transport, () -> {
+                prefetch();
+                return null;
+            });
+            executor = TaskExecutors.newPerTaskExecutor("fp-paginator-");
+            executor.execute(deadline == null ? task::run : () -> deadline.call(task));
+            executor.shutdown();
+        }
+        Object item;
+        try {
+            item = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for a page"));
+        }
+        permits.release();
+        if (item instanceof Throwable) {
+            // The background thread stopped
+            done = true;
+        }
+        if (item instanceof IOException) {
+            throw new UncheckedIOException((IOException) item);
+        } else if (item instanceof RuntimeException) {
+            throw (RuntimeException) item;
+        } else if (item instanceof Error) {
+            throw (Error) item;
+        }
+        return (Page<T>) item;
+    }
+
+    /**
+     * Fetches pages on the background thread until the last one, waiting while
+     * {@link #prefetch} pages are not yet consumed.
+     */
+    private void prefetch() {
+        Map<String, String> next = Collections.emptyMap();
+        try {
+            while (next != null) {
+                permits.acquire();
+                Page<T> page = fetcher.fetch(next);
+                queue.add(page);
+                next = page.getNext();
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } catch (Throwable e) {
+            // Includes errors, such as an AssertionError, so the consumer is not
+            // left waiting for a page which never comes
+            queue.add(e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.net.UrlEncoding;
+
+/**
+ * An immutable API call template created by {@link Builder#prepare(String...)}.
+ * Everything except the per-call parameters is encoded once when the request is
+ * prepared, so binding values only has to encode the values themselves. The
+ * key is kept apart from the encoded URL and added at the end of each call.
+ * <p>
+ * Calls are made like {@link Builder#call()}: within the builder's timeout,
+ * through its transport, and recorded in the same metrics and events.
+ * <p>
+ * Instances are thread-safe, so a single template can be shared between many
+ * threads without copying or locking.
+ *
+ * @since 1.3
+ */
+public final class PreparedRequest {
+
+    /** The encoded URL with all the fixed parameters, without the key. */
+    private final String base;
+
+    /** A copy of the builder's key, or {@code null}. */
+    private final char[] key;
+
+    /** The builder's key pool, or {@code null}. */
+    private final ApiKeyPool keyPool;
+
+    /** The builder's timeout, transport, and metrics. */
+    private final ApiCall options;
+
+    /** The names of the per-call parameters. */
+    private final List<String> paramNames;
+
+    /** The encoded {@code &name=} for each per-call parameter. */
+    private final String[] separators;
+
+    /** The sum of the lengths of {@link #separators}. */
+    private final int separatorsLength;
+
+    /**
+     * Creates a new prepared request.
+     *
+     * @param base       The encoded URL with all the fixed parameters, without
+     *                   the key
+     * @param key        The key, or {@code null}
+     * @param keyPool    The pool to draw a key from for each call, or
+     *                   {@code null}
+     * @param options    The settings which apply to each call
+     * @param paramNames The names of the per-call parameters
+     */
+    PreparedRequest(String base, char[] key, ApiKeyPool keyPool, ApiCall options, String... paramNames) {
+        this.base = base;
+        this.key = key;
+        this.keyPool = keyPool;
+        this.options = options;
+        this.paramNames = Collections.unmodifiableList(Arrays.asList(paramNames.clone()));
+        this.separators = new String[paramNames.length];
+        int len = 0;
+        for (int i = 0; i < paramNames.length; i++) {
+            separators[i] = '&' + UrlEncoding.encode(paramNames[i]) + '=';
+            len += separators[i].length();
+        }
+        this.separatorsLength = len;
+    }
+
+    /**
+     * Gets the names of the parameters which are given a value for each call.
+     *
+     * @return The names, in the order expected by {@link #bind(String...)}
+     */
+    public List<String> getParamNames() {
+        return paramNames;
+    }
+
+    /**
+     * Creates the URL for a single call.
+     *
+     * @param values The value of each parameter in {@link #getParamNames()}, in
+     *               the same order. There must be exactly one value per name,
+     *               parameters whose value is {@code null} are left out.
+     * @return The URL
+     * @throws IllegalArgumentException If the number of values does not match the
+     *                                  number of names
+     */
+    public String bind(String... values) {
+        if (values.length != separators.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + separators.length + " values but was " + values.length);
+        }
+        int len = base.length() + separatorsLength + Builder.keyLength(key);
+        for (String value : values) {
+            if (value != null) {
+                len += UrlEncoding.encodedLength(value);
+            }
+        }
+
+        StringBuilder url = new StringBuilder(len).append(base);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                UrlEncoding.encode(values[i], url.append(separators[i]));
+            }
+        }
+        return Builder.appendKey(url, key).toString();
+    }
+
+    /**
+     * Creates the URL for a single call. Parameters in {@link #getParamNames()}
+     * which are not in {@code values} are left out, and entries in {@code values}
+     * which are not in {@link #getParamNames()} are added as extra parameters.
+     * Entries whose value is {@code null} are left out, whether they are named
+     * or extra parameters.
+     *
+     * @param values The parameters as key-value pairs
+     * @return The URL
+     */
+    public String bind(Map<String, String> values) {
+        int len = base.length() + separatorsLength + Builder.keyLength(key);
+        for (Map.Entry<String, String> param : values.entrySet()) {
+            if (param.getValue() == null) {
+                continue;
+            }
+            if (!paramNames.contains(param.getKey())) {
+                len += 2 + UrlEncoding.encodedLength(param.getKey());
+            }
+            len += UrlEncoding.encodedLength(param.getValue());
+        }
+
+        StringBuilder url = new StringBuilder(len).append(base);
+        for (int i = 0; i < separators.length; i++) {
+            String value = values.get(paramNames.get(i));
+            if (value != null) {
+                UrlEncoding.encode(value, url.append(separators[i]));
+            }
+        }
+        for (Map.Entry<String, String> param : values.entrySet()) {
+            if (param.getValue() != null && !paramNames.contains(param.getKey())) {
+                UrlEncoding.encode(param.getKey(), url.append('&'));
+                UrlEncoding.encode(param.getValue(), url.append('='));
+            }
+        }
+        return Builder.appendKey(url, key).toString();
+    }
+
+    /**
+     * Performs an API call with the given values.
+     *
+     * @param values See {@link #bind(String...)}
+     * @return The response
+     * @throws IOException              If there was an error sending the request
+     * @throws IllegalArgumentException If the number of values does not match the
+     *                                  number of names
+     */
+    public String call(String... values) throws IOException {
+        String url = bind(values);
+        return options.run(() -> Builder.send(url, keyPool, GenericHttpGet::getString));
+    }
+
+    /**
+     * Performs an API call with the given values.
+     *
+     * @param values See {@link #bind(Map)}
+     * @return The response
+     * @throws IOException If there was an error sending the request
+     */
+    public String call(Map<String, String> values) throws IOException {
+        String url = bind(values);
+        return options.run(() -> Builder.send(url, keyPool, GenericHttpGet::getString));
+    }
+}
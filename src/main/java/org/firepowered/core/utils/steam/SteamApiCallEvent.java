@@ -0,0 +1,52 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a Web API call made by a {@link Builder} or a
+ * {@link PreparedRequest}. Only calls which took at least the threshold are
+ * recorded, 20 ms unless changed in the recording settings.
+ *
+ * @since 1.3
+ */
+@Name("org.firepowered.SteamApiCall")
+@Label("Steam Web API Call")
+@Category({ "FirePowered", "Steam" })
+@Description("A Steam Web API call made by a Builder or PreparedRequest")
+@Threshold("20 ms")
+final class SteamApiCallEvent extends Event {
+
+    @Label("Interface")
+    String apiInterface;
+
+    @Label("Method")
+    String method;
+
+    @Label("Version")
+    String version;
+
+    @Label("Error")
+    @Description("The type of the exception thrown, if any")
+    String error;
+}
@@ -16,16 +16,19 @@
  */
 package org.firepowered.core.utils.steam;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.firepowered.core.utils.StringUtils;
+import org.firepowered.core.utils.json.JsonReader;
 import org.firepowered.core.utils.net.GenericHttpGet;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
 /**
  * Wraps Steam API calls. Many methods here require an API key.
@@ -44,9 +47,50 @@ public final class SteamApiWrapper {
 
     private static final Pattern NAME_PATTERN = Pattern.compile("<steamID><!\\[CDATA\\[(.*)\\]{2}><\\/steamID>");
 
+    /** The number of connections {@link #warmUp()} opens per host. */
+    private static final int WARM_UP_CONNECTIONS = 4;
+
+    /** A small Web API response {@link #warmUp()} fetches, the server time. */
+    private static final String WARM_UP_API = Builder.BASE_URL + "ISteamWebAPIUtil/GetServerInfo/v0001/";
+
+    /** A small community resource {@link #warmUp()} fetches. */
+    private static final String WARM_UP_COMMUNITY = COMMUNITY_BASE + "/robots.txt";
+
     private SteamApiWrapper() {
     }
 
+    /**
+     * Prepares for the first lookups after startup, so they are as fast as later
+     * ones. The classes and patterns used to parse SteamIDs, JSON responses and
+     * profile pages are loaded, and connections to the Steam Web API and Steam
+     * community are opened with requests for small resources and kept in the
+     * pool, see
+     * {@link GenericHttpGet#warmUp(java.util.Collection, int)}.
+     * <p>
+     * A health check can call this before reporting the service as ready.
+     *
+     * @return How long warming up took
+     * @throws IOException If a Steam host could not be resolved or connected to
+     * @since 1.3
+     */
+    public static Duration warmUp() throws IOException {
+        long start = System.nanoTime();
+        SteamID.ofOffline("76561197960287930");
+        SteamID.ofOffline("STEAM_0:0:11101");
+        SteamID.ofOffline("[U:1:22202]");
+        SteamID.ofOffline(COMMUNITY_BASE + "/profiles/76561197960287930");
+        STEAMID_MATCHER.matcher("<steamID64>76561197960287930</steamID64>").find();
+        NAME_PATTERN.matcher("<steamID><![CDATA[Rabscuttle]]></steamID>").find();
+        JsonReader.select(new ByteArrayInputStream(
+                "{\"response\":{\"success\":1,\"steamid\":\"76561197960287930\"}}".getBytes(StandardCharsets.UTF_8)),
+                "response.success", "response.steamid");
+        newBuilder().apiInterface(INTERFACE_STEAMUSER).method("ResolveVanityURL").version("v0001")
+                .param("vanityurl", "warmup").build();
+
+        GenericHttpGet.warmUp(List.of(new URL(WARM_UP_API), new URL(WARM_UP_COMMUNITY)), WARM_UP_CONNECTIONS);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
     /**
      * Gets a Steam user's personaName (display name).
      *
@@ -89,14 +133,11 @@ public final class SteamApiWrapper {
         try {
             Builder builder = newBuilder().apiInterface(INTERFACE_STEAMUSER).method("GetPlayerSummaries")
                     .version("v0002").key(api.toCharArray()).param("steamids", steamid.getSteamID64());
-            String res = builder.call();
-            JSONArray players = new JSONObject(res).getJSONObject("response").getJSONArray("players");
-            if (players.length() > 0) {
-                return players.getJSONObject(0).getString("personaname");
-            }
-        } catch (NullPointerException | JSONException | IOException e) {
-            // If any of those chains were null, then the request failed so return null to
-            // let the caller know
+            return builder
+                    .call(body -> JsonReader.read(body, "response.players[0].personaname", JsonReader::nextString));
+        } catch (IOException e) {
+            // The request failed or the response was malformed so return null to let the
+            // caller know
         }
         return null;
     }
@@ -124,19 +165,21 @@ public final class SteamApiWrapper {
         try {
             Builder apiBuilder = newBuilder().apiInterface(INTERFACE_STEAMUSER).method("ResolveVanityURL")
                     .version("v0001").param("vanityurl", id).key(api.toCharArray());
-            String res = apiBuilder.call();
-            JSONObject responseBody = new JSONObject(res).getJSONObject("response");
+            Map<String, String> response = apiBuilder
+                    .call(body -> JsonReader.select(body, "response.success", "response.steamid", "response.message"));
 
-            int success = responseBody.getInt("success");
-            if (success == 1) {
-                return SteamID.of(responseBody.getString("steamid"));
+            if ("1".equals(response.get("response.success"))) {
+                return SteamID.of(response.get("response.steamid"));
             }
 
             // Message is an optional field that only appears if the ID didn't resolve
-            throw new SteamIDParserException(responseBody.getString("message"), id);
-        } catch (NullPointerException | JSONException | IOException e) {
-            // If any of those chains were null, then the request failed so return null to
-            // let the caller know
+            String message = response.get("response.message");
+            if (message != null) {
+                throw new SteamIDParserException(message, id);
+            }
+        } catch (IOException e) {
+            // The request failed or the response was malformed so return null to let the
+            // caller know
         }
         return null;
     }
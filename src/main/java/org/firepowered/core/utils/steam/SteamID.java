@@ -17,11 +17,16 @@
 package org.firepowered.core.utils.steam;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.firepowered.core.utils.StringUtils;
+import org.firepowered.core.utils.metrics.Counter;
+import org.firepowered.core.utils.metrics.Histogram;
+import org.firepowered.core.utils.metrics.Metrics;
+import org.firepowered.core.utils.net.Deadline;
 
 /**
  * Representation of a SteamID. Static methods exist for creating an instance
@@ -72,6 +77,18 @@ public final class SteamID {
      */
     private final static long INSTANCE_MASK = 0x000f_ffffL;
 
+    /** The SteamIDs parsed by {@link #of(String)} without a request. */
+    private final static Counter PARSED_OFFLINE = Metrics.counter("fp_steamid_parsed_total", "source", "offline");
+
+    /** The SteamIDs parsed by {@link #of(String)} by resolving a vanity url. */
+    private final static Counter PARSED_VANITY = Metrics.counter("fp_steamid_parsed_total", "source", "vanity");
+
+    /** The strings {@link #of(String)} could not parse. */
+    private final static Counter PARSE_ERRORS = Metrics.counter("fp_steamid_parse_errors_total");
+
+    /** The time {@link #of(String)} spent resolving vanity urls. */
+    private final static Histogram VANITY_DURATION = Metrics.histogram("fp_steamid_vanity_duration_seconds");
+
     /**
      * The type derived from {@link #of(String)}.
      */
@@ -130,42 +147,132 @@ public final class SteamID {
      *
      * @param str The string representing the SteamID, must not be {@code null}
      * @return A SteamID object, or {@code null} if one could not be determined.
-     * @throws SteamIDParserException If the {@link SteamIDType type} of SteamID
-     *                                could not be determined
+     * @throws SteamIDParserException   If the {@link SteamIDType type} of SteamID
+     *                                  could not be determined
+     * @throws IllegalArgumentException If {@code str} is {@code null} or empty, or
+     *                                  the calculated SteamID was invalid
      */
     public static SteamID of(final String str) throws SteamIDParserException {
-        assert !StringUtils.isEmpty(str);
+        if (StringUtils.isEmpty(str)) {
+            throw new IllegalArgumentException("SteamID text must not be empty");
+        }
         String idStr = str.strip();
+        boolean metered = Metrics.isEnabled();
         try {
-            SteamID ret = null;
-            if (idStr.matches("^\\d+$")) {
-                // SteamID64
-                ret = of64(idStr);
-            } else if (idStr.matches(PATTERNSTR_ID32)) {
-                // SteamID32
-                ret = of32(idStr);
-            } else if (idStr.matches(PATTERNSTR_3ID)) {
-                // Steam3ID
-                ret = ofSteam3(idStr);
-            } else if (idStr.matches(PATTERNSTR_PROFILES_URL)) {
-                // Normal profile url (/profiles/765..)
-                ret = ofProfiles(idStr);
-            } else {
+            SteamID ret = ofOffline(idStr);
+            if (ret != null) {
+                if (metered) {
+                    PARSED_OFFLINE.increment();
+                }
+                return ret;
+            }
+            VanityResolveEvent event = new VanityResolveEvent();
+            long start = metered ? System.nanoTime() : 0;
+            event.begin();
+            try {
                 ret = ofCustom(idStr);
+            } finally {
+                event.end();
+                if (metered) {
+                    VANITY_DURATION.record(System.nanoTime() - start);
+                }
+                if (event.shouldCommit()) {
+                    event.input = idStr;
+                    event.steamId64 = ret == null ? null : ret.getSteamID64();
+                    event.commit();
+                }
             }
-
             if (ret == null) {
                 throw new SteamIDParserException("SteamIDType was not able to be determined.", idStr);
             }
-
             // Check if it's valid
             sanityCheckID(ret, str);
+            if (metered) {
+                PARSED_VANITY.increment();
+            }
             return ret;
         } catch (IOException | InterruptedException e) {
+            if (metered) {
+                PARSE_ERRORS.increment();
+            }
             throw new SteamIDParserException("Unable to resolve vanity URL as a last resort", idStr);
+        } catch (SteamIDParserException | RuntimeException e) {
+            if (metered) {
+                PARSE_ERRORS.increment();
+            }
+            throw e;
         }
     }
 
+    /**
+     * Same as {@link #of(String)}, but gives up resolving a vanity url after
+     * {@code timeout}.
+     *
+     * @param str     The string representing the SteamID, must not be
+     *                {@code null}
+     * @param timeout The maximum time to spend resolving a vanity url
+     * @return A SteamID object
+     * @throws SteamIDParserException If the {@link SteamIDType type} of SteamID
+     *                                could not be determined, including when the
+     *                                vanity url was not resolved in time
+     * @see Deadline
+     * @since 1.3
+     */
+    public static SteamID of(final String str, Duration timeout) throws SteamIDParserException {
+        return Deadline.after(timeout).call(() -> of(str));
+    }
+
+    /**
+     * Converts a string to a {@link SteamID} instance if this can be done without
+     * resolving a vanity url.
+     *
+     * @param str The string representing the SteamID, must not be {@code null}
+     * @return A SteamID object, or {@code null} if {@code str} has to be resolved
+     *         as a vanity url (see {@link #vanityName(String)})
+     * @throws IllegalArgumentException If a number in {@code str} is too large,
+     *                                  or the calculated SteamID was invalid
+     */
+    static SteamID ofOffline(final String str) {
+        String idStr = str.strip();
+        SteamID ret;
+        if (idStr.matches("^\\d+$")) {
+            // SteamID64
+            ret = of64(idStr);
+        } else if (idStr.matches(PATTERNSTR_ID32)) {
+            // SteamID32
+            ret = of32(idStr);
+        } else if (idStr.matches(PATTERNSTR_3ID)) {
+            // Steam3ID
+            ret = ofSteam3(idStr);
+        } else if (idStr.matches(PATTERNSTR_PROFILES_URL)) {
+            // Normal profile url (/profiles/765..)
+            ret = ofProfiles(idStr);
+        } else {
+            return null;
+        }
+        // Check if it's valid
+        sanityCheckID(ret, str);
+        return ret;
+    }
+
+    /**
+     * Gets the vanity url to resolve for a string which could not be converted by
+     * {@link #ofOffline(String)}.
+     *
+     * @param str A custom profile link, or the vanity url itself
+     * @return The vanityUrl (the part {@code (here)} in
+     *         {@code https://steamcommunity.com/id/(here)}
+     */
+    static String vanityName(final String str) {
+        String idStr = str.strip();
+        Matcher matcher = PATTERN_URL.matcher(idStr);
+        if (matcher.find()) {
+            // It is a URL, we need to extract the ID from the end
+            return matcher.group(1);
+        }
+        return idStr;
+    }
+
     /**
      * Given an arbitrary string, try to convert it to a {@link SteamID} instance.
      * This method will also attempt to resolve a vanity url if the type can't be
@@ -196,13 +303,7 @@ public final class SteamID {
     }
 
     private static SteamID ofCustom(final String str) throws SteamIDParserException, IOException, InterruptedException {
-        Matcher matcher = PATTERN_URL.matcher(str);
-        String query = str;
-        if (matcher.find()) {
-            // It is a URL, we need to extract the ID from the end
-            query = matcher.group(1);
-        }
-        return SteamApiWrapper.resolveVanityUrl(query);
+        return SteamApiWrapper.resolveVanityUrl(vanityName(str));
     }
 
     private static SteamID of64(final String str) throws NumberFormatException {
@@ -294,8 +395,7 @@ public final class SteamID {
      *
      * @param id   The id to check
      * @param text The text which caused the SteamID to be created
-     * @throws AssertionError If there was an internal error sanity checking the ID
-     *                        (i.e., the created SteamID wasn't valid)
+     * @throws IllegalArgumentException If the created SteamID wasn't valid
      */
     private static void sanityCheckID(SteamID id, String text) {
         String id64 = id.getSteamID64();
@@ -307,12 +407,12 @@ public final class SteamID {
             } else {
                 substr = id64;
             }
-            throw new AssertionError(
+            throw new IllegalArgumentException(
                     String.format("Incorrect render of SteamID64 (expected %s at start, got %s) for input %s",
                             ID64_START, substr, text));
         }
         if (id.idType != SteamIDType.STEAMID_32 && id.universe == 0) {
-            throw new AssertionError(String.format("Universe '0' in a non-SteamID32 for input %s", text));
+            throw new IllegalArgumentException(String.format("Universe '0' in a non-SteamID32 for input %s", text));
         }
         // TODO Add more checks, although this might be all we need/is possible
     }
@@ -0,0 +1,413 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.firepowered.core.utils.concurrent.TaskExecutors;
+
+/**
+ * A {@link Flow.Processor} which converts a stream of user-entered identifiers
+ * into {@link SteamID}s. It accepts the same input as {@link SteamID#of(String)}.
+ * <p>
+ * Identifiers which can be converted offline (SteamID64, SteamID32, Steam3ID and
+ * profile links) are converted as they arrive. Vanity urls are resolved in the
+ * background, with at most {@code maxConcurrency} lookups in flight at once, and
+ * concurrent requests for the same vanity url share a single lookup.
+ * <p>
+ * The processor requests at most {@code bufferSize} identifiers from upstream
+ * which have not yet been delivered downstream, so a slow subscriber or a burst
+ * of vanity urls cannot make it hold an unbounded number of items. Results are
+ * delivered either in the order the identifiers arrived, or as soon as each one
+ * is available. A failed conversion is delivered as a {@link Result} carrying
+ * the error rather than terminating the stream.
+ * <p>
+ * The background threads are stopped when the subscriber cancels, or once
+ * upstream is done and every lookup finished, even without a subscriber.
+ * <p>
+ * Only a single subscriber is supported.
+ *
+ * @since 1.3
+ */
+public final class SteamIDProcessor implements Flow.Processor<String, SteamIDProcessor.Result> {
+
+    /**
+     * The outcome of converting a single identifier.
+     *
+     * @since 1.3
+     */
+    public static final class Result {
+
+        private final String input;
+        private final SteamID steamID;
+        private final SteamIDParserException error;
+
+        private Result(String input, SteamID steamID, SteamIDParserException error) {
+            this.input = input;
+            this.steamID = steamID;
+            this.error = error;
+        }
+
+        /**
+         * Gets the identifier as it was received from upstream.
+         *
+         * @return The identifier
+         */
+        public String getInput() {
+            return input;
+        }
+
+        /**
+         * Gets the converted SteamID.
+         *
+         * @return The SteamID, or {@code null} if the conversion failed
+         */
+        public SteamID getSteamID() {
+            return steamID;
+        }
+
+        /**
+         * Gets the reason the conversion failed.
+         *
+         * @return The error, or {@code null} if the conversion succeeded
+         */
+        public SteamIDParserException getError() {
+            return error;
+        }
+
+        /**
+         * Returns whether the conversion succeeded.
+         *
+         * @return {@code true} if {@link #getSteamID()} is not {@code null}
+         */
+        public boolean isSuccess() {
+            return steamID != null;
+        }
+    }
+
+    /**
+     * Resolves a vanity url, see {@link SteamApiWrapper#resolveVanityUrl(String)}.
+     */
+    @FunctionalInterface
+    interface VanityResolver {
+
+        /**
+         * Resolves a vanity url.
+         *
+         * @param id The vanityUrl
+         * @return The SteamID, or {@code null} if it could not be determined
+         * @throws SteamIDParserException If the retrieved SteamID is not valid
+         */
+        SteamID resolve(String id) throws SteamIDParserException;
+    }
+
+    /** The default value of {@code bufferSize}. */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /** The default value of {@code maxConcurrency}. */
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+
+    private final boolean ordered;
+    private final int bufferSize;
+    private final Semaphore permits;
+    private final VanityResolver resolver;
+    private final ExecutorService executor;
+
+    /** Vanity lookups in flight, used to coalesce requests for the same name. */
+    private final Map<String, CompletableFuture<SteamID>> lookups = new ConcurrentHashMap<>();
+
+    /** Names in {@link #lookups} waiting for a permit before being submitted. */
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Results waiting to be delivered. In order mode these are added on arrival,
+     * otherwise they are added once complete.
+     */
+    private final Queue<CompletableFuture<Result>> queue = new ConcurrentLinkedQueue<>();
+
+    /** Identifiers received but not yet delivered downstream. */
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super Result> downstream;
+    private volatile boolean done;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+    private boolean terminated;
+
+    /**
+     * Creates a new processor with {@link #DEFAULT_BUFFER_SIZE} and
+     * {@link #DEFAULT_MAX_CONCURRENCY}.
+     *
+     * @param ordered Whether to deliver results in the order the identifiers
+     *                arrived
+     */
+    public SteamIDProcessor(boolean ordered) {
+        this(ordered, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Creates a new processor.
+     *
+     * @param ordered        Whether to deliver results in the order the
+     *                       identifiers arrived
+     * @param bufferSize     The maximum number of identifiers which were received
+     *                       but not yet delivered, must be greater than 0
+     * @param maxConcurrency The maximum number of vanity urls resolved at once,
+     *                       must be greater than 0
+     */
+    public SteamIDProcessor(boolean ordered, int bufferSize, int maxConcurrency) {
+        this(ordered, bufferSize, maxConcurrency, SteamApiWrapper::resolveVanityUrl);
+    }
+
+    /**
+     * Creates a new processor which resolves vanity urls with {@code resolver}.
+     *
+     * @param ordered        See {@link #SteamIDProcessor(boolean, int, int)}
+     * @param bufferSize     See {@link #SteamIDProcessor(boolean, int, int)}
+     * @param maxConcurrency See {@link #SteamIDProcessor(boolean, int, int)}
+     * @param resolver       Resolves vanity urls
+     */
+    SteamIDProcessor(boolean ordered, int bufferSize, int maxConcurrency, VanityResolver resolver) {
+        assert bufferSize > 0 && maxConcurrency > 0;
+        this.ordered = ordered;
+        this.bufferSize = bufferSize;
+        this.permits = new Semaphore(maxConcurrency);
+        this.resolver = resolver;
+        this.executor = TaskExecutors.newPerTaskExecutor("fp-steamid-processor-");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Result> subscriber) {
+        assert subscriber != null;
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancel();
+                    subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                    return;
+                }
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                Flow.Subscription s = upstream;
+                if (s != null) {
+                    s.cancel();
+                }
+                executor.shutdownNow();
+            }
+        });
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(String item) {
+        outstanding.incrementAndGet();
+        CompletableFuture<Result> result = convert(item);
+        if (ordered) {
+            queue.add(result);
+            result.thenRun(this::drain);
+        } else {
+            result.thenRun(() -> {
+                queue.add(result);
+                drain();
+            });
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = throwable;
+        done = true;
+        shutdownIfIdle();
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        shutdownIfIdle();
+        drain();
+    }
+
+    private CompletableFuture<Result> convert(String item) {
+        try {
+            SteamID id = SteamID.ofOffline(item);
+            if (id != null) {
+                return CompletableFuture.completedFuture(new Result(item, id, null));
+            }
+        } catch (IllegalArgumentException e) {
+            // Numbers too large to be a SteamID or invalid IDs
+            return CompletableFuture.completedFuture(
+                    new Result(item, null, new SteamIDParserException("Invalid SteamID", item)));
+        }
+
+        String name = SteamID.vanityName(item);
+        return lookup(name).handle((id, e) -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (id != null) {
+                return new Result(item, id, null);
+            } else if (cause instanceof SteamIDParserException) {
+                return new Result(item, null, (SteamIDParserException) cause);
+            }
+            return new Result(item, null,
+                    new SteamIDParserException("SteamIDType was not able to be determined.", item));
+        });
+    }
+
+    /**
+     * Resolves a vanity url in the background, sharing the lookup with any other
+     * identifiers with the same name that arrive while it is in flight.
+     */
+    private CompletableFuture<SteamID> lookup(String name) {
+        CompletableFuture<SteamID> created = new CompletableFuture<>();
+        CompletableFuture<SteamID> existing = lookups.putIfAbsent(name, created);
+        if (existing != null) {
+            return existing;
+        }
+        pending.add(name);
+        startLookups();
+        return created;
+    }
+
+    /**
+     * Submits pending lookups while permits are free. The permit is taken before
+     * submitting, so no thread is started only to wait for one.
+     */
+    private void startLookups() {
+        while (!pending.isEmpty() && permits.tryAcquire()) {
+            String name = pending.poll();
+            if (name == null) {
+                // Taken by another thread, check again after giving the permit back
+                permits.release();
+                continue;
+            }
+            CompletableFuture<SteamID> created = lookups.get(name);
+            try {
+                executor.execute(() -> resolve(name, created));
+            } catch (RejectedExecutionException e) {
+                // The executor was shut down because the subscriber cancelled
+                lookups.remove(name, created);
+                permits.release();
+                created.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void resolve(String name, CompletableFuture<SteamID> created) {
+        try {
+            created.complete(resolver.resolve(name));
+        } catch (Throwable e) {
+            created.completeExceptionally(e);
+        } finally {
+            lookups.remove(name, created);
+            permits.release();
+            startLookups();
+            shutdownIfIdle();
+        }
+    }
+
+    /**
+     * Shuts down the executor once upstream is done and no lookups are left, even
+     * if nothing ever subscribed to this processor.
+     */
+    private void shutdownIfIdle() {
+        if (done && lookups.isEmpty()) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Delivers completed results while there is demand, and the terminal signal
+     * once everything was delivered. Only one thread runs the loop at a time.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super Result> s = downstream;
+            if (s != null && !cancelled && !terminated) {
+                CompletableFuture<Result> head;
+                while (demand.get() > 0 && (head = queue.peek()) != null && head.isDone() && !cancelled) {
+                    queue.poll();
+                    demand.getAndUpdate(d -> d == Long.MAX_VALUE ? d : d - 1);
+                    outstanding.decrementAndGet();
+                    s.onNext(head.join());
+                    upstream.request(1);
+                }
+
+                if (done && outstanding.get() == 0 && !cancelled) {
+                    terminated = true;
+                    executor.shutdown();
+                    Throwable t = failure;
+                    if (t != null) {
+                        s.onError(t);
+                    } else {
+                        s.onComplete();
+                    }
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
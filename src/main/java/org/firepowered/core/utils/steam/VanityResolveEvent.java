@@ -0,0 +1,47 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a vanity url resolved by {@link SteamID#of}
+ * because the string was not a SteamID. Only resolutions which took at least
+ * the threshold are recorded, 20 ms unless changed in the recording settings.
+ *
+ * @since 1.3
+ */
+@Name("org.firepowered.VanityResolve")
+@Label("Vanity URL Resolution")
+@Category({ "FirePowered", "Steam" })
+@Description("A vanity url resolved by SteamID.of")
+@Threshold("20 ms")
+final class VanityResolveEvent extends Event {
+
+    @Label("Input")
+    @Description("The string given to SteamID.of")
+    String input;
+
+    @Label("SteamID64")
+    @Description("The SteamID it resolved to, if any")
+    String steamId64;
+}
@@ -0,0 +1,66 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.vdf;
+
+import java.io.IOException;
+
+/**
+ * Receives the events of a {@link VdfParser} as a document is read. For
+ * example, the document
+ *
+ * <pre>
+ * "items"
+ * {
+ *     "5021"
+ *     {
+ *         "name"  "Mann Co. Supply Crate Key"
+ *     }
+ * }
+ * </pre>
+ *
+ * produces {@code startObject("items")}, {@code startObject("5021")},
+ * {@code value("name", "Mann Co. Supply Crate Key")}, {@code endObject()},
+ * {@code endObject()}.
+ *
+ * @since 1.3
+ */
+public interface VdfHandler {
+
+    /**
+     * Called when a key followed by <code>{</code> is read.
+     *
+     * @param key The key
+     * @throws IOException To stop parsing
+     */
+    void startObject(String key) throws IOException;
+
+    /**
+     * Called when <code>}</code> is read.
+     *
+     * @throws IOException To stop parsing
+     */
+    void endObject() throws IOException;
+
+    /**
+     * Called when a key followed by a value is read.
+     *
+     * @param key   The key
+     * @param value The value
+     * @throws IOException To stop parsing
+     */
+    void value(String key, String value) throws IOException;
+}
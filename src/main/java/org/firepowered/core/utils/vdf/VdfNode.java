@@ -0,0 +1,307 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.vdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An object in a VDF document, read with {@link #read(InputStream)} or
+ * {@link #read(Path)}. The root node holds the top-level keys of the document.
+ * <p>
+ * Each node stores its keys and values in two arrays trimmed to size, so a
+ * large document costs little more than its strings. Keys may repeat, as they
+ * can in VDF, and are looked up case-insensitively like Valve's own
+ * implementation does. Lookups scan the keys of small nodes and use an index,
+ * built on first use, for large ones.
+ * <p>
+ * Nodes are immutable once read, so they can be shared between threads. API
+ * responses can be read straight into a tree with
+ * {@code builder.format(Format.VDF).call(VdfNode::read)}.
+ *
+ * @since 1.3
+ */
+public final class VdfNode {
+
+    /** Nodes with more keys than this are indexed. */
+    private static final int INDEX_THRESHOLD = 8;
+
+    private String[] keys;
+
+    /** Each value is either a {@link String} or a {@link VdfNode}. */
+    private Object[] values;
+
+    private int size;
+
+    /** The position of the first occurrence of each lowercase key. */
+    private volatile Map<String, Integer> index;
+
+    private VdfNode(int capacity) {
+        keys = new String[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Reads a UTF-8 encoded document. The stream is not closed.
+     *
+     * @param in The document
+     * @return The root node
+     * @throws IOException If the stream could not be read or is not valid VDF
+     */
+    public static VdfNode read(InputStream in) throws IOException {
+        return read(new VdfParser(in));
+    }
+
+    /**
+     * Reads a document. The reader is not closed.
+     *
+     * @param in The document
+     * @return The root node
+     * @throws IOException If the reader could not be read or is not valid VDF
+     */
+    public static VdfNode read(Reader in) throws IOException {
+        return read(new VdfParser(in));
+    }
+
+    /**
+     * Reads a UTF-8 encoded file.
+     *
+     * @param file The file
+     * @return The root node
+     * @throws IOException If the file could not be read or is not valid VDF
+     */
+    public static VdfNode read(Path file) throws IOException {
+        TreeBuilder tree = new TreeBuilder();
+        VdfParser.parse(file, tree);
+        return tree.root();
+    }
+
+    private static VdfNode read(VdfParser parser) throws IOException {
+        TreeBuilder tree = new TreeBuilder();
+        parser.parse(tree);
+        return tree.root();
+    }
+
+    /**
+     * Gets the number of keys in this node, counting repeated keys.
+     *
+     * @return The number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a key by position.
+     *
+     * @param i The position, from 0 to {@link #size()} - 1
+     * @return The key
+     */
+    public String getKey(int i) {
+        checkIndex(i);
+        return keys[i];
+    }
+
+    /**
+     * Gets a value by position.
+     *
+     * @param i The position, from 0 to {@link #size()} - 1
+     * @return The value, a {@link String} or a {@link VdfNode}
+     */
+    public Object getValue(int i) {
+        checkIndex(i);
+        return values[i];
+    }
+
+    /**
+     * Gets the value of the first occurrence of a key.
+     *
+     * @param key The key, case-insensitive
+     * @return The value, a {@link String} or a {@link VdfNode}, or {@code null}
+     *         if there is no such key
+     */
+    public Object get(String key) {
+        int i = indexOf(key);
+        return i < 0 ? null : values[i];
+    }
+
+    /**
+     * Follows a path of keys from this node, for example
+     * {@code get("items_game", "items", "5021", "name")}.
+     *
+     * @param path The keys, case-insensitive
+     * @return The value at the end of the path, a {@link String} or a
+     *         {@link VdfNode}, or {@code null} if the path does not exist
+     */
+    public Object get(String... path) {
+        Object value = this;
+        for (String key : path) {
+            if (!(value instanceof VdfNode)) {
+                return null;
+            }
+            value = ((VdfNode) value).get(key);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the string value of the first occurrence of a key.
+     *
+     * @param key The key, case-insensitive
+     * @return The value, or {@code null} if there is no such key or its value is a
+     *         node
+     */
+    public String getString(String key) {
+        Object value = get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * Gets the node value of the first occurrence of a key.
+     *
+     * @param key The key, case-insensitive
+     * @return The value, or {@code null} if there is no such key or its value is a
+     *         string
+     */
+    public VdfNode getNode(String key) {
+        Object value = get(key);
+        return value instanceof VdfNode ? (VdfNode) value : null;
+    }
+
+    /**
+     * Gets the values of all occurrences of a key.
+     *
+     * @param key The key, case-insensitive
+     * @return The values in document order, each a {@link String} or a
+     *         {@link VdfNode}
+     */
+    public List<Object> getAll(String key) {
+        List<Object> res = new ArrayList<>();
+        for (int i = indexOf(key); i >= 0 && i < size; i++) {
+            if (keys[i].equalsIgnoreCase(key)) {
+                res.add(values[i]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Finds the first occurrence of a key.
+     *
+     * @return The position, or -1 if there is no such key
+     */
+    private int indexOf(String key) {
+        if (size <= INDEX_THRESHOLD) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equalsIgnoreCase(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Map<String, Integer> index = this.index;
+        if (index == null) {
+            // Racing threads build the same index, so no need to lock
+            index = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                index.putIfAbsent(keys[i].toLowerCase(Locale.ROOT), i);
+            }
+            this.index = index;
+        }
+        Integer i = index.get(key.toLowerCase(Locale.ROOT));
+        return i == null ? -1 : i;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+    }
+
+    private void add(String key, Object value) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+    }
+
+    private void trim() {
+        if (size < keys.length) {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                res.append(", ");
+            }
+            res.append(keys[i]).append('=').append(values[i]);
+        }
+        return res.append('}').toString();
+    }
+
+    /**
+     * Builds a tree from parser events.
+     */
+    private static final class TreeBuilder implements VdfHandler {
+
+        private VdfNode[] stack = { new VdfNode(4) };
+        private int depth;
+
+        @Override
+        public void startObject(String key) {
+            VdfNode node = new VdfNode(4);
+            stack[depth].add(key, node);
+            if (++depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth] = node;
+        }
+
+        @Override
+        public void endObject() {
+            stack[depth--].trim();
+        }
+
+        @Override
+        public void value(String key, String value) {
+            stack[depth].add(key, value);
+        }
+
+        VdfNode root() {
+            stack[0].trim();
+            return stack[0];
+        }
+    }
+}
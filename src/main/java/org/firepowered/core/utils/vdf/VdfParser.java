@@ -0,0 +1,312 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.vdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A streaming parser for Valve's KeyValues text format (VDF), as returned by
+ * the Steam Web API with {@link org.firepowered.core.utils.steam.Builder.Format#VDF
+ * Format.VDF} and used by game files such as {@code items_game.txt}. The
+ * document is read in a single pass and reported to a {@link VdfHandler}, so it
+ * never has to be held in memory as a whole. Use {@link VdfNode} to build a
+ * tree instead.
+ * <p>
+ * Keys and values may be quoted or unquoted. Quoted strings support the
+ * {@code \n}, {@code \t}, {@code \\} and {@code \"} escapes; any other backslash
+ * is kept as is. {@code //} comments and conditionals such as
+ * {@code [$WIN32]} are ignored. Short strings are shared between occurrences,
+ * so the many repeated keys of a large file do not each allocate a new
+ * {@link String}.
+ * <p>
+ * Instances are not thread-safe and can only parse once.
+ *
+ * @since 1.3
+ */
+public final class VdfParser {
+
+    /** Returned by {@link #nextToken()} when a string was read into {@link #token}. */
+    private static final int STRING = -2;
+
+    private static final int EOF = -1;
+
+    /** Strings longer than this are not shared. */
+    private static final int MAX_SHARED_LENGTH = 32;
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+    private int line = 1;
+
+    /** The text of the last string token. */
+    private final StringBuilder token = new StringBuilder();
+
+    /** Recently read short strings, indexed by hash. */
+    private final String[] shared = new String[2048];
+
+    /**
+     * Creates a new parser over UTF-8 encoded bytes.
+     *
+     * @param in The stream, must not be {@code null}
+     */
+    public VdfParser(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a new parser.
+     *
+     * @param in The reader, must not be {@code null}
+     */
+    public VdfParser(Reader in) {
+        assert in != null;
+        this.in = in;
+    }
+
+    /**
+     * Parses a UTF-8 encoded file.
+     *
+     * @param file    The file
+     * @param handler Receives the events
+     * @throws IOException If the file could not be read, is not valid VDF, or
+     *                     {@code handler} threw
+     */
+    public static void parse(Path file, VdfHandler handler) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            new VdfParser(reader).parse(handler);
+        }
+    }
+
+    /**
+     * Parses the whole document. The underlying stream is not closed.
+     *
+     * @param handler Receives the events
+     * @throws IOException If the stream could not be read, is not valid VDF, or
+     *                     {@code handler} threw
+     */
+    public void parse(VdfHandler handler) throws IOException {
+        int depth = 0;
+        // Skip a byte order mark
+        if (fill() && buf[0] == '\uFEFF') {
+            pos++;
+        }
+        while (true) {
+            int t = nextToken();
+            if (t == EOF) {
+                if (depth != 0) {
+                    throw syntaxError("Unexpected end of document, " + depth + " objects not closed");
+                }
+                return;
+            } else if (t == '}') {
+                if (depth == 0) {
+                    throw syntaxError("Unexpected '}'");
+                }
+                depth--;
+                handler.endObject();
+                continue;
+            } else if (t == '{') {
+                throw syntaxError("Expected a key but was '{'");
+            }
+
+            String key = string();
+            t = nextToken();
+            if (t == '{') {
+                depth++;
+                handler.startObject(key);
+            } else if (t == STRING) {
+                handler.value(key, string());
+            } else {
+                throw syntaxError("Expected a value for key \"" + key + "\"");
+            }
+        }
+    }
+
+    /**
+     * Reads the next token, skipping whitespace, comments and conditionals.
+     *
+     * @return <code>{</code>, <code>}</code>, {@link #STRING} or {@link #EOF}
+     */
+    private int nextToken() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buf[pos++];
+            switch (c) {
+            case '\n':
+                line++;
+                break;
+            case ' ':
+            case '\t':
+            case '\r':
+                break;
+            case '{':
+            case '}':
+                return c;
+            case '"':
+                readQuoted();
+                return STRING;
+            case '/':
+                if ((pos < limit || fill()) && buf[pos] == '/') {
+                    skipLine();
+                    break;
+                }
+                readUnquoted(c);
+                return STRING;
+            case '[':
+                skipConditional();
+                break;
+            default:
+                if (Character.isWhitespace(c)) {
+                    break;
+                }
+                readUnquoted(c);
+                return STRING;
+            }
+        }
+        return EOF;
+    }
+
+    /**
+     * Reads a string whose opening quote was already consumed into
+     * {@link #token}.
+     */
+    private void readQuoted() throws IOException {
+        token.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos++];
+                if (c == '"') {
+                    token.append(buf, start, pos - start - 1);
+                    return;
+                } else if (c == '\\') {
+                    token.append(buf, start, pos - start - 1);
+                    readEscape();
+                    start = pos;
+                } else if (c == '\n') {
+                    line++;
+                }
+            }
+            token.append(buf, start, pos - start);
+            if (!fill()) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unterminated string");
+        }
+        char c = buf[pos++];
+        switch (c) {
+        case 'n':
+            token.append('\n');
+            break;
+        case 't':
+            token.append('\t');
+            break;
+        case '\\':
+        case '"':
+            token.append(c);
+            break;
+        default:
+            // Not an escape, for example a Windows path
+            token.append('\\');
+            pos--;
+        }
+    }
+
+    /**
+     * Reads an unquoted string, starting with {@code first}, into {@link #token}.
+     */
+    private void readUnquoted(char first) throws IOException {
+        token.setLength(0);
+        token.append(first);
+        while (pos < limit || fill()) {
+            char c = buf[pos];
+            if (c == '"' || c == '{' || c == '}' || Character.isWhitespace(c)) {
+                return;
+            }
+            token.append(c);
+            pos++;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        while (pos < limit || fill()) {
+            if (buf[pos++] == '\n') {
+                line++;
+                return;
+            }
+        }
+    }
+
+    private void skipConditional() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buf[pos++];
+            if (c == ']') {
+                return;
+            } else if (c == '\n') {
+                break;
+            }
+        }
+        throw syntaxError("Unterminated conditional");
+    }
+
+    /**
+     * Converts {@link #token} into a string, reusing an earlier equal one if
+     * possible.
+     */
+    private String string() {
+        int len = token.length();
+        if (len > MAX_SHARED_LENGTH) {
+            return token.toString();
+        }
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + token.charAt(i);
+        }
+        int slot = (h ^ (h >>> 11)) & (shared.length - 1);
+        String s = shared[slot];
+        if (s == null || !s.contentEquals(token)) {
+            s = token.toString();
+            shared[slot] = s;
+        }
+        return s;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) {
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed VDF: " + message + " at line " + line);
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors used to run blocking I/O tasks, such as HTTP requests.
+ * <p>
+ * This is the Java 21 implementation, which starts one virtual thread per task.
+ * Callers are expected to limit the number of tasks in flight themselves (for
+ * example with a {@link java.util.concurrent.Semaphore Semaphore}).
+ *
+ * @since 1.3
+ */
+public final class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Creates a new executor which runs each submitted task on its own virtual
+     * thread.
+     *
+     * @param name The prefix for the names of the created threads, must not be
+     *             {@code null}
+     * @return The executor, which must be shut down by the caller
+     */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        assert name != null;
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+    }
+
+    /**
+     * Returns whether tasks submitted to {@link #newPerTaskExecutor(String)} run
+     * on virtual threads.
+     *
+     * @return {@code true} on Java 21 and newer, {@code false} otherwise
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+}
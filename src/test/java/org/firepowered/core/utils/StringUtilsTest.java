@@ -18,8 +18,13 @@ package org.firepowered.core.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Assertions;
@@ -81,4 +86,73 @@ public class StringUtilsTest {
 
         Assertions.assertThrows(AssertionError.class, () -> StringUtils.randomStringAlphaNum(0));
     }
+
+    @Test
+    public void testRandomString_modes() {
+        String[] patterns = { null, "[A-Za-z]+", "[0-9]+", "[A-Za-z0-9]+", "[!@#$%^&*_-]+", "[A-Za-z!@#$%^&*_-]+",
+                "[0-9!@#$%^&*_-]+", "[A-Za-z0-9!@#$%^&*_-]+" };
+        for (int mode = 1; mode < patterns.length; mode++) {
+            Set<Character> seen = new HashSet<>();
+            for (char c : StringUtils.randomString(2000, mode).toCharArray()) {
+                seen.add(c);
+            }
+            StringBuilder chars = new StringBuilder();
+            seen.forEach(chars::append);
+            assertTrue(Pattern.matches(patterns[mode], chars), patterns[mode] + ": " + chars);
+            // Every character of the charset shows up
+            assertEquals(((mode & StringUtils.RANDOM_ALPHA) != 0 ? 52 : 0)
+                    + ((mode & StringUtils.RANDOM_NUM) != 0 ? 10 : 0)
+                    + ((mode & StringUtils.RANDOM_SPEC) != 0 ? 10 : 0), seen.size());
+        }
+        // Unknown flags are ignored
+        assertTrue(Pattern.matches("[0-9]{5}", StringUtils.randomString(5, 4096 | StringUtils.RANDOM_NUM)));
+    }
+
+    @Test
+    public void testFillRandom() {
+        char[] buf = "..........".toCharArray();
+        StringUtils.fillRandom(buf, 2, 5, StringUtils.RANDOM_NUM);
+        assertTrue(Pattern.matches("\\.\\.[0-9]{5}\\.\\.\\.", new String(buf)));
+        StringUtils.fillRandom(buf, 0, 0, StringUtils.RANDOM_NUM);
+        StringUtils.fillRandom(buf, 0, buf.length, 0);
+        assertTrue(Pattern.matches("[A-Za-z0-9]{10}", new String(buf)));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> StringUtils.fillRandom(buf, 8, 5, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> StringUtils.fillRandom(buf, -1, 5, 0));
+        assertThrows(IllegalArgumentException.class, () -> StringUtils.fillRandom(buf, 0, 5, 4096));
+    }
+
+    @Test
+    public void testRandomStrings() {
+        List<String> strings = StringUtils.randomStrings(100, 16, StringUtils.RANDOM_ALPHA);
+        assertEquals(100, strings.size());
+        for (String s : strings) {
+            assertTrue(Pattern.matches("[A-Za-z]{16}", s));
+        }
+        assertEquals(100, new HashSet<>(strings).size());
+        assertThrows(UnsupportedOperationException.class, () -> strings.add("x"));
+
+        assertTrue(StringUtils.randomStrings(0, 16, 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> StringUtils.randomStrings(1, 16, 4096));
+        assertThrows(AssertionError.class, () -> StringUtils.randomStrings(1, 0, 0));
+    }
+
+    @Test
+    public void testRandomString_threads() throws Exception {
+        Set<String> strings = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    strings.add(StringUtils.randomStringAlphaNum(16));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Threads don't share a sequence
+        assertEquals(4000, strings.size());
+    }
 }
@@ -0,0 +1,65 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class TaskExecutorsTest {
+
+    @Test
+    public void testNewPerTaskExecutor() throws InterruptedException, ExecutionException {
+        ExecutorService executor = TaskExecutors.newPerTaskExecutor("test-");
+        Future<String> name = executor.submit(() -> Thread.currentThread().getName());
+        assertTrue(name.get().startsWith("test-"));
+
+        Future<Boolean> daemon = executor.submit(() -> Thread.currentThread().isDaemon());
+        // Never keep the JVM alive, virtual threads are always daemon threads
+        assertTrue(daemon.get());
+
+        Future<Boolean> virtual = executor.submit(TaskExecutorsTest::isVirtualThread);
+        assertEquals(TaskExecutors.isVirtual(), virtual.get());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testIsVirtual() {
+        // The Java 21 layer is only loaded from the multi-release JAR, not from a
+        // directory such as target/classes
+        boolean jar = TaskExecutors.class.getProtectionDomain().getCodeSource().getLocation().getPath()
+                .endsWith(".jar");
+        assertEquals(jar && Runtime.version().feature() >= 21, TaskExecutors.isVirtual());
+    }
+
+    private static boolean isVirtualThread() throws ReflectiveOperationException {
+        if (Runtime.version().feature() < 21) {
+            return false;
+        }
+        // Thread.isVirtual() was added in Java 21
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.firepowered.core.utils.json.JsonReader.Token;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class JsonReaderTest {
+
+    private static final String PLAYERS = "{\"response\":{\"players\":[{\"steamid\":\"76561197960287930\","
+            + "\"personaname\":\"Rabscuttle \\u00e9\\\"\",\"profilestate\":1,\"extra\":[1,2.5e3,{\"a\":null}]},"
+            + "{\"steamid\":\"76561198091343023\",\"personaname\":\"Dragon\",\"profilestate\":0}]}}";
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSelect() throws IOException {
+        Map<String, String> res = JsonReader.select(stream(PLAYERS), "response.players[0].personaname",
+                "response.players[1].steamid", "response.players[0].extra[2].a", "response.missing");
+        assertEquals(3, res.size());
+        assertEquals("Rabscuttle \u00e9\"", res.get("response.players[0].personaname"));
+        assertEquals("76561198091343023", res.get("response.players[1].steamid"));
+        assertTrue(res.containsKey("response.players[0].extra[2].a"));
+        assertNull(res.get("response.players[0].extra[2].a"));
+
+        res = JsonReader.select(stream("{\"response\":{\"success\":42,\"message\":\"No match\"}}"),
+                "response.success", "response.steamid", "response.message");
+        assertEquals("42", res.get("response.success"));
+        assertEquals("No match", res.get("response.message"));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        List<Long> ids = JsonReader.read(stream(PLAYERS), "response.players", reader -> reader.nextList(r -> {
+            long id = 0;
+            r.beginObject();
+            while (r.hasNext()) {
+                if (r.nextName().equals("steamid")) {
+                    id = r.nextLong();
+                } else {
+                    r.skipValue();
+                }
+            }
+            r.endObject();
+            return id;
+        }));
+        assertEquals(List.of(76561197960287930L, 76561198091343023L), ids);
+
+        assertNull(JsonReader.read(stream(PLAYERS), "response.players[2]", JsonReader::nextString));
+        assertNull(JsonReader.read(stream(PLAYERS), "response[0]", JsonReader::nextString));
+    }
+
+    @Test
+    public void testPeek() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(" [ true, false, null, -1.5, \"s\", {}, [] ] "));
+        reader.beginArray();
+        assertTrue(reader.nextBoolean());
+        assertFalse(reader.nextBoolean());
+        reader.nextNull();
+        assertEquals(-1.5, reader.nextDouble(), 0);
+        assertEquals(Token.STRING, reader.peek());
+        assertEquals("s", reader.nextString());
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        reader.beginArray();
+        reader.endArray();
+        reader.endArray();
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+        reader.close();
+
+        for (String number : List.of("0", "-0", "10", "1.5e-3", "2E+10", "-12.25", "0.0e0")) {
+            assertEquals(Token.NUMBER, new JsonReader(new StringReader(number)).peek(), number);
+        }
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        JsonReader reader = new JsonReader(stream(PLAYERS + " "));
+        reader.skipValue();
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testMalformed() {
+        assertThrows(IOException.class, () -> JsonReader.select(stream("{\"a\" 1}"), "a"));
+        assertThrows(IOException.class, () -> JsonReader.select(stream("{\"a\":\"1"), "a"));
+        assertThrows(IOException.class, () -> JsonReader.select(stream("[1,]"), "[1]"));
+        JsonReader trailing = new JsonReader(stream("{} {}"));
+        assertThrows(IOException.class, () -> {
+            trailing.skipValue();
+            trailing.peek();
+        });
+        assertThrows(IOException.class, () -> new JsonReader(stream("tru")).skipValue());
+        assertThrows(IOException.class, () -> new JsonReader(stream("\"12a\"")).nextLong());
+        assertThrows(IOException.class, () -> new JsonReader(stream("1")).beginObject());
+        for (String number : List.of("1abc", "-", "01", "1.", ".5", "1e", "1e+", "--1", "1.2.3", "0x1F")) {
+            assertThrows(IOException.class, () -> new JsonReader(stream("[" + number + "]")).skipValue(), number);
+        }
+        for (String keyword : List.of("tru", "nul", "falsey", "True")) {
+            assertThrows(IOException.class, () -> new JsonReader(stream(keyword)).skipValue(), keyword);
+        }
+    }
+}
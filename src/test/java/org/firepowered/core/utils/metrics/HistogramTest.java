@@ -0,0 +1,89 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = Histogram.index(value);
+            assertTrue(value <= Histogram.upperBound(index), "value " + value);
+            assertTrue(index == 0 || value > Histogram.upperBound(index - 1), "value " + value);
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.index(Long.MAX_VALUE)));
+        for (long value = Histogram.SUB_BUCKETS; value > 0; value = value * 3 + 1) {
+            long bound = Histogram.upperBound(Histogram.index(value));
+            // Within one sub-bucket of the value
+            assertTrue(bound - value <= value / Histogram.SUB_BUCKETS, "value " + value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1001, snapshot.getCount());
+        assertEquals(500_500_000, snapshot.getSum());
+        assertEquals(0, snapshot.getValueAtPercentile(0));
+        long median = snapshot.getValueAtPercentile(50);
+        assertTrue(median >= 500_000 && median <= 500_000 * 17 / 16, "median " + median);
+        long p99 = snapshot.getValueAtPercentile(99);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 17 / 16, "p99 " + p99);
+        long max = snapshot.getMax();
+        assertTrue(max >= 1_000_000 && max <= 1_000_000 * 17 / 16, "max " + max);
+        assertEquals(max, snapshot.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getSum());
+        // The snapshot is a copy
+        assertEquals(1001, snapshot.getCount());
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        Histogram histogram = new Histogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(400_000, histogram.snapshot().getCount());
+        assertEquals(4L * 99_999 * 100_000 / 2, histogram.snapshot().getSum());
+    }
+}
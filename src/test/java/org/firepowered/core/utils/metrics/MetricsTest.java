@@ -0,0 +1,89 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class MetricsTest {
+
+    @Test
+    public void testRegistry() {
+        Counter counter = Metrics.counter("test_registry_total", "type", "a");
+        assertSame(counter, Metrics.counter("test_registry_total", "type", "a"));
+        counter.add(2);
+        Metrics.counter("test_registry_total", "type", "b").increment();
+        Metrics.histogram("test_registry_seconds", "path", "/x").record(1_000_000);
+        AtomicLong external = new AtomicLong(7);
+        Metrics.register("test_registry_external_total", external::get);
+
+        Metrics.Snapshot snapshot = Metrics.snapshot();
+        assertEquals(2, snapshot.getCounters().get("test_registry_total{type=\"a\"}").longValue());
+        assertEquals(1, snapshot.getCounters().get("test_registry_total{type=\"b\"}").longValue());
+        assertEquals(7, snapshot.getCounters().get("test_registry_external_total").longValue());
+        assertEquals(1, snapshot.getHistograms().get("test_registry_seconds{path=\"/x\"}").getCount());
+
+        assertThrows(IllegalArgumentException.class, () -> Metrics.histogram("test_registry_total"));
+
+        Metrics.reset();
+        snapshot = Metrics.snapshot();
+        assertEquals(0, snapshot.getCounters().get("test_registry_total{type=\"a\"}").longValue());
+        assertEquals(0, snapshot.getHistograms().get("test_registry_seconds{path=\"/x\"}").getCount());
+        // Kept elsewhere, so not reset
+        assertEquals(7, snapshot.getCounters().get("test_registry_external_total").longValue());
+    }
+
+    @Test
+    public void testPrometheus() {
+        Metrics.counter("test_prometheus_total", "name", "a \"quoted\" \\ value").add(3);
+        Histogram histogram = Metrics.histogram("test_prometheus_seconds", "method", "Get");
+        histogram.reset();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(2_000_000);
+        }
+        String text = Metrics.toPrometheus();
+        assertTrue(text.contains("# TYPE test_prometheus_total counter\n"), text);
+        assertTrue(text.contains("test_prometheus_total{name=\"a \\\"quoted\\\" \\\\ value\"} 3\n"), text);
+        assertTrue(text.contains("# TYPE test_prometheus_seconds summary\n"), text);
+        assertTrue(text.contains("test_prometheus_seconds{method=\"Get\",quantile=\"0.99\"} 0.00"), text);
+        assertTrue(text.contains("test_prometheus_seconds_sum{method=\"Get\"} 0.2\n"), text);
+        assertTrue(text.contains("test_prometheus_seconds_count{method=\"Get\"} 100\n"), text);
+        // Each name is described once, before its series
+        assertEquals(text.indexOf("# TYPE test_prometheus_seconds "),
+                text.lastIndexOf("# TYPE test_prometheus_seconds "));
+        assertTrue(text.indexOf("# TYPE test_prometheus_seconds ") < text.indexOf("test_prometheus_seconds{"));
+    }
+
+    @Test
+    public void testEnabled() {
+        assertTrue(Metrics.isEnabled());
+        Metrics.setEnabled(false);
+        try {
+            assertFalse(Metrics.isEnabled());
+        } finally {
+            Metrics.setEnabled(true);
+        }
+    }
+}
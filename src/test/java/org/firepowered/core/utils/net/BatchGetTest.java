@@ -0,0 +1,119 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class BatchGetTest {
+
+    @Test
+    public void testGetAllError() throws Exception {
+        HttpTransport failing = request -> {
+            throw new AssertionError("Broken transport");
+        };
+        List<URL> urls = List.of(new URL("http://127.0.0.1/a"), new URL("http://127.0.0.1/b"),
+                new URL("http://127.0.0.1/c"));
+        // Errors are passed on rather than leaving the calling thread waiting
+        List<GenericHttpGet.Result> results = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> GenericHttpGet.withTransport(failing, () -> GenericHttpGet.getAll(urls, 1)));
+        assertEquals(3, results.size());
+        for (GenericHttpGet.Result result : results) {
+            assertFalse(result.isSuccess());
+            assertTrue(result.getError().getCause() instanceof AssertionError, String.valueOf(result.getError()));
+        }
+    }
+
+    @Test
+    public void testGetAll() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            String path = exchange.getRequestURI().getPath();
+            int n = Integer.parseInt(path.substring(1));
+            try {
+                // Later URLs answer first
+                TimeUnit.MILLISECONDS.sleep(50 - 2 * n);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            byte[] body = path.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(n % 5 == 4 ? 500 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            List<URL> urls = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                urls.add(new URL(base + "/" + i));
+            }
+
+            List<GenericHttpGet.Result> results = GenericHttpGet.getAll(urls, 4);
+            assertEquals(20, results.size());
+            for (int i = 0; i < 20; i++) {
+                GenericHttpGet.Result result = results.get(i);
+                assertEquals(urls.get(i), result.getUrl());
+                if (i % 5 == 4) {
+                    assertFalse(result.isSuccess());
+                    assertEquals(500, ((HttpStatusException) result.getError()).getStatusCode());
+                } else {
+                    assertTrue(result.isSuccess());
+                    assertEquals("/" + i, result.getBody());
+                }
+            }
+            assertTrue(peak.get() <= 4, "peak " + peak.get());
+
+            Map<URL, GenericHttpGet.Result> received = new ConcurrentHashMap<>();
+            Thread caller = Thread.currentThread();
+            GenericHttpGet.getAll(urls, 20, result -> {
+                assertEquals(caller, Thread.currentThread());
+                received.put(result.getUrl(), result);
+            });
+            assertEquals(20, received.size());
+            assertEquals("/0", received.get(urls.get(0)).getBody());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
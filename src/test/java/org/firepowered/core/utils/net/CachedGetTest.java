@@ -0,0 +1,36 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class CachedGetTest {
+
+    @Test
+    public void testCacheKey() {
+        assertEquals("http://a/b?format=json&key=" + HttpCache.sha256("secret1"),
+                CachedGet.cacheKey("http://a/b?format=json&key=secret1"));
+        assertEquals("http://a/b?key=" + HttpCache.sha256("s") + "&format=json",
+                CachedGet.cacheKey("http://a/b?key=s&format=json"));
+        // A parameter which only ends in "key" is kept
+        assertEquals("http://a/b?apikey=s", CachedGet.cacheKey("http://a/b?apikey=s"));
+        assertEquals("http://a/b", CachedGet.cacheKey("http://a/b"));
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.firepowered.core.utils.net.CircuitBreaker.State;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class CircuitBreakerTest {
+
+    private HttpServer server;
+    private String base;
+    private String host;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            int status = 200;
+            if (failing.get()) {
+                status = 503;
+            } else if (exchange.getRequestURI().getPath().equals("/missing")) {
+                status = 404;
+            } else if (exchange.getRequestURI().getPath().equals("/moved")) {
+                status = 302;
+                exchange.getResponseHeaders().set("Location", "/a/moved");
+            }
+            exchange.getResponseHeaders().set("ETag", "\"1\"");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        host = "127.0.0.1:" + server.getAddress().getPort();
+        base = "http://" + host;
+    }
+
+    @AfterEach
+    public void stopServer() {
+        GenericHttpGet.setCircuitBreaker(null);
+        GenericHttpGet.setCache(null);
+        server.stop(0);
+    }
+
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker(4, 4, 0.5, Duration.ofSeconds(5), 1, Duration.ofMillis(200), 2);
+    }
+
+    @Test
+    public void testEndpoint() {
+        assertEquals("api.steampowered.com/ISteamUser", CircuitBreaker
+                .endpoint(URI.create("http://api.steampowered.com/ISteamUser/ResolveVanityURL/v0001/?vanityurl=a")));
+        assertEquals("steamcommunity.com/profiles",
+                CircuitBreaker.endpoint(URI.create("https://steamcommunity.com/profiles/76561197960287930?xml=1")));
+        assertEquals("steamcommunity.com/id",
+                CircuitBreaker.endpoint(URI.create("https://steamcommunity.com/id/gaben/")));
+        assertEquals("localhost:8080/a", CircuitBreaker.endpoint(URI.create("http://localhost:8080/a")));
+        assertEquals("localhost:8080/", CircuitBreaker.endpoint(URI.create("http://localhost:8080/")));
+        assertEquals("localhost:8080", CircuitBreaker.endpoint(URI.create("http://localhost:8080")));
+    }
+
+    @Test
+    public void testSharedCircuit() throws IOException {
+        CircuitBreaker breaker = breaker();
+        GenericHttpGet.setCircuitBreaker(breaker);
+        failing.set(true);
+        // Each request is for a different resource, but all of them count
+        for (int i = 0; i < 4; i++) {
+            String url = base + "/a/" + i;
+            assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(url));
+        }
+        assertEquals(State.OPEN, breaker.getState(host + "/a"));
+        assertThrows(CircuitOpenException.class, () -> GenericHttpGet.getString(base + "/a/5"));
+    }
+
+    @Test
+    public void testRedirect() throws IOException {
+        CircuitBreaker breaker = breaker();
+        GenericHttpGet.setCircuitBreaker(breaker);
+        failing.set(true);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/a"));
+        }
+        failing.set(false);
+        requests.set(0);
+        // The redirect is answered, but the endpoint it leads to is open
+        assertThrows(CircuitOpenException.class, () -> GenericHttpGet.getString(base + "/moved"));
+        assertEquals(1, requests.get());
+        assertEquals(State.CLOSED, breaker.getState(host + "/moved"));
+    }
+
+    @Test
+    public void testMaxCircuits() throws IOException {
+        CircuitBreaker breaker = breaker();
+        GenericHttpGet.setCircuitBreaker(breaker);
+        failing.set(true);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/a"));
+        }
+        for (int i = 0; i < CircuitBreaker.MAX_CIRCUITS * 2; i++) {
+            breaker.circuit(URI.create(base + "/b" + i));
+            assertTrue(breaker.getStates().size() <= CircuitBreaker.MAX_CIRCUITS);
+        }
+        // The open circuit is kept
+        assertEquals(State.OPEN, breaker.getState(host + "/a"));
+    }
+
+    @Test
+    public void testOpenAndClose() throws Exception {
+        CircuitBreaker breaker = breaker();
+        GenericHttpGet.setCircuitBreaker(breaker);
+        String endpoint = host + "/a";
+        assertEquals(State.CLOSED, breaker.getState(endpoint));
+
+        assertEquals("ok", GenericHttpGet.getString(base + "/a"));
+        assertEquals("ok", GenericHttpGet.getString(base + "/a"));
+        failing.set(true);
+        assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/a"));
+        assertEquals(State.CLOSED, breaker.getState(endpoint));
+        assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/a"));
+        // Half of the last 4 failed
+        assertEquals(State.OPEN, breaker.getState(endpoint));
+        assertEquals(Map.of(endpoint, State.OPEN), breaker.getStates());
+
+        // Fails without a request
+        CircuitOpenException e = assertThrows(CircuitOpenException.class,
+                () -> GenericHttpGet.getString(base + "/a"));
+        assertEquals(endpoint, e.getEndpoint());
+        assertEquals(4, requests.get());
+        assertEquals(1, breaker.getRejected());
+        // Other endpoints are not affected
+        assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/b"));
+        assertEquals(State.CLOSED, breaker.getState(host + "/b"));
+
+        // A failed trial opens the circuit again
+        TimeUnit.MILLISECONDS.sleep(250);
+        assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/a"));
+        assertEquals(State.OPEN, breaker.getState(endpoint));
+        assertThrows(CircuitOpenException.class, () -> GenericHttpGet.getString(base + "/a"));
+
+        // Successful trials close it
+        failing.set(false);
+        TimeUnit.MILLISECONDS.sleep(250);
+        assertEquals("ok", GenericHttpGet.getString(base + "/a"));
+        assertEquals(State.HALF_OPEN, breaker.getState(endpoint));
+        assertEquals("ok", GenericHttpGet.getString(base + "/a"));
+        assertEquals(State.CLOSED, breaker.getState(endpoint));
+    }
+
+    @Test
+    public void testClientErrors() throws IOException {
+        CircuitBreaker breaker = breaker();
+        GenericHttpGet.setCircuitBreaker(breaker);
+        for (int i = 0; i < 6; i++) {
+            assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/missing"));
+        }
+        assertEquals(State.CLOSED, breaker.getState(host + "/missing"));
+    }
+
+    @Test
+    public void testSlowCalls() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 1, Duration.ZERO, 1, Duration.ofMinutes(1), 1);
+        GenericHttpGet.setCircuitBreaker(breaker);
+        assertEquals("ok", GenericHttpGet.getString(base + "/a"));
+        assertEquals("ok", GenericHttpGet.getString(base + "/a"));
+        // Every request is slower than no time at all
+        assertEquals(State.OPEN, breaker.getState(host + "/a"));
+    }
+
+    @Test
+    public void testStaleFallback() throws IOException {
+        HttpCache cache = new HttpCache(1024);
+        GenericHttpGet.setCache(cache);
+        CircuitBreaker breaker = breaker();
+        GenericHttpGet.setCircuitBreaker(breaker);
+        assertEquals("ok", GenericHttpGet.getString(base + "/a?x=1"));
+        failing.set(true);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/a?x=1"));
+        }
+        assertEquals(State.OPEN, breaker.getState(host + "/a"));
+
+        // The cached response is served however stale it is
+        assertEquals("ok", GenericHttpGet.getString(base + "/a?x=1"));
+        assertEquals(1, cache.getStaleHits());
+        // Nothing is cached for this one
+        assertThrows(CircuitOpenException.class, () -> GenericHttpGet.getString(base + "/a?x=2"));
+        assertEquals(4, requests.get());
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class ConnectionPoolTest {
+
+    private HttpServer server;
+    private String base;
+    private String host;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger upgrades = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final AtomicBoolean stall = new AtomicBoolean();
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            if (exchange.getRequestHeaders().containsKey("Upgrade")) {
+                upgrades.incrementAndGet();
+            }
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (exchange.getRequestURI().getPath().equals("/slow")) {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                } else if (exchange.getRequestURI().getPath().equals("/trickle")) {
+                    exchange.sendResponseHeaders(200, 0);
+                    exchange.getResponseBody().write('o');
+                    exchange.getResponseBody().flush();
+                    unstall.await(10, TimeUnit.SECONDS);
+                    exchange.close();
+                    return;
+                } else if (stall.getAndSet(false) || exchange.getRequestURI().getPath().equals("/hang")) {
+                    unstall.await(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        host = "127.0.0.1:" + server.getAddress().getPort();
+        base = "http://" + host;
+    }
+
+    @AfterEach
+    public void stopServer() {
+        unstall.countDown();
+        GenericHttpGet.setTimeout(GenericHttpGet.DEFAULT_TIMEOUT);
+        ConnectionPool used = GenericHttpGet.getConnectionPool();
+        GenericHttpGet.setConnectionPool(new ConnectionPool());
+        used.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testKeepAlive() throws IOException {
+        ConnectionPool pool = new ConnectionPool();
+        GenericHttpGet.setConnectionPool(pool);
+        assertNull(pool.getStats(host));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok", GenericHttpGet.getString(base + "/"));
+        }
+        // Every request reused the first connection, without asking for HTTP/2
+        assertEquals(1, clientPorts.size());
+        assertEquals(0, upgrades.get());
+        assertEquals(5, pool.getStats(host).getRequests());
+        assertEquals(0, pool.getStats(host).getActive());
+        assertEquals(Set.of(host), pool.getHostStats().keySet());
+    }
+
+    @Test
+    public void testStreamReleased() throws IOException {
+        ConnectionPool pool = new ConnectionPool(1);
+        GenericHttpGet.setConnectionPool(pool);
+        try (InputStream in = GenericHttpGet.getStream(new URL(base + "/"))) {
+            assertEquals(1, pool.getStats().getActive());
+            in.readAllBytes();
+        }
+        assertEquals(0, pool.getStats().getActive());
+        // The only turn was given back, otherwise this would wait forever
+        assertEquals("ok", GenericHttpGet.getString(base + "/"));
+    }
+
+    @Test
+    public void testMaxRequestsPerHost() throws Exception {
+        ConnectionPool pool = new ConnectionPool(2);
+        GenericHttpGet.setConnectionPool(pool);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return GenericHttpGet.getString(base + "/slow");
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("ok", result.get());
+        }
+        executor.shutdown();
+
+        assertTrue(peak.get() <= 2, "peak " + peak.get());
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(6, stats.getRequests());
+        assertEquals(2, stats.getPeakActive());
+        assertEquals(0, stats.getWaiting());
+        assertTrue(stats.getWaitTime().toMillis() > 0);
+        assertTrue(clientPorts.size() <= 2);
+    }
+
+    @Test
+    public void testResponseTimeout() throws IOException {
+        ConnectionPool pool = new ConnectionPool();
+        GenericHttpGet.setConnectionPool(pool);
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class,
+                () -> Deadline.after(Duration.ofMillis(200)).call(() -> GenericHttpGet.getString(base + "/hang")));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, pool.getStats().getActive());
+    }
+
+    @Test
+    public void testBodyTimeout() throws IOException {
+        ConnectionPool pool = new ConnectionPool();
+        GenericHttpGet.setConnectionPool(pool);
+        GenericHttpGet.setTimeout(Duration.ofMillis(300));
+        long start = System.nanoTime();
+        // The headers arrive in time, but the rest of the body never does
+        assertThrows(HttpTimeoutException.class, () -> GenericHttpGet.getString(base + "/trickle"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, pool.getStats().getActive());
+    }
+
+    @Test
+    public void testTimeoutIncludesWait() throws Exception {
+        ConnectionPool pool = new ConnectionPool(1);
+        HttpResponse<InputStream> held = pool.send(HttpRequest.newBuilder(URI.create(base + "/")).build());
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        executor.schedule(() -> {
+            held.body().close();
+            return null;
+        }, 600, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        // Most of the timeout is spent waiting for the turn, only the rest is left
+        // for the response
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/hang")).timeout(Duration.ofMillis(800)).build();
+        assertThrows(HttpTimeoutException.class, () -> pool.send(request));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1200));
+        executor.shutdown();
+        assertEquals(0, pool.getStats().getActive());
+    }
+
+    @Test
+    public void testExpiredDeadline() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(-1));
+        assertThrows(HttpTimeoutException.class, () -> deadline.call(() -> GenericHttpGet.getString(base + "/")));
+        assertTrue(clientPorts.isEmpty());
+    }
+
+    @Test
+    public void testHedging() throws Exception {
+        ConnectionPool pool = new ConnectionPool(4, Duration.ofSeconds(10), true);
+        assertTrue(pool.isHedging());
+        assertFalse(new ConnectionPool().isHedging());
+        GenericHttpGet.setConnectionPool(pool);
+        for (int i = 0; i < ConnectionPool.MIN_HEDGE_SAMPLES; i++) {
+            assertEquals("ok", GenericHttpGet.getString(base + "/"));
+        }
+        assertEquals(0, pool.getStats().getHedgedRequests());
+        assertNotNull(pool.getStats(host).getHedgeDelay());
+
+        // The first attempt stalls, the hedged one answers
+        stall.set(true);
+        long start = System.nanoTime();
+        assertEquals("ok", GenericHttpGet.getString(base + "/"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        ConnectionPool.Stats stats = pool.getStats(host);
+        assertEquals(1, stats.getHedgedRequests());
+        assertEquals(ConnectionPool.MIN_HEDGE_SAMPLES + 1, stats.getRequests());
+
+        // The stalled attempt was cancelled, and gives up its turn once aborted or
+        // once its response arrives after all
+        unstall.countDown();
+        awaitIdle(pool);
+    }
+
+    @Test
+    public void testHedgingInterrupted() throws Exception {
+        ConnectionPool pool = new ConnectionPool(4, Duration.ofSeconds(10), true);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/")).build();
+        for (int i = 0; i < ConnectionPool.MIN_HEDGE_SAMPLES; i++) {
+            pool.send(request).body().close();
+        }
+        assertNotNull(pool.getStats(host).getHedgeDelay());
+
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedIOException.class, () -> pool.send(request));
+        assertTrue(Thread.interrupted());
+        // The abandoned attempt gives up its turn
+        awaitIdle(pool);
+    }
+
+    @Test
+    public void testPeakActive() throws IOException {
+        ConnectionPool pool = new ConnectionPool();
+        String other = "http://localhost:" + server.getAddress().getPort();
+        for (String url : List.of(base + "/", other + "/")) {
+            try (InputStream first = pool.send(HttpRequest.newBuilder(URI.create(url)).build()).body();
+                    InputStream second = pool.send(HttpRequest.newBuilder(URI.create(url)).build()).body()) {
+                assertEquals(2, pool.getStats().getActive());
+            }
+        }
+        // Each host had two requests in flight, but never at the same time
+        assertEquals(2, pool.getStats(host).getPeakActive());
+        assertEquals(2, pool.getStats().getPeakActive());
+        assertEquals(0, pool.getStats().getActive());
+        pool.close();
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        ConnectionPool pool = new ConnectionPool();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/")).timeout(Duration.ofSeconds(5)).build();
+        try (InputStream in = pool.send(request).body()) {
+            pool.close();
+            // Requests in flight finish
+            assertEquals("ok", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertThrows(IllegalStateException.class, () -> pool.send(request));
+        assertThrows(IllegalStateException.class, () -> pool.sendAsync(request));
+    }
+
+    private static void awaitIdle(ConnectionPool pool) throws InterruptedException {
+        for (int i = 0; i < 100 && pool.getStats().getActive() > 0; i++) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertEquals(0, pool.getStats().getActive());
+    }
+}
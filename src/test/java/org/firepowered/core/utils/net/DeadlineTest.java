@@ -0,0 +1,79 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class DeadlineTest {
+
+    @Test
+    public void testRemaining() {
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remaining().compareTo(Duration.ofMinutes(1)) <= 0);
+        assertTrue(deadline.remaining().compareTo(Duration.ofSeconds(50)) > 0);
+
+        assertTrue(Deadline.after(Duration.ZERO).isExpired());
+        assertTrue(Deadline.after(Duration.ofMillis(-5)).remaining().isNegative());
+        // Does not overflow
+        assertFalse(Deadline.after(Duration.ofSeconds(Long.MAX_VALUE)).isExpired());
+    }
+
+    @Test
+    public void testCurrent() {
+        assertNull(Deadline.current());
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        assertSame(deadline, deadline.call(Deadline::current));
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testNested() {
+        Deadline outer = Deadline.after(Duration.ofMinutes(1));
+        Deadline later = Deadline.after(Duration.ofMinutes(2));
+        Deadline earlier = Deadline.after(Duration.ofSeconds(1));
+        outer.call(() -> {
+            // The earlier deadline always applies
+            assertSame(outer, later.call(Deadline::current));
+            assertSame(earlier, earlier.call(Deadline::current));
+            assertSame(outer, Deadline.current());
+            return null;
+        });
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testException() {
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+        IOException e = assertThrows(IOException.class, () -> deadline.call(() -> {
+            throw new IOException("failed");
+        }));
+        assertEquals("failed", e.getMessage());
+        assertNull(Deadline.current());
+    }
+}
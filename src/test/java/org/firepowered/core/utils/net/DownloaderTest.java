@@ -0,0 +1,182 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class DownloaderTest {
+
+    @Test
+    public void testDownloadTo() throws IOException, NoSuchAlgorithmException {
+        byte[] file = new byte[200_000];
+        for (int i = 0; i < file.length; i++) {
+            file[i] = (byte) (i * 31);
+        }
+        AtomicReference<String> range = new AtomicReference<>();
+        AtomicReference<String> ifRange = new AtomicReference<>();
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String requested = exchange.getRequestHeaders().getFirst("Range");
+            range.set(requested);
+            ifRange.set(exchange.getRequestHeaders().getFirst("If-Range"));
+            if (exchange.getRequestURI().getPath().equals("/unavailable")) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            int start = 0;
+            if (requested != null && exchange.getRequestURI().getPath().equals("/ranges")
+                    && (ifRange.get() == null || ifRange.get().equals("\"v1\""))) {
+                start = Integer.parseInt(requested.substring(6, requested.length() - 1));
+                if (start >= file.length) {
+                    exchange.getResponseHeaders().add("Content-Range", "bytes */" + file.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + (file.length - 1) + "/" + file.length);
+                exchange.sendResponseHeaders(206, file.length - start);
+            } else {
+                exchange.sendResponseHeaders(200, file.length);
+            }
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(file, start, file.length - start);
+            }
+        });
+        server.start();
+        Path dir = Files.createTempDirectory("fp-download");
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            Path target = dir.resolve("schema.bin");
+            Path part = dir.resolve("schema.bin.part");
+            Path validator = dir.resolve("schema.bin.part.validator");
+            assertEquals(file.length, GenericHttpGet.downloadTo(new URL(base + "/ranges"), target));
+            assertArrayEquals(file, Files.readAllBytes(target));
+            assertFalse(Files.exists(part));
+            assertFalse(Files.exists(validator));
+
+            // Resumes from the partial file if it is the same version, replacing the
+            // target
+            Files.write(part, Arrays.copyOf(file, 12_345));
+            Files.writeString(validator, "\"v1\"");
+            assertEquals(file.length, GenericHttpGet.downloadTo(new URL(base + "/ranges"), target));
+            assertEquals("bytes=12345-", range.get());
+            assertEquals("\"v1\"", ifRange.get());
+            assertArrayEquals(file, Files.readAllBytes(target));
+            assertFalse(Files.exists(validator));
+
+            // The partial file was already complete
+            Files.write(part, file);
+            Files.writeString(validator, "\"v1\"");
+            assertEquals(file.length, GenericHttpGet.downloadTo(new URL(base + "/ranges"), target));
+            assertArrayEquals(file, Files.readAllBytes(target));
+
+            // The partial file is of an older version, so everything is sent again
+            Files.write(part, Arrays.copyOf(file, 100));
+            Files.writeString(validator, "\"v0\"");
+            assertEquals(file.length, GenericHttpGet.downloadTo(new URL(base + "/ranges"), target));
+            assertEquals("\"v0\"", ifRange.get());
+            assertArrayEquals(file, Files.readAllBytes(target));
+
+            // Without a validator the partial file cannot be trusted
+            Files.write(part, Arrays.copyOf(file, 100));
+            assertEquals(file.length, GenericHttpGet.downloadTo(new URL(base + "/ranges"), target));
+            assertNull(range.get());
+            assertArrayEquals(file, Files.readAllBytes(target));
+
+            // The partial file is longer than the resource, so the download starts
+            // over
+            requests.set(0);
+            Files.write(part, Arrays.copyOf(file, file.length + 10));
+            Files.writeString(validator, "\"v1\"");
+            assertEquals(file.length, GenericHttpGet.downloadTo(new URL(base + "/ranges"), target));
+            assertEquals(2, requests.get());
+            assertNull(range.get());
+            assertArrayEquals(file, Files.readAllBytes(target));
+
+            // The server ignores the range and sends everything again
+            Files.write(part, Arrays.copyOf(file, 100));
+            Files.writeString(validator, "\"v1\"");
+            assertEquals(file.length, GenericHttpGet.downloadTo(new URL(base + "/full"), target));
+            assertArrayEquals(file, Files.readAllBytes(target));
+
+            // A failed request keeps the partial file for the next attempt
+            Files.write(part, Arrays.copyOf(file, 100));
+            Files.writeString(validator, "\"v1\"");
+            assertThrows(HttpStatusException.class,
+                    () -> GenericHttpGet.downloadTo(new URL(base + "/unavailable"), target));
+            assertEquals(100, Files.size(part));
+            assertEquals("\"v1\"", Files.readString(validator));
+            Files.delete(part);
+            Files.delete(validator);
+
+            // Digests
+            String sha256 = toHex(MessageDigest.getInstance("SHA-256").digest(file));
+            Files.delete(target);
+            GenericHttpGet.downloadTo(new URL(base + "/"), target, "SHA-256", sha256.toUpperCase());
+            assertArrayEquals(file, Files.readAllBytes(target));
+            IOException e = assertThrows(IOException.class,
+                    () -> GenericHttpGet.downloadTo(new URL(base + "/"), dir.resolve("bad"), "SHA-256", "00"));
+            assertTrue(e.getMessage().startsWith("Digest mismatch for bad"), e.getMessage());
+            assertFalse(Files.exists(dir.resolve("bad")));
+            assertFalse(Files.exists(dir.resolve("bad.part")));
+        } finally {
+            server.stop(0);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) {
+                    Files.delete(f);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder res = new StringBuilder();
+        for (byte b : bytes) {
+            res.append(String.format("%02x", b));
+        }
+        return res.toString();
+    }
+}
@@ -16,21 +16,269 @@
  */
 package org.firepowered.core.utils.net;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.firepowered.core.utils.steam.LocalSteamServer;
 import org.junit.jupiter.api.Test;
 
+import com.sun.net.httpserver.HttpServer;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 @SuppressWarnings("javadoc")
 public class GenericHttpGetTest {
 
     @Test
-    public void testGet() throws URISyntaxException, IOException, InterruptedException {
-        String url = "https://firepoweredgaming.com/core";
+    public void testGet() throws IOException {
+        try (LocalSteamServer server = new LocalSteamServer()) {
+            server.addResponse("/core", "Success");
+            String res = GenericHttpGet.withTransport(server.getTransport(),
+                    () -> GenericHttpGet.getString("https://firepoweredgaming.com/core"));
+            assertEquals("Success", res);
+        }
+    }
 
-        String res = GenericHttpGet.getString(url);
-        assertEquals("Success", res);
+    @Test
+    public void testGetStream() throws IOException {
+        try (LocalSteamServer server = new LocalSteamServer()) {
+            server.addResponse("/core", "Success");
+            String res = GenericHttpGet.withTransport(server.getTransport(), () -> {
+                try (InputStream in = GenericHttpGet.getStream(new URL("https://firepoweredgaming.com/core"))) {
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            });
+            assertEquals("Success", res);
+        }
     }
+
+    @Test
+    public void testBytes() throws IOException {
+        String name = "{\"personaname\":\"K\u00e9vin \u30c6\u30b9\u30c8\"}\r\n\n";
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            boolean latin1 = path.equals("/latin1");
+            byte[] body = name.getBytes(latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type",
+                    latin1 ? "text/plain; charset=\"ISO-8859-1\"" : "application/json");
+            // A length of 0 sends the body chunked, without a Content-Length
+            exchange.sendResponseHeaders(200, path.equals("/chunked") ? 0 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(utf8, GenericHttpGet.getBytes(new URL(base + "/")));
+            assertArrayEquals(utf8, GenericHttpGet.getBytes(new URL(base + "/chunked")));
+            assertEquals(ByteBuffer.wrap(utf8), GenericHttpGet.getByteBuffer(new URL(base + "/")));
+
+            // Decoded once with the right charset, keeping line breaks
+            assertEquals(name, GenericHttpGet.getString(base + "/"));
+            assertEquals(name, GenericHttpGet.getString(base + "/chunked"));
+            assertEquals("{\"personaname\":\"K\u00e9vin ???\"}\r\n\n", GenericHttpGet.getString(base + "/latin1"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testQuery() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = (exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawQuery() + " "
+                    + exchange.getRequestBody().readAllBytes().length).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            Map<String, String> params = new LinkedHashMap<>();
+            params.put("vanityurl", "a b&c");
+            params.put("key", "k");
+            assertEquals("GET key=k&vanityurl=a%20b%26c 0", GenericHttpGet.getString(base, params));
+            assertEquals("GET xml=1&key=k&vanityurl=a%20b%26c 0", GenericHttpGet.getString(base + "?xml=1", params));
+            assertEquals("GET xml=1 0", GenericHttpGet.getString(base + "?xml=1", Map.of()));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        Set<Integer> clients = ConcurrentHashMap.newKeySet();
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            clients.add(exchange.getRemoteAddress().getPort());
+            requests.incrementAndGet();
+            try {
+                // Keep every warm-up request in flight at once
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().equals("/") ? 404 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            Duration took = GenericHttpGet.warmUp(List.of(new URL(base + "/")), 3);
+            assertTrue(took.toMillis() >= 50);
+            assertEquals(3, requests.get());
+            assertEquals(3, clients.size());
+
+            // Later requests reuse the warm connections
+            for (int i = 0; i < 3; i++) {
+                assertEquals("ok", GenericHttpGet.getString(base + "/api"));
+            }
+            assertEquals(3, clients.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testTransport() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestURI().getPath().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        AtomicInteger global = new AtomicInteger();
+        AtomicInteger scoped = new AtomicInteger();
+        HttpTransport pool = GenericHttpGet.getConnectionPool();
+        assertEquals(pool, GenericHttpGet.getTransport());
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            GenericHttpGet.setTransport(request -> {
+                global.incrementAndGet();
+                return pool.send(request);
+            });
+            assertEquals("/a", GenericHttpGet.getString(base + "/a"));
+            assertEquals(1, global.get());
+
+            HttpTransport counting = request -> {
+                scoped.incrementAndGet();
+                return pool.send(request);
+            };
+            List<URL> urls = List.of(new URL(base + "/b"), new URL(base + "/c"));
+            List<GenericHttpGet.Result> results = GenericHttpGet.withTransport(counting, () -> {
+                assertEquals(counting, GenericHttpGet.currentTransport());
+                assertEquals("/b", GenericHttpGet.getString(base + "/b"));
+                // Passed on to the batch threads
+                return GenericHttpGet.getAll(urls, 2);
+            });
+            assertEquals("/c", results.get(1).getBody());
+            assertNull(GenericHttpGet.currentTransport());
+            assertEquals(3, scoped.get());
+            assertEquals(1, global.get());
+
+            HttpResponse<InputStream> response = counting
+                    .sendAsync(HttpRequest.newBuilder(URI.create(base + "/d")).build()).get();
+            try (InputStream body = response.body()) {
+                assertEquals("/d", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertEquals(4, scoped.get());
+        } finally {
+            GenericHttpGet.setTransport(null);
+            server.stop(0);
+        }
+        assertEquals(pool, GenericHttpGet.getTransport());
+    }
+
+    @Test
+    public void testFlightRecorder() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "cached".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().equals("/missing") ? 404 : 200,
+                    body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.firepowered.HttpRequest").withThreshold(Duration.ZERO);
+            recording.enable("org.firepowered.HttpCache").withThreshold(Duration.ZERO);
+            recording.start();
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            GenericHttpGet.setCache(new HttpCache(1024));
+            assertEquals("cached", GenericHttpGet.getString(base + "/a", Map.of("key", "secret")));
+            assertEquals("cached", GenericHttpGet.getString(base + "/a", Map.of("key", "secret")));
+            GenericHttpGet.setCache(null);
+            assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/missing"));
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> requests = new ArrayList<>();
+            List<String> results = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals("org.firepowered.HttpRequest")) {
+                    requests.add(event);
+                } else if (event.getEventType().getName().equals("org.firepowered.HttpCache")) {
+                    assertEquals(base + "/a", event.getString("url"));
+                    results.add(event.getString("result"));
+                }
+            }
+            assertEquals(List.of(HttpCacheEvent.MISS, HttpCacheEvent.HIT), results);
+            assertEquals(2, requests.size());
+            assertEquals(base + "/a", requests.get(0).getString("url"));
+            assertEquals(200, requests.get(0).getInt("status"));
+            assertEquals(6, requests.get(0).getLong("bytes"));
+            assertEquals(base + "/missing", requests.get(1).getString("url"));
+            assertEquals(404, requests.get(1).getInt("status"));
+        } finally {
+            GenericHttpGet.setCache(null);
+            server.stop(0);
+            Files.delete(file);
+        }
+    }
+
 }
@@ -0,0 +1,203 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class HttpCacheTest {
+
+    private HttpServer server;
+    private String base;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/etag", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                respond(exchange, "etag body");
+            }
+        });
+        server.createContext("/maxage", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=60");
+            respond(exchange, "maxage body " + exchange.getRequestURI().getQuery());
+        });
+        server.createContext("/nostore", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", "no-store, max-age=60");
+            respond(exchange, "nostore body");
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    @AfterEach
+    public void stopServer() {
+        GenericHttpGet.setCache(null);
+        server.stop(0);
+    }
+
+    @Test
+    public void testRevalidate() throws IOException {
+        HttpCache cache = new HttpCache(1024);
+        GenericHttpGet.setCache(cache);
+        assertEquals("etag body", GenericHttpGet.getString(base + "/etag"));
+        assertEquals("etag body", GenericHttpGet.getString(base + "/etag"));
+        assertEquals(2, requests.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testMaxAge() throws IOException {
+        HttpCache cache = new HttpCache(1024);
+        GenericHttpGet.setCache(cache);
+        assertEquals("maxage body a", GenericHttpGet.getString(base + "/maxage?a"));
+        assertEquals("maxage body a", GenericHttpGet.getString(base + "/maxage?a"));
+        assertEquals("maxage body b", GenericHttpGet.getString(base + "/maxage?b"));
+        assertEquals(2, requests.get());
+        assertEquals(1, cache.getHits());
+
+        assertEquals("nostore body", GenericHttpGet.getString(base + "/nostore"));
+        assertEquals("nostore body", GenericHttpGet.getString(base + "/nostore"));
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    public void testKeyNotCached() throws IOException {
+        HttpCache cache = new HttpCache(1024);
+        GenericHttpGet.setCache(cache);
+        GenericHttpGet.getString(base + "/maxage?format=json&key=secret1");
+        GenericHttpGet.getString(base + "/maxage?format=json&key=secret1");
+        // Responses are not shared between keys, the Web API answers differently per key
+        GenericHttpGet.getString(base + "/maxage?format=json&key=secret2");
+        assertEquals(2, requests.get());
+        assertNull(cache.get(base + "/maxage?format=json&key=secret1"));
+        assertNull(cache.get(base + "/maxage?format=json&key="));
+        assertNotNull(cache.get(CachedGet.cacheKey(base + "/maxage?format=json&key=secret1")));
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        // Only one body fits in memory at once
+        HttpCache cache = new HttpCache(20);
+        GenericHttpGet.setCache(cache);
+        GenericHttpGet.getString(base + "/maxage?a");
+        GenericHttpGet.getString(base + "/maxage?b");
+        GenericHttpGet.getString(base + "/maxage?a");
+        assertEquals(3, requests.get());
+        assertNull(cache.get(base + "/maxage?b"));
+    }
+
+    @Test
+    public void testDisk() throws IOException {
+        Path dir = Files.createTempDirectory("fp-cache-test");
+        GenericHttpGet.setCache(new HttpCache(1024, dir));
+        GenericHttpGet.getString(base + "/maxage?a");
+
+        // A new cache over the same directory still has the response
+        HttpCache cache = new HttpCache(1024, dir);
+        GenericHttpGet.setCache(cache);
+        assertEquals("maxage body a", GenericHttpGet.getString(base + "/maxage?a"));
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getHits());
+
+        cache.clear();
+        assertNull(cache.get(base + "/maxage?a"));
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testDiskEviction() throws IOException {
+        Path dir = Files.createTempDirectory("fp-cache-test");
+        // One body fits in memory, two files fit on disk
+        HttpCache cache = new HttpCache(20, dir, 80);
+        GenericHttpGet.setCache(cache);
+        GenericHttpGet.getString(base + "/maxage?a");
+        GenericHttpGet.getString(base + "/maxage?b");
+        GenericHttpGet.getString(base + "/maxage?c");
+        List<Path> files = files(dir);
+        assertEquals(2, files.size());
+        long size = 0;
+        for (Path file : files) {
+            size += Files.size(file);
+        }
+        assertTrue(size <= 80);
+        assertNull(cache.get(base + "/maxage?a"));
+
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1));
+        for (Path file : files) {
+            Files.setLastModifiedTime(file, old);
+        }
+        assertNotNull(cache.get(base + "/maxage?b"));
+
+        // A smaller cache over the same directory keeps the most recently used file
+        HttpCache smaller = new HttpCache(20, dir, 40);
+        assertEquals(1, files(dir).size());
+        assertNotNull(smaller.get(base + "/maxage?b"));
+        assertNull(smaller.get(base + "/maxage?c"));
+
+        smaller.clear();
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.firepowered.core.utils.steam.LocalSteamServer;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class HttpTransportTest {
+
+    private static final HttpRequest REQUEST = HttpRequest.newBuilder(URI.create("http://localhost/a")).build();
+
+    @Test
+    public void testSendAsync() throws Exception {
+        try (LocalSteamServer steam = new LocalSteamServer()) {
+            steam.addResponse("/a", "{}");
+            HttpTransport blocking = request -> steam.getTransport().send(request);
+            List<CompletableFuture<HttpResponse<InputStream>>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(blocking.sendAsync(REQUEST));
+            }
+            for (CompletableFuture<HttpResponse<InputStream>> response : responses) {
+                try (InputStream body = response.get().body()) {
+                    assertEquals(200, response.get().statusCode());
+                    assertEquals("{}", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            assertEquals(4, steam.getRequests());
+        }
+    }
+
+    @Test
+    public void testSendAsyncError() {
+        IOException error = new IOException("unreachable");
+        HttpTransport failing = request -> {
+            throw error;
+        };
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failing.sendAsync(REQUEST).get());
+        assertSame(error, e.getCause());
+    }
+}
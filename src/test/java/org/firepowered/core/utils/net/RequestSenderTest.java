@@ -0,0 +1,111 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class RequestSenderTest {
+
+    @Test
+    public void testRedirect() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/moved")) {
+                exchange.getResponseHeaders().add("Location", "/target");
+                exchange.sendResponseHeaders(301, -1);
+            } else if (path.startsWith("/loop/")) {
+                int hop = Integer.parseInt(path.substring(6));
+                exchange.getResponseHeaders().add("Location", "/loop/" + (hop + 1));
+                exchange.sendResponseHeaders(302, -1);
+            } else if (path.equals("/nowhere")) {
+                exchange.sendResponseHeaders(307, -1);
+            } else if (path.equals("/slow")) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(150);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.getResponseHeaders().add("Location", "/slow");
+                exchange.sendResponseHeaders(302, -1);
+            } else {
+                byte[] body = path.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            assertEquals("/target", GenericHttpGet.getString(base + "/moved"));
+            assertEquals(2, requests.get());
+
+            // The last redirect is not followed but thrown
+            requests.set(0);
+            HttpStatusException e = assertThrows(HttpStatusException.class,
+                    () -> GenericHttpGet.getString(base + "/loop/0"));
+            assertEquals(302, e.getStatusCode());
+            assertEquals(GenericHttpGet.MAX_REDIRECTS + 1, requests.get());
+
+            // Each hop only gets the time which is left
+            assertThrows(HttpTimeoutException.class,
+                    () -> Deadline.after(Duration.ofMillis(400)).call(() -> GenericHttpGet.getString(base + "/slow")));
+
+            // Redirects which were not followed are never cached
+            GenericHttpGet.setCache(new HttpCache(1024));
+            assertEquals("/target", GenericHttpGet.getString(base + "/moved"));
+            requests.set(0);
+            for (int i = 0; i < 2; i++) {
+                e = assertThrows(HttpStatusException.class, () -> GenericHttpGet.getString(base + "/nowhere"));
+                assertEquals(307, e.getStatusCode());
+            }
+            assertEquals(2, requests.get());
+        } finally {
+            GenericHttpGet.setCache(null);
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testWithoutQuery() {
+        assertEquals("http://a/b", RequestSender.withoutQuery(URI.create("http://a/b?key=k&x=1#f")));
+        assertEquals("http://a/b", RequestSender.withoutQuery(URI.create("http://a/b#f")));
+        assertEquals("http://a/b", RequestSender.withoutQuery(URI.create("http://a/b")));
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class ResponseBodyTest {
+
+    @Test
+    public void testCompression() throws IOException {
+        String body = "{\"response\":{\"players\":[]}}".repeat(100);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            String encoding = exchange.getRequestURI().getPath().substring(1);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = encoding.equals("gzip") ? new GZIPOutputStream(bytes)
+                    : encoding.equals("deflate") ? new DeflaterOutputStream(bytes)
+                    : encoding.equals("raw") ? new DeflaterOutputStream(bytes, new Deflater(6, true))
+                    : bytes) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            if (!encoding.equals("identity")) {
+                assertTrue(accept.contains(encoding.equals("raw") ? "deflate" : encoding));
+                exchange.getResponseHeaders().add("Content-Encoding", encoding.equals("raw") ? "deflate" : encoding);
+            }
+            exchange.sendResponseHeaders(200, bytes.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                bytes.writeTo(out);
+            }
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            for (String encoding : new String[] { "gzip", "deflate", "raw", "identity" }) {
+                long wire = GenericHttpGet.getWireBytes();
+                long decoded = GenericHttpGet.getDecodedBytes();
+                assertEquals(body, GenericHttpGet.getString(base + encoding));
+                assertEquals(body.length(), GenericHttpGet.getDecodedBytes() - decoded);
+                if (encoding.equals("identity")) {
+                    assertEquals(body.length(), GenericHttpGet.getWireBytes() - wire);
+                } else {
+                    assertTrue(GenericHttpGet.getWireBytes() - wire < body.length() / 8, encoding);
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testReadBody() throws IOException {
+        byte[] big = new byte[100_000];
+        Arrays.fill(big, (byte) 'x');
+        assertArrayEquals(big, ResponseBody.read(new ByteArrayInputStream(big), -1));
+        assertArrayEquals(big, ResponseBody.read(new ByteArrayInputStream(big), big.length));
+        assertArrayEquals(new byte[0], ResponseBody.read(new ByteArrayInputStream(big), 0));
+        assertThrows(EOFException.class, () -> ResponseBody.read(new ByteArrayInputStream(big), big.length + 1));
+    }
+
+    @Test
+    public void testCharset() {
+        assertEquals(StandardCharsets.UTF_8, ResponseBody.charset(null));
+        assertEquals(StandardCharsets.UTF_8, ResponseBody.charset("application/json"));
+        assertEquals(StandardCharsets.ISO_8859_1, ResponseBody.charset("text/html; Charset=iso-8859-1"));
+        assertEquals(StandardCharsets.UTF_16, ResponseBody.charset("text/plain;charset=\"utf-16\""));
+        assertEquals(StandardCharsets.UTF_8, ResponseBody.charset("text/plain; charset=bogus"));
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class UrlEncodingTest {
+
+    private static final String[] SAMPLES = { "", "plain-Text_1.2~", "a b&c=d/e?f", "éß", "€",
+            "😀", "\ud83d", "STEAM_0:1:65538647" };
+
+    @Test
+    public void testEncode() {
+        String plain = "plain-Text_1.2~";
+        assertSame(plain, UrlEncoding.encode(plain));
+
+        for (String sample : SAMPLES) {
+            // URLEncoder uses '+' for spaces and does not reserve '~'
+            String expected = URLEncoder.encode(sample, StandardCharsets.UTF_8).replace("+", "%20")
+                    .replace("*", "%2A").replace("%7E", "~");
+            assertEquals(expected, UrlEncoding.encode(sample));
+            assertEquals(expected, UrlEncoding.encode(sample, new StringBuilder()).toString());
+        }
+    }
+
+    @Test
+    public void testEncodedLength() {
+        for (String sample : SAMPLES) {
+            assertEquals(UrlEncoding.encode(sample).length(), UrlEncoding.encodedLength(sample));
+        }
+    }
+
+    @Test
+    public void testEncodeQuery() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("steamids", "1,2");
+        params.put("a b", "\u00e9");
+        params.put("format", null);
+        String expected = "a%20b=%C3%A9&format=null&steamids=1%2C2";
+        assertEquals(expected, UrlEncoding.encodeQuery(params, new StringBuilder()).toString());
+        assertEquals(expected, UrlEncoding.encodeQuery(new TreeMap<>(params), new StringBuilder()).toString());
+        assertEquals(expected.length(), UrlEncoding.queryLength(params));
+
+        // Appends to the existing content
+        assertEquals("?x=1", UrlEncoding.encodeQuery(Map.of("x", "1"), new StringBuilder("?")).toString());
+        assertEquals("", UrlEncoding.encodeQuery(Collections.emptyMap(), new StringBuilder()).toString());
+        assertEquals(0, UrlEncoding.queryLength(Collections.emptyMap()));
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class ApiCallTest {
+
+    @Test
+    public void testTransport() throws IOException {
+        try (LocalSteamServer steam = new LocalSteamServer()) {
+            steam.addResponse("/i/m/v1", "local");
+            ApiCall local = new ApiCall("i", "m", "v1", null, steam.getTransport());
+            assertEquals("local", local.run(() -> GenericHttpGet.getString(Builder.BASE_URL + "i/m/v1/")));
+            assertEquals(1, steam.getRequests());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws IOException {
+        ApiCall timed = new ApiCall("i", "m", "v1", Duration.ofMillis(50), null);
+        assertThrows(HttpTimeoutException.class, () -> timed.run(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return GenericHttpGet.getString("http://127.0.0.1:1/");
+        }));
+
+        // Without a timeout only the one of GenericHttpGet applies
+        assertNull(new ApiCall("i", "m", "v1", null, null).run(() -> null));
+        assertEquals("a", new ApiCall("i", "m", "v1", Duration.ofSeconds(1), null).run(() -> "a"));
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.net.HttpStatusException;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings("javadoc")
+public class ApiKeyPoolTest {
+
+    private static ApiKeyPool pool(long quota, String... keys) {
+        char[][] values = new char[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = keys[i].toCharArray();
+        }
+        return new ApiKeyPool(quota, Duration.ofDays(1), Duration.ofMinutes(5), values);
+    }
+
+    @Test
+    public void testLeastLoaded() throws IOException {
+        ApiKeyPool pool = pool(10, "a", "b", "c");
+        for (int i = 0; i < 9; i++) {
+            pool.acquire();
+        }
+        for (int i = 0; i < pool.size(); i++) {
+            assertEquals(3, pool.getRequests(i));
+        }
+    }
+
+    @Test
+    public void testQuota() throws IOException {
+        ApiKeyPool pool = pool(2, "secret1", "secret2");
+        for (int i = 0; i < 4; i++) {
+            pool.acquire();
+        }
+        assertFalse(pool.isAvailable(0));
+        assertFalse(pool.isAvailable(1));
+        IOException e = assertThrows(IOException.class, pool::acquire);
+        assertFalse(e.getMessage().contains("secret"));
+    }
+
+    @Test
+    public void testQuotaReset() throws IOException {
+        ApiKeyPool pool = new ApiKeyPool(1, Duration.ZERO, Duration.ZERO, "a".toCharArray());
+        pool.acquire();
+        pool.acquire();
+        assertEquals(2, pool.getRequests(0));
+    }
+
+    @Test
+    public void testConcurrentQuota() throws Exception {
+        ApiKeyPool pool = pool(1000, "a", "b");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(executor.submit(() -> {
+                int acquired = 0;
+                try {
+                    while (true) {
+                        pool.acquire();
+                        acquired++;
+                    }
+                } catch (IOException e) {
+                    return acquired;
+                }
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        // Never more requests than the quota allows
+        assertEquals(2000, total);
+        assertEquals(1000, pool.getRequests(0));
+        assertEquals(1000, pool.getRequests(1));
+    }
+
+    @Test
+    public void testToString() {
+        assertFalse(pool(10, "secret").toString().contains("secret"));
+    }
+
+    @Test
+    public void testThrottled() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            boolean throttled = exchange.getRequestURI().getQuery().endsWith("key=a");
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(throttled ? 429 : 200, throttled ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (!throttled) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/?format=json";
+            ApiKeyPool pool = pool(10, "a", "b");
+
+            // The throttled key is taken out of rotation and the call is retried
+            assertEquals("ok", Builder.send(url, pool, GenericHttpGet::getString));
+            assertEquals(1, pool.getThrottles(0));
+            assertFalse(pool.isAvailable(0));
+            assertTrue(pool.isAvailable(1));
+            assertEquals("ok", Builder.send(url, pool, GenericHttpGet::getString));
+            assertEquals(1, pool.getRequests(0));
+            assertEquals(2, pool.getRequests(1));
+
+            HttpStatusException e = assertThrows(HttpStatusException.class,
+                    () -> Builder.send(url, pool(10, "a"), GenericHttpGet::getString));
+            assertEquals(HttpStatusException.TOO_MANY_REQUESTS, e.getStatusCode());
+            assertFalse(e.getMessage().contains("key=a"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
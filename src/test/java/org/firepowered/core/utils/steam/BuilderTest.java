@@ -6,12 +6,20 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.firepowered.core.utils.net.GenericHttpGet;
 import org.firepowered.core.utils.steam.Builder.Format;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 @SuppressWarnings("javadoc")
@@ -19,6 +27,19 @@ public class BuilderTest {
 
     private Builder base = SteamApiWrapper.newBuilder().apiInterface("i").method("m").version("1");
 
+    private LocalSteamServer steam;
+
+    @BeforeEach
+    public void startServer() throws IOException, SteamIDParserException {
+        steam = SteamTestConstants.newLocalSteamServer();
+        steam.addResponse("/ISteamNews/GetNewsForApp/v0002", "{\"appnews\":{\"appid\":440,\"newsitems\":[]}}");
+    }
+
+    @AfterEach
+    public void stopServer() {
+        steam.close();
+    }
+
     @SuppressWarnings("unlikely-arg-type")
     @Test
     public void testCloneEquals() {
@@ -48,6 +69,19 @@ public class BuilderTest {
 
         based.param("key1", "val1");
         assertNotEquals(based, cloned);
+
+        Builder timed = (Builder) based.clone();
+        timed.timeout(Duration.ofSeconds(1));
+        assertNotEquals(based, timed);
+
+        Builder local = (Builder) based.clone();
+        local.transport(GenericHttpGet.getConnectionPool());
+        assertNotEquals(based, local);
+
+        // Params must not be shared with the clone
+        Builder copy = (Builder) based.clone();
+        copy.param("key2", "val2");
+        assertNotEquals(based, copy);
     }
 
     @Test
@@ -90,7 +124,10 @@ public class BuilderTest {
         String val1 = "val1";
         String val2 = "val2";
 
-        Map<String, String> pMap = Map.of(key1, val1, key2, val2);
+        // Keep insertion order, the assertion expects key1 first
+        Map<String, String> pMap = new LinkedHashMap<>();
+        pMap.put(key1, val1);
+        pMap.put(key2, val2);
         String[] keys = { key1, key2 };
         String[] vals = { val1, val2 };
 
@@ -126,6 +163,44 @@ public class BuilderTest {
         assertTrue(b.build().endsWith(expected));
     }
 
+    @Test
+    public void testBuild() {
+        Builder b = (Builder) base.clone();
+        assertEquals("http://api.steampowered.com/i/m/v1/?format=json", b.build());
+
+        // The cached prefix must follow changes to the configuration
+        b.format(Format.XML).key("k");
+        assertEquals("http://api.steampowered.com/i/m/v1/?format=xml&key=k", b.build());
+        b.method("m2");
+        assertEquals("http://api.steampowered.com/i/m2/v1/?format=xml&key=k", b.build());
+
+        b.param("steamids", "1,2").param("name", "a bé");
+        assertEquals("http://api.steampowered.com/i/m2/v1/?format=xml&steamids=1%2C2&name=a%20b%C3%A9&key=k",
+                b.build());
+
+        // A key pool replaces the key, which is then only added per call
+        b.keyPool(new ApiKeyPool("k".toCharArray()));
+        assertEquals("http://api.steampowered.com/i/m2/v1/?format=xml&steamids=1%2C2&name=a%20b%C3%A9", b.build());
+    }
+
+    @Test
+    public void testCallStream() throws IOException {
+        Builder b = SteamApiWrapper.newBuilder().apiInterface(SteamApiWrapper.INTERFACE_STEAMNEWS)
+                .method("GetNewsForApp").version("v0002").param("appid", "440").transport(steam.getTransport());
+
+        // Stop after the first byte
+        int first = b.call(body -> body.read());
+        assertEquals('{', first);
+
+        try (InputStream in = b.callStream()) {
+            assertTrue(in.readAllBytes().length > 0);
+        }
+
+        try (ReadableByteChannel channel = b.callChannel()) {
+            assertTrue(channel.read(ByteBuffer.allocate(16)) > 0);
+        }
+    }
+
     @Test
     public void testCall() {
         Builder b = new Builder();
@@ -136,7 +211,7 @@ public class BuilderTest {
 
         try {
             String page = b.apiInterface("ISteamNews").method("GetNewsForApp").version("v0002").param("appid", "440")
-                    .call();
+                    .transport(steam.getTransport()).call();
             assertTrue(!page.isEmpty());
         } catch (IOException e) {
             assertTrue(false);
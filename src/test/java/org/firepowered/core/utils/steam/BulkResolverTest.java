@@ -0,0 +1,88 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link BulkResolver}.
+ */
+@SuppressWarnings("javadoc")
+public class BulkResolverTest {
+
+    private LocalSteamServer steam;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        steam = SteamTestConstants.newLocalSteamServer();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        steam.close();
+    }
+
+    @Test
+    public void testResolveVanityUrls() throws Exception {
+        try (BulkResolver resolver = new BulkResolver(2)) {
+            Map<String, SteamID> res = GenericHttpGet.withTransport(steam.getTransport(),
+                    () -> resolver.resolveVanityUrls(List.of(SteamTestConstants.CUSTOM_ID,
+                            SteamTestConstants.CUSTOM_FAKE_ID, SteamTestConstants.CUSTOM_ID)));
+            assertEquals(2, res.size());
+            assertEquals(SteamID.of(SteamTestConstants.ID_64), res.get(SteamTestConstants.CUSTOM_ID));
+            assertTrue(res.containsKey(SteamTestConstants.CUSTOM_FAKE_ID));
+            assertNull(res.get(SteamTestConstants.CUSTOM_FAKE_ID));
+        }
+    }
+
+    @Test
+    public void testGetPersonaNames() throws Exception {
+        try (BulkResolver resolver = new BulkResolver()) {
+            SteamID gaben = SteamID.of(SteamTestConstants.GABEN_ID_64);
+            Map<SteamID, String> res = GenericHttpGet.withTransport(steam.getTransport(),
+                    () -> resolver.getPersonaNames(List.of(gaben)));
+            assertEquals(SteamTestConstants.GABEN_NAME, res.get(gaben));
+        }
+    }
+
+    @Test
+    public void testCallAll() throws InterruptedException {
+        steam.addResponse("/ISteamNews/GetNewsForApp/v0002", "{\"appnews\":{\"appid\":440}}");
+        try (BulkResolver resolver = new BulkResolver(1)) {
+            Builder news = SteamApiWrapper.newBuilder().transport(steam.getTransport())
+                    .apiInterface(SteamApiWrapper.INTERFACE_STEAMNEWS).method("GetNewsForApp").version("v0002")
+                    .param("appid", "440");
+            Builder bad = SteamApiWrapper.newBuilder().transport(steam.getTransport()).apiInterface("i").method("m")
+                    .version("1");
+            List<String> res = resolver.callAll(List.of(news, bad));
+            assertEquals(2, res.size());
+            assertFalse(res.get(0).isEmpty());
+            assertNull(res.get(1));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.firepowered.core.utils.json.JsonReader;
+import org.firepowered.core.utils.metrics.Metrics;
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.firepowered.core.utils.net.HttpStatusException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test class for {@link LocalSteamServer}.
+ */
+@SuppressWarnings("javadoc")
+public class LocalSteamServerTest {
+
+    private LocalSteamServer steam;
+    private SteamID gaben;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        steam = new LocalSteamServer();
+        gaben = SteamID.of("76561197960287930");
+        steam.addProfile(gaben, "gabelogannewell", "Rabscuttle \"Gabe\"");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        steam.close();
+    }
+
+    @Test
+    public void testCommunity() throws Exception {
+        long vanity = Metrics.counter("fp_steamid_parsed_total", "source", "vanity").get();
+        GenericHttpGet.withTransport(steam.getTransport(), () -> {
+            assertEquals(gaben, SteamID.of("https://steamcommunity.com/id/gabelogannewell"));
+            assertEquals(gaben, SteamApiWrapper.resolveVanityUrl("GabeLoganNewell"));
+            assertNull(SteamApiWrapper.resolveVanityUrl("nobody"));
+            assertEquals("Rabscuttle \"Gabe\"", SteamApiWrapper.getPersonaName(gaben));
+            return null;
+        });
+        assertEquals(4, steam.getRequests());
+        // Kept alive between requests
+        assertEquals(1, steam.getConnections());
+        assertEquals(vanity + 1, Metrics.counter("fp_steamid_parsed_total", "source", "vanity").get());
+    }
+
+    @Test
+    public void testWebApi() throws Exception {
+        Builder summaries = SteamApiWrapper.newBuilder().transport(steam.getTransport())
+                .apiInterface(SteamApiWrapper.INTERFACE_STEAMUSER).method("GetPlayerSummaries").version("v0002")
+                .key("test").param("steamids", gaben.getSteamID64() + ",76561197960287931");
+        assertEquals("Rabscuttle \"Gabe\"",
+                summaries.call(body -> JsonReader.read(body, "response.players[0].personaname",
+                        JsonReader::nextString)));
+
+        Builder resolve = SteamApiWrapper.newBuilder().transport(steam.getTransport())
+                .apiInterface(SteamApiWrapper.INTERFACE_STEAMUSER).method("ResolveVanityURL").version("v0001");
+        Map<String, String> res = ((Builder) resolve.clone()).param("vanityurl", "gabelogannewell")
+                .call(body -> JsonReader.select(body, "response.success", "response.steamid"));
+        assertEquals("1", res.get("response.success"));
+        assertEquals(gaben.getSteamID64(), res.get("response.steamid"));
+        res = ((Builder) resolve.clone()).param("vanityurl", "nobody")
+                .call(body -> JsonReader.select(body, "response.success", "response.message"));
+        assertEquals("42", res.get("response.success"));
+        assertEquals("No match", res.get("response.message"));
+
+        steam.addResponse("/ISteamNews/GetNewsForApp/v0002", "{\"appnews\":{\"appid\":440}}");
+        Builder news = SteamApiWrapper.newBuilder().transport(steam.getTransport())
+                .apiInterface(SteamApiWrapper.INTERFACE_STEAMNEWS).method("GetNewsForApp").version("v0002")
+                .param("appid", "440");
+        assertEquals("{\"appnews\":{\"appid\":440}}", news.call());
+
+        HttpStatusException e = assertThrows(HttpStatusException.class,
+                () -> ((Builder) news.clone()).method("GetNewsForUser").call());
+        assertEquals(404, e.getStatusCode());
+
+        Metrics.Snapshot metrics = Metrics.snapshot();
+        assertTrue(metrics.getHistograms()
+                .get("fp_steam_api_call_duration_seconds{interface=\"ISteamUser\",method=\"ResolveVanityURL\"}")
+                .getCount() >= 2);
+        assertTrue(metrics.getCounters().get(
+                "fp_steam_api_errors_total{interface=\"ISteamNews\",method=\"GetNewsForUser\",type=\"HttpStatusException\"}")
+                >= 1);
+        assertTrue(metrics.getCounters().get("fp_http_errors_total{type=\"status_404\"}") >= 1);
+    }
+
+    @Test
+    public void testBulk() throws Exception {
+        try (BulkResolver resolver = new BulkResolver(4)) {
+            Map<String, SteamID> res = GenericHttpGet.withTransport(steam.getTransport(),
+                    () -> resolver.resolveVanityUrls(List.of("gabelogannewell", "nobody")));
+            assertEquals(gaben, res.get("gabelogannewell"));
+            assertNull(res.get("nobody"));
+        }
+    }
+
+    @Test
+    public void testLatencyAndErrors() throws Exception {
+        steam.setLatency(Duration.ofMillis(50));
+        long start = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("https://steamcommunity.com/profiles/"
+                + gaben.getSteamID64() + "?xml=true")).build();
+        HttpResponse<InputStream> response = steam.getTransport().sendAsync(request).get();
+        try (InputStream body = response.body()) {
+            assertEquals(200, response.statusCode());
+            assertTrue(new String(body.readAllBytes(), StandardCharsets.UTF_8).contains(gaben.getSteamID64()));
+        }
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(50).toNanos());
+
+        steam.setLatency(Duration.ZERO);
+        steam.setErrorRate(1);
+        HttpStatusException e = assertThrows(HttpStatusException.class, () -> GenericHttpGet
+                .withTransport(steam.getTransport(), () -> GenericHttpGet.getString(request.uri().toString())));
+        assertEquals(LocalSteamServer.ERROR_STATUS, e.getStatusCode());
+        // Lookups which swallow errors see nothing
+        assertNull(GenericHttpGet.withTransport(steam.getTransport(), () -> SteamApiWrapper.getPersonaName(gaben)));
+    }
+
+    @Test
+    public void testFlightRecorder() throws Exception {
+        Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.firepowered.SteamApiCall").withThreshold(Duration.ZERO);
+            recording.enable("org.firepowered.VanityResolve").withThreshold(Duration.ZERO);
+            recording.start();
+            GenericHttpGet.withTransport(steam.getTransport(), () -> {
+                assertEquals(gaben, SteamID.of("gabelogannewell"));
+                assertThrows(SteamIDParserException.class, () -> SteamID.of("nobody"));
+                return null;
+            });
+            Builder summaries = SteamApiWrapper.newBuilder().transport(steam.getTransport())
+                    .apiInterface(SteamApiWrapper.INTERFACE_STEAMUSER).method("GetPlayerSummaries").version("v0002")
+                    .key("secret").param("steamids", gaben.getSteamID64());
+            summaries.call();
+            assertThrows(HttpStatusException.class, () -> ((Builder) summaries.clone()).method("Nothing").call());
+            recording.stop();
+            recording.dump(file);
+
+            Map<String, String> vanity = new HashMap<>();
+            Map<String, String> calls = new HashMap<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals("org.firepowered.VanityResolve")) {
+                    vanity.put(event.getString("input"), event.getString("steamId64"));
+                } else if (event.getEventType().getName().equals("org.firepowered.SteamApiCall")) {
+                    assertEquals(SteamApiWrapper.INTERFACE_STEAMUSER, event.getString("apiInterface"));
+                    assertEquals("v0002", event.getString("version"));
+                    calls.put(event.getString("method"), event.getString("error"));
+                }
+            }
+            assertEquals(gaben.getSteamID64(), vanity.get("gabelogannewell"));
+            assertTrue(vanity.containsKey("nobody"));
+            assertNull(vanity.get("nobody"));
+            assertTrue(calls.containsKey("GetPlayerSummaries"));
+            assertNull(calls.get("GetPlayerSummaries"));
+            assertEquals("HttpStatusException", calls.get("Nothing"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
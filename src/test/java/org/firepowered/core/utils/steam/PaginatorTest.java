@@ -0,0 +1,142 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.firepowered.core.utils.steam.Paginator.Page;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class PaginatorTest {
+
+    private final AtomicInteger fetched = new AtomicInteger();
+
+    /**
+     * Pages of 10 numbers selected by a {@code start} offset, like the market
+     * listing endpoints.
+     */
+    private Paginator.Fetcher<Integer> numbers(int total) {
+        return next -> {
+            fetched.incrementAndGet();
+            int start = Integer.parseInt(next.getOrDefault("start", "0"));
+            int end = Math.min(start + 10, total);
+            List<Integer> items = IntStream.range(start, end).boxed().collect(Collectors.toList());
+            return end == total ? Page.last(items) : Page.of(items, Map.of("start", String.valueOf(end)));
+        };
+    }
+
+    @Test
+    public void testItems() {
+        for (int prefetch : new int[] { 0, 1, 4 }) {
+            try (Paginator<Integer> pages = new Paginator<>(numbers(95), prefetch)) {
+                List<Integer> items = new ArrayList<>();
+                pages.forEach(items::add);
+                assertEquals(IntStream.range(0, 95).boxed().collect(Collectors.toList()), items);
+            }
+        }
+    }
+
+    @Test
+    public void testPages() {
+        try (Paginator<Integer> pages = new Paginator<>(numbers(20), 2)) {
+            List<Page<Integer>> list = pages.pageStream().collect(Collectors.toList());
+            assertEquals(2, list.size());
+            assertFalse(list.get(0).isLast());
+            assertEquals(Map.of("start", "10"), list.get(0).getNext());
+            assertTrue(list.get(1).isLast());
+        }
+        // An empty last page still ends the iteration
+        try (Paginator<Integer> pages = new Paginator<>(next -> Page.last(List.of()), 2)) {
+            assertEquals(0, pages.stream().count());
+        }
+    }
+
+    @Test
+    public void testLazy() throws InterruptedException {
+        Paginator<Integer> lazy = new Paginator<>(numbers(1000), 0);
+        assertEquals(25, lazy.stream().limit(25).count());
+        assertEquals(3, fetched.get());
+
+        fetched.set(0);
+        try (Paginator<Integer> pages = new Paginator<>(numbers(1000), 3)) {
+            Iterator<Integer> it = pages.iterator();
+            assertEquals(Integer.valueOf(0), it.next());
+            // The first page plus at most three ahead of it
+            for (int i = 0; i < 50 && fetched.get() < 4; i++) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+            assertEquals(4, fetched.get());
+        }
+    }
+
+    @Test
+    public void testError() {
+        for (int prefetch : new int[] { 0, 2 }) {
+            Paginator<Integer> pages = new Paginator<>(next -> {
+                if (next.isEmpty()) {
+                    return Page.of(List.of(1), Map.of("cursor", "x"));
+                }
+                throw new IOException("failed");
+            }, prefetch);
+            Iterator<Integer> it = pages.iterator();
+            assertEquals(Integer.valueOf(1), it.next());
+            assertThrows(UncheckedIOException.class, it::hasNext);
+            assertFalse(it.hasNext());
+            pages.close();
+        }
+    }
+
+    @Test
+    public void testErrorOnPrefetchThread() {
+        Paginator<Integer> pages = new Paginator<>(next -> {
+            throw new AssertionError("bad page");
+        }, 2);
+        Iterator<Integer> it = pages.iterator();
+        // An Error on the background thread reaches the consumer instead of leaving it waiting
+        AssertionError e = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(AssertionError.class, it::hasNext));
+        assertEquals("bad page", e.getMessage());
+        assertFalse(it.hasNext());
+        pages.close();
+    }
+
+    @Test
+    public void testOnce() {
+        try (Paginator<Integer> pages = new Paginator<>(numbers(5), 0)) {
+            pages.iterator();
+            assertThrows(IllegalStateException.class, pages::pages);
+        }
+    }
+}
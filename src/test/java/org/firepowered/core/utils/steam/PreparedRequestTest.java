@@ -0,0 +1,165 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.firepowered.core.utils.metrics.Histogram;
+import org.firepowered.core.utils.metrics.Metrics;
+import org.firepowered.core.utils.net.HttpStatusException;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@SuppressWarnings("javadoc")
+public class PreparedRequestTest {
+
+    private static final String BASE = "http://api.steampowered.com/i/m/v1/?format=json&fixed=1";
+
+    private Builder base = SteamApiWrapper.newBuilder().apiInterface("i").method("m").version("1").key("k")
+            .param("fixed", "1").param("steamids", "ignored");
+
+    @Test
+    public void testGetParamNames() {
+        assertEquals(List.of("steamids", "count"), base.prepare("steamids", "count").getParamNames());
+    }
+
+    @Test
+    public void testBind() {
+        PreparedRequest req = base.prepare("steamids", "count");
+        assertEquals(BASE + "&steamids=1%2C2&count=3&key=k", req.bind("1,2", "3"));
+
+        // Changing the builder does not affect the prepared request
+        base.param("fixed", "2");
+        assertEquals(BASE + "&steamids=4&count=5&key=k", req.bind("4", "5"));
+        assertEquals(BASE + "&count=5&key=k", req.bind(null, "5"));
+
+        assertThrows(IllegalArgumentException.class, () -> req.bind("1"));
+        assertThrows(IllegalArgumentException.class, () -> req.bind("1", "2", "3"));
+    }
+
+    @Test
+    public void testBindMap() {
+        PreparedRequest req = base.prepare("steamids", "count");
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("count", "3");
+        values.put("extra", "a b");
+        assertEquals(BASE + "&count=3&extra=a%20b&key=k", req.bind(values));
+
+        // Null values are left out, named or not
+        values.put("steamids", null);
+        values.put("empty", null);
+        assertEquals(BASE + "&count=3&extra=a%20b&key=k", req.bind(values));
+    }
+
+    @Test
+    public void testCall() throws IOException, SteamIDParserException {
+        try (LocalSteamServer steam = SteamTestConstants.newLocalSteamServer()) {
+            steam.addResponse("/ISteamNews/GetNewsForApp/v0002", "{\"appnews\":{\"appid\":440,\"newsitems\":[]}}");
+            // The builder's transport is kept, so no GenericHttpGet.withTransport is needed
+            PreparedRequest req = SteamApiWrapper.newBuilder().apiInterface(SteamApiWrapper.INTERFACE_STEAMNEWS)
+                    .method("GetNewsForApp").version("v0002").transport(steam.getTransport()).prepare("appid");
+            assertFalse(req.call("440").isEmpty());
+            assertTrue(req.call(Map.of("appid", "440", "count", "1")).contains("newsitems"));
+            assertEquals(2, steam.getRequests());
+        }
+    }
+
+    @Test
+    public void testCallTimeout() throws IOException {
+        try (LocalSteamServer steam = new LocalSteamServer()) {
+            steam.addResponse("/i/m/v1", "{}");
+            steam.setLatency(Duration.ofMillis(500));
+            Builder timed = ((Builder) base.clone()).transport(steam.getTransport()).timeout(Duration.ofMillis(50));
+            PreparedRequest req = timed.prepare("steamids");
+
+            // The timeout is captured when the request is prepared
+            timed.timeout(null);
+            assertThrows(HttpTimeoutException.class, () -> req.call("1"));
+        }
+    }
+
+    @Test
+    public void testCallMetrics() throws IOException {
+        try (LocalSteamServer steam = new LocalSteamServer()) {
+            steam.addResponse("/i/m/v1", "{}");
+            PreparedRequest req = ((Builder) base.clone()).transport(steam.getTransport()).prepare("steamids");
+            PreparedRequest missing = ((Builder) base.clone()).method("missing").transport(steam.getTransport())
+                    .prepare("steamids");
+            long before = calls(Metrics.snapshot(), "m");
+
+            req.call("1");
+            req.call(Map.of("steamids", "2"));
+            assertThrows(HttpStatusException.class, () -> missing.call("1"));
+
+            Metrics.Snapshot metrics = Metrics.snapshot();
+            assertEquals(before + 2, calls(metrics, "m"));
+            assertTrue(metrics.getCounters().get(
+                    "fp_steam_api_errors_total{interface=\"i\",method=\"missing\",type=\"HttpStatusException\"}") >= 1);
+        }
+    }
+
+    @Test
+    public void testCallFlightRecorder() throws IOException {
+        Path file = Files.createTempFile("events", ".jfr");
+        try (LocalSteamServer steam = new LocalSteamServer(); Recording recording = new Recording()) {
+            steam.addResponse("/i/m/v1", "{}");
+            PreparedRequest req = ((Builder) base.clone()).transport(steam.getTransport()).prepare("steamids");
+            recording.enable("org.firepowered.SteamApiCall").withThreshold(Duration.ZERO);
+            recording.start();
+            req.call("1");
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> calls = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals("org.firepowered.SteamApiCall")) {
+                    calls.add(event);
+                }
+            }
+            assertEquals(1, calls.size());
+            assertEquals("i", calls.get(0).getString("apiInterface"));
+            assertEquals("m", calls.get(0).getString("method"));
+            assertEquals("v1", calls.get(0).getString("version"));
+            assertNull(calls.get(0).getString("error"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static long calls(Metrics.Snapshot metrics, String method) {
+        Histogram.Snapshot duration = metrics.getHistograms()
+                .get("fp_steam_api_call_duration_seconds{interface=\"i\",method=\"" + method + "\"}");
+        return duration == null ? 0 : duration.getCount();
+    }
+}
@@ -17,12 +17,17 @@
 package org.firepowered.core.utils.steam;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.time.Duration;
 
+import org.firepowered.core.utils.net.GenericHttpGet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -34,35 +39,55 @@ import org.junit.jupiter.api.Test;
 @SuppressWarnings("javadoc")
 public class SteamApiWrapperTest {
 
+    private LocalSteamServer steam;
+
+    @BeforeEach
+    public void startServer() throws IOException, SteamIDParserException {
+        steam = SteamTestConstants.newLocalSteamServer();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        steam.close();
+    }
+
     @Test
-    public void testCustomAndUrl() throws SteamIDParserException, IOException, InterruptedException {
+    public void testCustomAndUrl() throws SteamIDParserException, IOException {
         SteamID master = SteamID.of(SteamTestConstants.ID_64);
-        SteamID custom = SteamID.of(SteamTestConstants.CUSTOM_URL);
-        SteamID custom_id = SteamID.of(SteamTestConstants.CUSTOM_ID);
-        SteamID profiles = SteamID.of(SteamTestConstants.PROFILES_URL);
-
-        SteamID[] toVerify = new SteamID[] { custom, custom_id, profiles };
+        SteamID[] toVerify = GenericHttpGet.withTransport(steam.getTransport(),
+                () -> new SteamID[] { SteamID.of(SteamTestConstants.CUSTOM_URL),
+                        SteamID.of(SteamTestConstants.CUSTOM_ID), SteamID.of(SteamTestConstants.PROFILES_URL) });
         for (SteamID element : toVerify) {
             assertTrue(master.equals(element));
         }
 
-        assertThrows(SteamIDParserException.class, () -> SteamID.of(SteamTestConstants.CUSTOM_FAKE_ID));
+        assertThrows(SteamIDParserException.class, () -> GenericHttpGet.withTransport(steam.getTransport(),
+                () -> SteamID.of(SteamTestConstants.CUSTOM_FAKE_ID)));
     }
 
     @Test
-    public void testGetPersonaName() throws SteamIDParserException, IOException, InterruptedException {
+    public void testGetPersonaName() throws SteamIDParserException, IOException {
         assertThrows(AssertionError.class, () -> SteamApiWrapper.getPersonaName(null));
 
-        SteamID id = SteamID.of(SteamTestConstants.GABEN_ID);
-        String personaName = SteamApiWrapper.getPersonaName(id);
+        String personaName = GenericHttpGet.withTransport(steam.getTransport(),
+                () -> SteamApiWrapper.getPersonaName(SteamID.of(SteamTestConstants.GABEN_ID)));
         assertEquals(SteamTestConstants.GABEN_NAME, personaName);
     }
 
     @Test
-    public void testResolveVanityUrl() throws IOException, InterruptedException, SteamIDParserException {
-        assertNull(SteamApiWrapper.resolveVanityUrl(SteamTestConstants.CUSTOM_FAKE_ID));
-        assertEquals(SteamID.of(SteamTestConstants.ID_64),
-                SteamApiWrapper.resolveVanityUrl(SteamTestConstants.CUSTOM_ID));
+    public void testResolveVanityUrl() throws IOException, SteamIDParserException {
+        assertNull(GenericHttpGet.withTransport(steam.getTransport(),
+                () -> SteamApiWrapper.resolveVanityUrl(SteamTestConstants.CUSTOM_FAKE_ID)));
+        assertEquals(SteamID.of(SteamTestConstants.ID_64), GenericHttpGet.withTransport(steam.getTransport(),
+                () -> SteamApiWrapper.resolveVanityUrl(SteamTestConstants.CUSTOM_ID)));
         assertThrows(AssertionError.class, () -> SteamApiWrapper.resolveVanityUrl(null));
     }
+
+    @Test
+    public void testWarmUp() throws IOException {
+        Duration took = GenericHttpGet.withTransport(steam.getTransport(), SteamApiWrapper::warmUp);
+        assertFalse(took.isNegative());
+        // Four connections each to the Web API and the community
+        assertEquals(8, steam.getRequests());
+    }
 }
@@ -0,0 +1,250 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.steam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.firepowered.core.utils.steam.SteamIDProcessor.Result;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class SteamIDProcessorTest {
+
+    /**
+     * Publishes the given items, recording how many were requested but not yet
+     * delivered downstream.
+     */
+    private static final class ListPublisher implements Flow.Publisher<String> {
+
+        private final List<String> items;
+        private final AtomicLong requested = new AtomicLong();
+        private int index;
+
+        ListPublisher(List<String> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    while (requested.get() > 0 && index < items.size()) {
+                        requested.decrementAndGet();
+                        subscriber.onNext(items.get(index++));
+                    }
+                    if (index == items.size()) {
+                        index++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }
+    }
+
+    private static final class Collector implements Flow.Subscriber<Result> {
+
+        private final List<Result> results = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch complete = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Result item) {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            complete.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            complete.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts the live platform threads started by processors. Virtual threads are
+     * not counted, as they are not listed by {@link Thread#getAllStackTraces()}.
+     */
+    private static long processorThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("fp-steamid-processor-")).count();
+    }
+
+    @Test
+    public void testOrdered() throws InterruptedException, SteamIDParserException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        SteamIDProcessor processor = new SteamIDProcessor(true, 16, 2, id -> {
+            lookups.incrementAndGet();
+            await(release);
+            return id.equals(SteamTestConstants.CUSTOM_ID) ? SteamID.of(SteamTestConstants.ID_64) : null;
+        });
+        Collector collector = new Collector();
+        processor.subscribe(collector);
+        collector.subscription.request(Long.MAX_VALUE);
+
+        new ListPublisher(List.of(SteamTestConstants.CUSTOM_URL, SteamTestConstants.ID_32,
+                SteamTestConstants.CUSTOM_ID, "not a steamid", "123", SteamTestConstants.ID_3)).subscribe(processor);
+
+        // Nothing can be delivered until the first vanity url is resolved
+        assertTrue(collector.results.isEmpty());
+        release.countDown();
+        assertTrue(collector.complete.await(5, TimeUnit.SECONDS));
+
+        // Both CUSTOM_URL and CUSTOM_ID share one lookup
+        assertEquals(2, lookups.get());
+        List<Result> res = collector.results;
+        assertEquals(6, res.size());
+        assertEquals(SteamTestConstants.CUSTOM_URL, res.get(0).getInput());
+        SteamID expected = SteamID.of(SteamTestConstants.ID_64);
+        for (int i : new int[] { 0, 1, 2, 5 }) {
+            assertTrue(res.get(i).isSuccess());
+            assertEquals(expected, res.get(i).getSteamID());
+        }
+        assertFalse(res.get(3).isSuccess());
+        assertNotNull(res.get(3).getError());
+        assertEquals("123", res.get(4).getError().getSteamIDText());
+    }
+
+    @Test
+    public void testUnordered() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        SteamIDProcessor processor = new SteamIDProcessor(false, 16, 2, id -> {
+            await(release);
+            return null;
+        });
+        Collector collector = new Collector();
+        processor.subscribe(collector);
+        collector.subscription.request(Long.MAX_VALUE);
+
+        new ListPublisher(List.of("vanity", SteamTestConstants.ID_64)).subscribe(processor);
+        // The offline ID overtakes the vanity url
+        assertEquals(1, collector.results.size());
+        assertEquals(SteamTestConstants.ID_64, collector.results.get(0).getInput());
+
+        release.countDown();
+        assertTrue(collector.complete.await(5, TimeUnit.SECONDS));
+        assertEquals(2, collector.results.size());
+        assertFalse(collector.results.get(1).isSuccess());
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        SteamIDProcessor processor = new SteamIDProcessor(true, 4, 1, id -> null);
+        Collector collector = new Collector();
+        processor.subscribe(collector);
+
+        List<String> items = Collections.nCopies(10, SteamTestConstants.ID_64);
+        ListPublisher publisher = new ListPublisher(items);
+        publisher.subscribe(processor);
+        // Only bufferSize items are taken from upstream without downstream demand
+        assertEquals(4, publisher.index);
+        assertTrue(collector.results.isEmpty());
+
+        collector.subscription.request(3);
+        assertEquals(3, collector.results.size());
+        assertEquals(7, publisher.index);
+
+        collector.subscription.request(7);
+        assertTrue(collector.complete.await(5, TimeUnit.SECONDS));
+        assertEquals(10, collector.results.size());
+    }
+
+    @Test
+    public void testMaxConcurrency() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        SteamIDProcessor processor = new SteamIDProcessor(false, 16, 2, id -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            await(release);
+            running.decrementAndGet();
+            return null;
+        });
+        Collector collector = new Collector();
+        processor.subscribe(collector);
+        collector.subscription.request(Long.MAX_VALUE);
+
+        List<String> names = IntStream.range(0, 10).mapToObj(i -> "vanity" + i).collect(Collectors.toList());
+        new ListPublisher(names).subscribe(processor);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Lookups waiting for a permit have no thread yet
+        assertTrue(processorThreads() <= 2);
+
+        release.countDown();
+        assertTrue(collector.complete.await(5, TimeUnit.SECONDS));
+        assertEquals(10, collector.results.size());
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testNeverSubscribed() throws InterruptedException {
+        Set<String> resolved = ConcurrentHashMap.newKeySet();
+        SteamIDProcessor processor = new SteamIDProcessor(true, 16, 2, id -> {
+            resolved.add(id);
+            return null;
+        });
+        new ListPublisher(List.of("a", "b", "c")).subscribe(processor);
+
+        // The lookups still run, and their threads are stopped once upstream is done
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((resolved.size() < 3 || processorThreads() > 0) && System.nanoTime() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, resolved.size());
+        assertEquals(0, processorThreads());
+    }
+}
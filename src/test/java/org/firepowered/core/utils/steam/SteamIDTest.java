@@ -21,6 +21,9 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+
+import org.firepowered.core.utils.net.GenericHttpGet;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -35,7 +38,10 @@ public class SteamIDTest {
 
     @Test
     public void testOf() throws SteamIDParserException {
-        Assertions.assertThrows(AssertionError.class, () -> SteamID.of(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SteamID.of(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SteamID.of(" "));
+        // Not a SteamID64, whether or not assertions are enabled
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SteamID.of("123"));
 
         SteamID from64 = SteamID.of(SteamTestConstants.ID_64);
         assertNotNull(from64);
@@ -55,19 +61,24 @@ public class SteamIDTest {
     }
     
     @Test
-    public void testUrls() throws SteamIDParserException {
-        SteamID fromVanity = SteamID.of(SteamTestConstants.CUSTOM_URL);
-        assertNotNull(fromVanity);
-
-        SteamID fromProfiles = SteamID.of(SteamTestConstants.PROFILES_URL);
-        assertNotNull(fromProfiles);
-        
-        // Test trailing slashes
-        fromVanity = SteamID.of(SteamTestConstants.CUSTOM_URL + "/");
-        assertNotNull(fromVanity);
-        
-        fromProfiles = SteamID.of(SteamTestConstants.PROFILES_URL + "/");
-        assertNotNull(fromProfiles);
+    public void testUrls() throws SteamIDParserException, IOException {
+        try (LocalSteamServer steam = SteamTestConstants.newLocalSteamServer()) {
+            GenericHttpGet.withTransport(steam.getTransport(), () -> {
+                SteamID fromVanity = SteamID.of(SteamTestConstants.CUSTOM_URL);
+                assertNotNull(fromVanity);
+
+                SteamID fromProfiles = SteamID.of(SteamTestConstants.PROFILES_URL);
+                assertNotNull(fromProfiles);
+
+                // Test trailing slashes
+                fromVanity = SteamID.of(SteamTestConstants.CUSTOM_URL + "/");
+                assertNotNull(fromVanity);
+
+                fromProfiles = SteamID.of(SteamTestConstants.PROFILES_URL + "/");
+                assertNotNull(fromProfiles);
+                return null;
+            });
+        }
     }
 
     @Test
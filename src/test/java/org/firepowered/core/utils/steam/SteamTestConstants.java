@@ -16,6 +16,8 @@
  */
 package org.firepowered.core.utils.steam;
 
+import java.io.IOException;
+
 import org.firepowered.core.utils.StringUtils;
 
 /**
@@ -50,9 +52,27 @@ interface SteamTestConstants {
     /** Fake custom ID */
     final static String CUSTOM_FAKE_ID = StringUtils.randomStringAlphaNum(32);
 
+    /** Gabe Newell SteamID64 */
+    final static String GABEN_ID_64 = "76561197960287930";
+
     /** Gabe Newell custom ID */
     final static String GABEN_ID = "GabeLoganNewell";
 
     /** Gabe Newell persona name */
     final static String GABEN_NAME = "Rabscuttle";
+
+    /**
+     * Creates a {@link LocalSteamServer} which knows the users above, so lookups
+     * can be tested without the real Steam servers.
+     *
+     * @return The server, which must be closed by the caller
+     * @throws IOException            If the server could not be started
+     * @throws SteamIDParserException Never, the SteamIDs above are valid
+     */
+    static LocalSteamServer newLocalSteamServer() throws IOException, SteamIDParserException {
+        LocalSteamServer steam = new LocalSteamServer();
+        steam.addProfile(SteamID.of(ID_64), CUSTOM_ID, "DragonBanshee");
+        steam.addProfile(SteamID.of(GABEN_ID_64), GABEN_ID, GABEN_NAME);
+        return steam;
+    }
 }
@@ -0,0 +1,84 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.vdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class VdfNodeTest {
+
+    private static final String ITEMS_GAME = "\"items_game\"\n{\n\t\"items\"\n\t{\n"
+            + "\t\t\"5021\"\n\t\t{\n\t\t\t\"name\"\t\"Decoder Ring\"\n\t\t\t\"item_class\"\t\"tool\"\n\t\t}\n"
+            + "\t\t\"5022\"\n\t\t{\n\t\t\t\"name\"\t\"Crate\"\n\t\t}\n\t}\n"
+            + "\t\"tag\"\t\"a\"\n\t\"tag\"\t\"b\"\n}\n";
+
+    @Test
+    public void testRead() throws IOException {
+        VdfNode root = VdfNode.read(new ByteArrayInputStream(ITEMS_GAME.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, root.size());
+        assertEquals("items_game", root.getKey(0));
+        assertEquals("Decoder Ring", root.get("items_game", "items", "5021", "name"));
+        assertEquals("tool", root.get("ITEMS_GAME", "Items", "5021", "Item_Class"));
+        assertNull(root.get("items_game", "items", "5021", "name", "more"));
+        assertNull(root.get("items_game", "missing"));
+
+        VdfNode game = root.getNode("items_game");
+        assertNull(game.getString("items"));
+        assertNull(game.getNode("tag"));
+        assertEquals("a", game.getString("tag"));
+        assertEquals(List.of("a", "b"), game.getAll("tag"));
+        assertEquals("Crate", ((VdfNode) game.getNode("items").getValue(1)).getString("name"));
+        assertThrows(IndexOutOfBoundsException.class, () -> game.getKey(4));
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        StringBuilder vdf = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            vdf.append("key").append(i).append(' ').append(i).append('\n');
+        }
+        vdf.append("KEY5 dup\n");
+        VdfNode root = VdfNode.read(new StringReader(vdf.toString()));
+        assertEquals(101, root.size());
+        assertEquals("42", root.getString("Key42"));
+        assertEquals(List.of("5", "dup"), root.getAll("key5"));
+        assertNull(root.get("key100"));
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        Path file = Files.createTempFile("items_game", ".txt");
+        try {
+            Files.writeString(file, ITEMS_GAME);
+            assertEquals("Crate", VdfNode.read(file).get("items_game", "items", "5022", "name"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ *  Copyright (C) 2023 FirePowered LLC.
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.firepowered.core.utils.vdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("javadoc")
+public class VdfParserTest {
+
+    private static List<String> events(String vdf) throws IOException {
+        List<String> events = new ArrayList<>();
+        new VdfParser(new StringReader(vdf)).parse(new VdfHandler() {
+            @Override
+            public void startObject(String key) {
+                events.add("start " + key);
+            }
+
+            @Override
+            public void endObject() {
+                events.add("end");
+            }
+
+            @Override
+            public void value(String key, String value) {
+                events.add(key + "=" + value);
+            }
+        });
+        return events;
+    }
+
+    @Test
+    public void testEvents() throws IOException {
+        String vdf = "\uFEFF\"items\"\n{\n\t\"5021\"\n\t{\n\t\t\"name\"\t\t\"Mann Co. Supply Crate Key\"\n\t}\n}\n";
+        assertEquals(List.of("start items", "start 5021", "name=Mann Co. Supply Crate Key", "end", "end"),
+                events(vdf));
+    }
+
+    @Test
+    public void testSyntax() throws IOException {
+        String vdf = "// comment\nroot { unquoted value\n\"esc\" \"a\\\"b\\nc\\\\d\\e\" // trailing\n"
+                + "\"cond\" \"1\" [$WIN32]\nempty{}\"\"\"\"}";
+        assertEquals(List.of("start root", "unquoted=value", "esc=a\"b\nc\\d\\e", "cond=1", "start empty", "end",
+                "=", "end"), events(vdf));
+    }
+
+    @Test
+    public void testLargeValues() throws IOException {
+        // Tokens spanning buffer boundaries
+        String value = "x".repeat(20000);
+        assertEquals(List.of("k=" + value, "u=" + value), events("\"k\" \"" + value + "\" u " + value));
+    }
+
+    @Test
+    public void testShared() throws IOException {
+        List<String> keys = new ArrayList<>();
+        new VdfParser(new StringReader("a { name 1 } b { name 2 }")).parse(new VdfHandler() {
+            @Override
+            public void startObject(String key) {
+            }
+
+            @Override
+            public void endObject() {
+            }
+
+            @Override
+            public void value(String key, String value) {
+                keys.add(key);
+            }
+        });
+        assertSame(keys.get(0), keys.get(1));
+    }
+
+    @Test
+    public void testMalformed() {
+        for (String vdf : new String[] { "a {", "a }", "}", "{", "a", "\"a", "a { b", "a \"b\" [$X" }) {
+            IOException e = assertThrows(IOException.class, () -> events(vdf));
+            assertTrue(e.getMessage().startsWith("Malformed VDF"), vdf);
+        }
+    }
+}